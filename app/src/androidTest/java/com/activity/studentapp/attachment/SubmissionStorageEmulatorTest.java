@@ -0,0 +1,171 @@
+package com.activity.studentapp.attachment;
+
+import android.content.Context;
+import android.net.Uri;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.storage.FirebaseStorage;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Round-trips a submission through the local Firebase emulators.
+ *
+ * Start them first with {@code firebase emulators:start}; the device reaches
+ * the host through 10.0.2.2 on an emulator.
+ */
+@RunWith(AndroidJUnit4.class)
+public class SubmissionStorageEmulatorTest {
+    private static final String HOST = "10.0.2.2";
+
+    private static FirebaseFirestore db;
+    private static FirebaseStorage storage;
+
+    @BeforeClass
+    public static void useEmulators() throws Exception {
+        db = FirebaseFirestore.getInstance();
+        db.useEmulator(HOST, 8080);
+        storage = FirebaseStorage.getInstance();
+        storage.useEmulator(HOST, 9199);
+        FirebaseAuth auth = FirebaseAuth.getInstance();
+        auth.useEmulator(HOST, 9099);
+        Tasks.await(auth.signInAnonymously(), 30, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void submittedFileRoundTripsThroughStorage() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        byte[] content = new byte[3 * 1024 * 1024 + 17];
+        new Random(42).nextBytes(content);
+        File file = new File(context.getCacheDir(), "essay.bin");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(content);
+        }
+
+        String submissionId = submit(context, file);
+
+        // Only metadata lands in Firestore
+        DocumentSnapshot fileDoc = onlyFile(submissionId);
+        assertEquals(content.length, fileDoc.getLong("size").longValue());
+        assertNull(fileDoc.get("chunkCount"));
+        assertEquals(SubmissionWriter.blobPath(FirebaseAuth.getInstance().getCurrentUser().getUid(),
+                fileDoc.getString("sha256")), fileDoc.getString("storagePath"));
+
+        SubmissionReader reader = new SubmissionReader(storage);
+        CountDownLatch listed = new CountDownLatch(1);
+        List<SubmittedFile>[] files = new List[1];
+        reader.readSubmission(db.collection("submissions").document(submissionId),
+                new SubmissionReader.Callback() {
+                    @Override
+                    public void onLoaded(List<SubmittedFile> result) {
+                        files[0] = result;
+                        listed.countDown();
+                    }
+
+                    @Override
+                    public void onFailure(String message, Exception e) {
+                        listed.countDown();
+                    }
+                });
+        assertTrue(listed.await(60, TimeUnit.SECONDS));
+        assertEquals(1, files[0].size());
+        SubmittedFile submittedFile = files[0].get(0);
+        assertEquals("essay.bin", submittedFile.getName());
+        assertEquals(content.length, submittedFile.getSize());
+
+        // Content is only fetched on request
+        CountDownLatch loaded = new CountDownLatch(1);
+        byte[][] loadedContent = new byte[1][];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() ->
+                reader.loadContent(submittedFile, new SubmissionReader.ContentCallback() {
+                    @Override
+                    public void onProgress(long loadedBytes, long totalBytes) {
+                    }
+
+                    @Override
+                    public void onContent(byte[] result) {
+                        loadedContent[0] = result;
+                        loaded.countDown();
+                    }
+
+                    @Override
+                    public void onUnavailable(List<Integer> missingChunks) {
+                        loaded.countDown();
+                    }
+                }));
+        assertTrue(loaded.await(60, TimeUnit.SECONDS));
+        assertArrayEquals(content, loadedContent[0]);
+    }
+
+    @Test
+    public void resubmittedFileReusesItsBlob() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        byte[] content = new byte[1024 * 1024];
+        new Random(7).nextBytes(content);
+        File file = new File(context.getCacheDir(), "resubmitted.bin");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(content);
+        }
+
+        DocumentSnapshot first = onlyFile(submit(context, file));
+        DocumentSnapshot second = onlyFile(submit(context, file));
+        assertEquals(first.getString("sha256"), second.getString("sha256"));
+        assertEquals(first.getString("storagePath"), second.getString("storagePath"));
+        assertEquals(content.length, second.getLong("storedSize").longValue());
+    }
+
+    private static String submit(Context context, File file) throws InterruptedException {
+        Map<String, Object> submission = new HashMap<>();
+        submission.put("studentId", "emulator-student");
+        submission.put("assignmentId", "emulator-assignment");
+        submission.put("status", "submitted");
+
+        CountDownLatch submitted = new CountDownLatch(1);
+        String[] error = new String[1];
+        SubmissionWriter writer = new SubmissionWriter(context.getContentResolver(), db, storage);
+        String submissionId = writer.submit(submission,
+                Collections.singletonList(new Attachment(Uri.fromFile(file), file.getName())),
+                new SubmissionWriter.Listener() {
+                    @Override
+                    public void onSubmitted(String id) {
+                        submitted.countDown();
+                    }
+
+                    @Override
+                    public void onFailure(String message, Exception e, boolean retryable) {
+                        error[0] = message;
+                        submitted.countDown();
+                    }
+                });
+        assertTrue(submitted.await(60, TimeUnit.SECONDS));
+        assertNull(error[0]);
+        return submissionId;
+    }
+
+    private static DocumentSnapshot onlyFile(String submissionId) throws Exception {
+        List<DocumentSnapshot> fileDocs = Tasks.await(
+                db.collection("submissions").document(submissionId).collection("files").get()).getDocuments();
+        assertEquals(1, fileDocs.size());
+        return fileDocs.get(0);
+    }
+}
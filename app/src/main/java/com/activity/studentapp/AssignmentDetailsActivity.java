@@ -1,14 +1,9 @@
 package com.activity.studentapp;
 
-import android.app.ProgressDialog;
 import android.content.Intent;
 import android.content.SharedPreferences;
-import android.database.Cursor;
 import android.net.Uri;
 import android.os.Bundle;
-import android.os.ParcelFileDescriptor;
-import android.provider.OpenableColumns;
-import android.util.Base64;
 import android.util.Log;
 import android.view.View;
 import android.view.ViewGroup;
@@ -23,16 +18,24 @@ import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
 
 import com.activity.studentapp.adapter.FileAdapter;
+import com.activity.studentapp.attachment.Attachment;
+import com.activity.studentapp.attachment.AttachmentResolver;
+import com.activity.studentapp.attachment.FileDownloader;
+import com.activity.studentapp.attachment.ImagePreviewLoader;
+import com.activity.studentapp.attachment.SubmissionFileCache;
+import com.activity.studentapp.attachment.SubmissionJobs;
+import com.activity.studentapp.attachment.SubmissionReader;
+import com.activity.studentapp.attachment.SubmittedFile;
 import com.activity.studentapp.model.Activity;
 import com.activity.studentapp.model.Subject;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
-
-import java.io.ByteArrayOutputStream;
-import java.io.InputStream;
+import com.google.firebase.storage.FirebaseStorage;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -62,12 +65,21 @@ public class AssignmentDetailsActivity extends AppCompatActivity {
     private com.google.android.material.button.MaterialButton attachFileButton;
     private com.google.android.material.button.MaterialButton submitAssignmentButton;
 
-    private List<Uri> attachedFiles;
+    private List<Attachment> attachedFiles;
     private FileAdapter adapter;
 
     // Firebase instances
     private FirebaseFirestore db;
+    private SubmissionReader submissionReader;
+    private FileDownloader fileDownloader;
+    private AttachmentResolver attachmentResolver;
+    // Picks whose metadata is still being resolved; submitting waits for them
+    private int pendingResolves;
     private String studentId;
+    // A background submission job is pending, so the upload section stays hidden
+    private boolean submissionInProgress;
+    // The failed submission already offered for retry, so LiveData updates don't stack dialogs
+    private String promptedSubmissionId;
 
     private static final int PICK_FILES_REQUEST = 1;
 
@@ -88,6 +100,11 @@ public class AssignmentDetailsActivity extends AppCompatActivity {
 
         // Initialize Firebase instances
         db = FirebaseFirestore.getInstance();
+        FirebaseStorage storage = FirebaseStorage.getInstance();
+        // Submitted files don't change, so their content is kept on disk between visits
+        submissionReader = new SubmissionReader(storage, new SubmissionFileCache(getCacheDir()));
+        fileDownloader = new FileDownloader(this, storage);
+        attachmentResolver = new AttachmentResolver(getContentResolver());
 
         // Retrieve studentId from SharedPreferences
         SharedPreferences prefs = getSharedPreferences("StudentAppPrefs", MODE_PRIVATE);
@@ -101,6 +118,7 @@ public class AssignmentDetailsActivity extends AppCompatActivity {
         initializeViews();
         setupUI();
         checkSubmissionStatus();
+        observeSubmissionJob();
         setupClickListeners();
 
         // Handle back press
@@ -112,6 +130,14 @@ public class AssignmentDetailsActivity extends AppCompatActivity {
         });
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (submissionReader != null) {
+            submissionReader.clear();
+        }
+    }
+
     private void initializeViews() {
         assignmentTitle = findViewById(R.id.assignmentTitle);
         assignmentDescription = findViewById(R.id.assignmentDescription);
@@ -223,46 +249,25 @@ public class AssignmentDetailsActivity extends AppCompatActivity {
                 selectedUris.add(data.getData());
             }
 
-            List<Uri> validFiles = new ArrayList<>();
-            for (Uri uri : selectedUris) {
-                long size = getFileSize(uri);
-                if (size > 0 && size <= 10 * 1024 * 1024) {
-                    validFiles.add(uri);
-                } else {
-                    Toast.makeText(this, "File too large. Maximum size is 10MB.", Toast.LENGTH_SHORT).show();
+            // Name, size, type and hash are looked up once here; the list and the upload reuse them
+            pendingResolves++;
+            submitAssignmentButton.setEnabled(false);
+            attachmentResolver.resolve(selectedUris, attachments -> {
+                if (isDestroyed()) {
+                    return;
                 }
-            }
-            attachedFiles.addAll(validFiles);
-            adapter.notifyDataSetChanged();
-        }
-    }
-
-    private long getFileSize(Uri uri) {
-        try {
-            ParcelFileDescriptor pfd = getContentResolver().openFileDescriptor(uri, "r");
-            long size = pfd.getStatSize();
-            pfd.close();
-            return size;
-        } catch (Exception e) {
-            return -1;
-        }
-    }
-
-    private String encodeFileToBase64(Uri uri) {
-        try {
-            InputStream inputStream = getContentResolver().openInputStream(uri);
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            byte[] buffer = new byte[1024];
-            int len;
-            while ((len = inputStream.read(buffer)) != -1) {
-                baos.write(buffer, 0, len);
-            }
-            inputStream.close();
-            byte[] bytes = baos.toByteArray();
-            return Base64.encodeToString(bytes, Base64.DEFAULT);
-        } catch (Exception e) {
-            Log.e("AssignmentDetails", "Error encoding file to base64", e);
-            return null;
+                pendingResolves--;
+                submitAssignmentButton.setEnabled(pendingResolves == 0);
+                int start = attachedFiles.size();
+                for (Attachment attachment : attachments) {
+                    if (attachment.isWithinSizeLimit()) {
+                        attachedFiles.add(attachment);
+                    } else {
+                        Toast.makeText(this, "File too large. Maximum size is 10MB.", Toast.LENGTH_SHORT).show();
+                    }
+                }
+                adapter.notifyItemRangeInserted(start, attachedFiles.size() - start);
+            });
         }
     }
 
@@ -272,11 +277,6 @@ public class AssignmentDetailsActivity extends AppCompatActivity {
             return;
         }
 
-        ProgressDialog progressDialog = new ProgressDialog(this);
-        progressDialog.setMessage("Processing files...");
-        progressDialog.setCancelable(false);
-        progressDialog.show();
-
         Map<String, Object> submission = new HashMap<>();
         submission.put("studentId", studentId);
         submission.put("assignmentId", assignment.getId());
@@ -285,125 +285,102 @@ public class AssignmentDetailsActivity extends AppCompatActivity {
         submission.put("grade", null);
         submission.put("gradeComments", null);
 
-        db.collection("submissions").add(submission)
-                .addOnSuccessListener(documentReference -> {
-                    // Now save files in subcollection
-                    saveFilesToSubcollection(documentReference.getId(), attachedFiles, progressDialog);
-                })
-                .addOnFailureListener(e -> {
-                    progressDialog.dismiss();
-                    Toast.makeText(this, "Failed to save submission: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                });
-    }
-
-    private void saveFilesToSubcollection(String submissionId, List<Uri> files, ProgressDialog progressDialog) {
-        if (files.isEmpty()) {
-            progressDialog.dismiss();
-            Toast.makeText(this, "Assignment submitted successfully", Toast.LENGTH_SHORT).show();
-            // Refresh the UI to show submitted state
-            checkSubmissionStatus();
-            return;
-        }
-
-        Uri fileUri = files.get(0);
-        String fileName = getFileName(fileUri);
-        String base64 = encodeFileToBase64(fileUri);
-
-        if (base64 == null) {
-            progressDialog.dismiss();
-            Toast.makeText(this, "Failed to encode file: " + fileName, Toast.LENGTH_SHORT).show();
-            return;
-        }
-
-        // Split base64 into chunks if too large (Firestore field limit ~1MB)
-        List<String> chunks = splitBase64IntoChunks(base64, 900000); // Use 900KB chunks to be safe
+        List<Attachment> files = new ArrayList<>(attachedFiles);
+
+        // The upload runs as a background job that survives leaving the screen or the app dying;
+        // the submission appears once every file is stored
+        submitAssignmentButton.setEnabled(false);
+        SubmissionJobs.enqueue(this, studentId, assignment.getId(), submission, files,
+                new SubmissionJobs.Callback() {
+                    @Override
+                    public void onEnqueued(String submissionId) {
+                        submitAssignmentButton.setEnabled(pendingResolves == 0);
+                        attachedFiles.clear();
+                        adapter.notifyDataSetChanged();
+                        Toast.makeText(AssignmentDetailsActivity.this,
+                                "Submitting in the background", Toast.LENGTH_SHORT).show();
+                    }
 
-        // Save file metadata first
-        Map<String, Object> fileDoc = new HashMap<>();
-        fileDoc.put("name", fileName);
-        fileDoc.put("chunkCount", chunks.size());
+                    @Override
+                    public void onAlreadyPending(String submissionId) {
+                        // The attached files stay, so they can be submitted once the pending one is done
+                        submitAssignmentButton.setEnabled(pendingResolves == 0);
+                        Toast.makeText(AssignmentDetailsActivity.this,
+                                "A submission is still uploading", Toast.LENGTH_SHORT).show();
+                    }
 
-        db.collection("submissions").document(submissionId).collection("files").add(fileDoc)
-                .addOnSuccessListener(fileDocRef -> {
-                    // Save chunks as separate documents
-                    saveBase64Chunks(fileDocRef.getId(), chunks, submissionId, files, progressDialog);
-                })
-                .addOnFailureListener(e -> {
-                    progressDialog.dismiss();
-                    Toast.makeText(this, "Failed to save file metadata: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                    @Override
+                    public void onFailure(String message, Exception e) {
+                        Log.e("AssignmentDetails", "Failed to submit assignment", e);
+                        submitAssignmentButton.setEnabled(pendingResolves == 0);
+                        Toast.makeText(AssignmentDetailsActivity.this, message, Toast.LENGTH_SHORT).show();
+                    }
                 });
     }
 
-    private List<String> splitBase64IntoChunks(String base64, int chunkSize) {
-        List<String> chunks = new ArrayList<>();
-        int length = base64.length();
-        for (int i = 0; i < length; i += chunkSize) {
-            int end = Math.min(i + chunkSize, length);
-            chunks.add(base64.substring(i, end));
-        }
-        return chunks;
-    }
-
-    private void saveBase64Chunks(String fileId, List<String> chunks, String submissionId, List<Uri> files,
-            ProgressDialog progressDialog) {
-        // Calculate the total number of chunks originally
-        int totalChunks = chunks.size();
-        saveBase64ChunksRecursive(fileId, chunks, 0, totalChunks, submissionId, files, progressDialog);
+    private void observeSubmissionJob() {
+        // Jobs started before this screen was opened report here too
+        WorkManager.getInstance(this)
+                .getWorkInfosForUniqueWorkLiveData(SubmissionJobs.uniqueWorkName(studentId, assignment.getId()))
+                .observe(this, infos -> {
+                    if (infos == null || infos.isEmpty()) {
+                        return;
+                    }
+                    WorkInfo info = infos.get(0);
+                    if (!info.getState().isFinished()) {
+                        submissionInProgress = true;
+                        showSubmittingUI(info.getProgress().getInt(SubmissionJobs.KEY_PROGRESS, 0));
+                    } else if (info.getState() == WorkInfo.State.FAILED) {
+                        boolean watched = submissionInProgress;
+                        submissionInProgress = false;
+                        String message = info.getOutputData().getString(SubmissionJobs.KEY_MESSAGE);
+                        String submissionId = info.getOutputData().getString(SubmissionJobs.KEY_SUBMISSION_ID);
+                        if (submissionId != null && SubmissionJobs.hasStagedFiles(this, submissionId)) {
+                            // Also shown for a job that failed while the screen was closed
+                            showFailedSubmission(submissionId, message);
+                        } else if (watched) {
+                            Toast.makeText(this, message != null ? message : "Failed to submit assignment",
+                                    Toast.LENGTH_SHORT).show();
+                        }
+                        if (watched) {
+                            submissionStatus.setVisibility(View.GONE);
+                            checkSubmissionStatus();
+                        }
+                    } else if (submissionInProgress) {
+                        // Only react to a job that finished while this screen was watching
+                        submissionInProgress = false;
+                        if (info.getState() == WorkInfo.State.SUCCEEDED) {
+                            Toast.makeText(this, "Assignment submitted successfully", Toast.LENGTH_SHORT).show();
+                        } else {
+                            Toast.makeText(this, "Failed to submit assignment", Toast.LENGTH_SHORT).show();
+                            submissionStatus.setVisibility(View.GONE);
+                        }
+                        checkSubmissionStatus();
+                    }
+                });
     }
 
-    private void saveBase64ChunksRecursive(String fileId, List<String> chunks, int currentIndex, int totalChunks,
-            String submissionId, List<Uri> files, ProgressDialog progressDialog) {
-        if (currentIndex >= totalChunks) {
-            // All chunks saved, move to next file
-            files.remove(0);
-            saveFilesToSubcollection(submissionId, files, progressDialog);
+    // The failed job's files are kept until the student retries or discards them
+    private void showFailedSubmission(String submissionId, String message) {
+        if (submissionId.equals(promptedSubmissionId)) {
             return;
         }
-
-        String chunk = chunks.get(currentIndex);
-        Map<String, Object> chunkDoc = new HashMap<>();
-        chunkDoc.put("data", chunk);
-        chunkDoc.put("index", currentIndex);
-
-        Log.d("AssignmentDetails",
-                "Saving chunk " + currentIndex + "/" + (totalChunks - 1) + " for file " + fileId + ", data length: "
-                        + chunk.length());
-
-        db.collection("submissions").document(submissionId).collection("files").document(fileId).collection("chunks")
-                .document("chunk_" + currentIndex) // Use fixed document ID instead of auto-generated
-                .set(chunkDoc)
-                .addOnSuccessListener(aVoid -> {
-                    Log.d("AssignmentDetails", "Successfully saved chunk " + currentIndex + " for file " + fileId);
-                    saveBase64ChunksRecursive(fileId, chunks, currentIndex + 1, totalChunks, submissionId, files,
-                            progressDialog);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e("AssignmentDetails", "Failed to save chunk " + currentIndex + " for file " + fileId, e);
-                    progressDialog.dismiss();
-                    Toast.makeText(this, "Failed to save file chunk: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                });
+        promptedSubmissionId = submissionId;
+        new AlertDialog.Builder(this)
+                .setTitle("Submission failed")
+                .setMessage(message != null ? message : "Failed to submit assignment")
+                .setPositiveButton("Retry", (dialog, which) ->
+                        SubmissionJobs.retry(this, studentId, assignment.getId(), submissionId))
+                .setNegativeButton("Discard", (dialog, which) -> SubmissionJobs.discard(this, submissionId))
+                .show();
     }
 
-    private String getFileName(Uri uri) {
-        String result = null;
-        if (uri.getScheme().equals("content")) {
-            try (Cursor cursor = getContentResolver().query(uri, null, null, null, null)) {
-                if (cursor != null && cursor.moveToFirst()) {
-                    int index = cursor.getColumnIndex(OpenableColumns.DISPLAY_NAME);
-                    if (index >= 0) {
-                        result = cursor.getString(index);
-                    }
-                }
-            }
-        }
-        if (result == null) {
-            result = uri.getPath();
-            int cut = result.lastIndexOf('/');
-            if (cut != -1) {
-                result = result.substring(cut + 1);
-            }
+    private void showSubmittingUI(int percent) {
+        if (submissionStatus != null) {
+            submissionStatus.setText("Submitting\u2026 " + percent + "%");
+            submissionStatus.setVisibility(View.VISIBLE);
         }
-        return result;
+        hideUploadUI();
     }
 
     private void checkSubmissionStatus() {
@@ -423,7 +400,7 @@ public class AssignmentDetailsActivity extends AppCompatActivity {
                         // Not submitted, check due date
                         if (isDueDatePassed()) {
                             showPastDueUI();
-                        } else {
+                        } else if (!submissionInProgress) {
                             showUploadUI();
                         }
                     }
@@ -432,7 +409,9 @@ public class AssignmentDetailsActivity extends AppCompatActivity {
                     Log.e("AssignmentDetails", "Error checking submission", e);
                     // Default to upload UI if error
                     if (!isDueDatePassed()) {
-                        showUploadUI();
+                        if (!submissionInProgress) {
+                            showUploadUI();
+                        }
                     } else {
                         showPastDueUI();
                     }
@@ -509,16 +488,22 @@ public class AssignmentDetailsActivity extends AppCompatActivity {
     }
 
     private void loadSubmittedFiles(DocumentReference submissionRef) {
-        submissionRef.collection("files").get()
-                .addOnSuccessListener(querySnapshot -> {
-                    if (submittedFilesRecyclerView != null && !querySnapshot.isEmpty()) {
-                        List<Map<String, String>> files = new ArrayList<>();
-                        loadFileChunks(querySnapshot.getDocuments(), 0, files, submissionRef.getId());
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    Log.e("AssignmentDetails", "Error loading submitted files", e);
-                });
+        // Only the file documents are read here; rows load their content on demand
+        submissionReader.readSubmission(submissionRef, new SubmissionReader.Callback() {
+            @Override
+            public void onLoaded(List<SubmittedFile> files) {
+                if (submittedFilesRecyclerView != null && !files.isEmpty()) {
+                    submittedFilesRecyclerView.setAdapter(
+                            new SubmittedFilesAdapter(files, submissionReader, fileDownloader,
+                                    AssignmentDetailsActivity.this));
+                }
+            }
+
+            @Override
+            public void onFailure(String message, Exception e) {
+                Log.e("AssignmentDetails", message, e);
+            }
+        });
     }
 
     private void loadGrade(DocumentReference submissionRef) {
@@ -576,95 +561,31 @@ public class AssignmentDetailsActivity extends AppCompatActivity {
         }
     }
 
-    private void loadFileChunks(List<DocumentSnapshot> fileDocs, int index, List<Map<String, String>> files,
-            String submissionId) {
-        if (index >= fileDocs.size()) {
-            // All files loaded, create adapter
-            SubmittedFilesAdapter adapter = new SubmittedFilesAdapter(files, this);
-            submittedFilesRecyclerView.setAdapter(adapter);
-            return;
-        }
-
-        DocumentSnapshot fileDoc = fileDocs.get(index);
-        String fileName = fileDoc.getString("name");
-        Long chunkCount = fileDoc.getLong("chunkCount");
-
-        if (chunkCount != null && chunkCount > 0) {
-            // Load chunks for this file
-            loadChunksForFile(fileDoc.getReference(), chunkCount.intValue(), fileName, files, fileDocs, index,
-                    submissionId);
-        } else {
-            // No chunks, skip this file
-            loadFileChunks(fileDocs, index + 1, files, submissionId);
-        }
-    }
-
-    private void loadChunksForFile(DocumentReference fileRef, int chunkCount, String fileName,
-            List<Map<String, String>> files,
-            List<DocumentSnapshot> fileDocs, int fileIndex, String submissionId) {
-        Log.d("AssignmentDetails", "Loading " + chunkCount + " chunks for file: " + fileName);
-
-        // Load chunks sequentially using fixed document IDs
-        loadChunksSequentially(fileRef, chunkCount, fileName, files, fileDocs, fileIndex, submissionId, 0,
-                new StringBuilder());
-    }
-
-    private void loadChunksSequentially(DocumentReference fileRef, int chunkCount, String fileName,
-            List<Map<String, String>> files, List<DocumentSnapshot> fileDocs, int fileIndex,
-            String submissionId, int currentChunkIndex, StringBuilder base64Builder) {
-
-        if (currentChunkIndex >= chunkCount) {
-            // All chunks loaded, create file map
-            String reconstructedBase64 = base64Builder.toString();
-            Log.d("AssignmentDetails",
-                    "Reconstructed base64 length: " + reconstructedBase64.length() + " for file: " + fileName);
-
-            Map<String, String> fileMap = new HashMap<>();
-            fileMap.put("name", fileName);
-            fileMap.put("base64", reconstructedBase64);
-            files.add(fileMap);
-
-            // Load next file
-            loadFileChunks(fileDocs, fileIndex + 1, files, submissionId);
-            return;
-        }
-
-        String chunkDocId = "chunk_" + currentChunkIndex;
-        fileRef.collection("chunks").document(chunkDocId).get()
-                .addOnSuccessListener(chunkDoc -> {
-                    if (chunkDoc.exists()) {
-                        String chunkData = chunkDoc.getString("data");
-                        Log.d("AssignmentDetails", "Loaded chunk " + currentChunkIndex + ", data length: "
-                                + (chunkData != null ? chunkData.length() : "null"));
-                        if (chunkData != null) {
-                            base64Builder.append(chunkData);
-                        }
-                    } else {
-                        Log.w("AssignmentDetails",
-                                "Chunk document " + chunkDocId + " does not exist for file: " + fileName);
-                    }
-
-                    // Load next chunk
-                    loadChunksSequentially(fileRef, chunkCount, fileName, files, fileDocs, fileIndex, submissionId,
-                            currentChunkIndex + 1, base64Builder);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e("AssignmentDetails", "Error loading chunk " + currentChunkIndex + " for file " + fileName, e);
-                    // Continue with next chunk even if this one failed
-                    loadChunksSequentially(fileRef, chunkCount, fileName, files, fileDocs, fileIndex, submissionId,
-                            currentChunkIndex + 1, base64Builder);
-                });
-    }
-
-    // Adapter for displaying submitted files by decoding base64
+    // Adapter for displaying submitted files; each row fetches its content only when needed
     private static class SubmittedFilesAdapter extends RecyclerView.Adapter<SubmittedFilesAdapter.ViewHolder> {
 
-        private List<Map<String, String>> files;
+        private List<SubmittedFile> files;
         private android.content.Context context;
-
-        public SubmittedFilesAdapter(List<Map<String, String>> files, android.content.Context context) {
+        private final SubmissionReader reader;
+        private final ImagePreviewLoader previewLoader = new ImagePreviewLoader();
+        private final FileDownloader downloader;
+        // Downloads in progress by file ID, with their last reported percentage
+        private final java.util.Map<String, FileDownloader.Job> downloads = new java.util.HashMap<>();
+        private final java.util.Map<String, Integer> downloadProgress = new java.util.HashMap<>();
+        private RecyclerView recyclerView;
+        // Previews span the row and are capped by the image view's 400dp max height
+        private final int previewWidth;
+        private final int previewHeight;
+
+        public SubmittedFilesAdapter(List<SubmittedFile> files, SubmissionReader reader, FileDownloader downloader,
+                android.content.Context context) {
             this.files = files;
+            this.reader = reader;
+            this.downloader = downloader;
             this.context = context;
+            android.util.DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+            this.previewWidth = metrics.widthPixels;
+            this.previewHeight = Math.round(400 * metrics.density);
         }
 
         @Override
@@ -676,154 +597,281 @@ public class AssignmentDetailsActivity extends AppCompatActivity {
 
         @Override
         public void onBindViewHolder(ViewHolder holder, int position) {
-            Map<String, String> fileMap = files.get(position);
-            String fileName = fileMap.get("name");
-            String base64Data = fileMap.get("base64");
+            SubmittedFile file = files.get(position);
+            unbind(holder);
+            holder.file = file;
 
-            Log.d("SubmittedFilesAdapter", "Binding file: " + fileName + ", base64 length: " +
-                    (base64Data != null ? base64Data.length() : "null"));
-
-            holder.fileNameTextView.setText(fileName != null ? fileName : "Unknown File");
+            holder.fileNameTextView.setText(file.getName() != null ? file.getName() : "Unknown File");
+            String details = describe(file);
+            holder.fileDetailsTextView.setText(details);
+            holder.fileDetailsTextView.setVisibility(details.isEmpty() ? View.GONE : View.VISIBLE);
 
             // Reset views
             holder.fileImageView.setVisibility(View.GONE);
             holder.downloadButton.setVisibility(View.GONE);
+            holder.fileProgressBar.setVisibility(View.GONE);
+            holder.fileImageView.setOnClickListener(null);
+            holder.downloadButton.setOnClickListener(v -> download(holder, file));
+
+            if (!isImageFile(file)) {
+                // Content is only fetched when the student asks for it
+                showDownload(holder, file);
+                return;
+            }
 
-            // Try to decode and display if it's an image
-            if (base64Data != null && isImageFile(fileName)) {
-                Log.d("SubmittedFilesAdapter", "File is image, attempting to decode: " + fileName);
-                try {
-                    byte[] decodedBytes = Base64.decode(base64Data, Base64.DEFAULT);
-                    Log.d("SubmittedFilesAdapter", "Decoded bytes length: " + decodedBytes.length);
-
-                    // Check if the decoded bytes look like valid image data
-                    if (decodedBytes.length > 4) {
-                        String header = String.format("%02X%02X%02X%02X", decodedBytes[0], decodedBytes[1],
-                                decodedBytes[2], decodedBytes[3]);
-                        Log.d("SubmittedFilesAdapter", "Image header: " + header);
-                    }
+            holder.fileNameTextView.setCompoundDrawablesWithIntrinsicBounds(R.drawable.ic_library_books, 0, 0, 0);
+            holder.fileNameTextView.setCompoundDrawablePadding(8);
+            holder.itemView.setOnClickListener(null);
+            if (previewLoader.showCached(file.getFileId(), holder.fileImageView, previewWidth, previewHeight)) {
+                holder.fileImageView.setVisibility(View.VISIBLE);
+                return;
+            }
 
-                    // Try decoding with options first
-                    android.graphics.BitmapFactory.Options options = new android.graphics.BitmapFactory.Options();
-                    options.inJustDecodeBounds = true;
-                    android.graphics.BitmapFactory.decodeByteArray(decodedBytes, 0, decodedBytes.length, options);
+            if (file.getThumbnail() != null) {
+                // The thumbnail came with the file list; the image itself is only fetched when opened
+                showThumbnail(holder, file);
+                return;
+            }
+            loadImage(holder, file);
+        }
 
-                    Log.d("SubmittedFilesAdapter", "Image dimensions: " + options.outWidth + "x" + options.outHeight
-                            + ", format: " + options.outMimeType);
+        private void showThumbnail(ViewHolder holder, SubmittedFile file) {
+            showDownload(holder, file);
+            holder.fileImageView.setOnClickListener(v -> {
+                holder.fileImageView.setOnClickListener(null);
+                loadImage(holder, file);
+            });
+            previewLoader.load(file.getFileId() + "/thumbnail", file.getThumbnail(), holder.fileImageView,
+                    previewWidth, previewHeight, new ImagePreviewLoader.Callback() {
+                        @Override
+                        public void onPreview(android.graphics.Bitmap bitmap) {
+                            holder.fileImageView.setVisibility(View.VISIBLE);
+                        }
 
-                    if (options.outWidth > 0 && options.outHeight > 0) {
-                        // Reset options for actual decoding
-                        options.inJustDecodeBounds = false;
-                        options.inSampleSize = calculateInSampleSize(options, 800, 600); // Max 800x600 for display
-                        options.inPreferredConfig = android.graphics.Bitmap.Config.RGB_565;
+                        @Override
+                        public void onFailure() {
+                            // The download button is already offered
+                        }
+                    });
+        }
 
-                        android.graphics.Bitmap bitmap = android.graphics.BitmapFactory.decodeByteArray(decodedBytes, 0,
-                                decodedBytes.length, options);
+        // Fetches and shows the full image; recycling the row cancels it
+        private void loadImage(ViewHolder holder, SubmittedFile file) {
+            holder.contentCallback = new RowCallback(holder, file) {
+                @Override
+                public void onContent(byte[] content) {
+                    if (holder.file != file) {
+                        return;
+                    }
+                    holder.contentCallback = null;
+                    holder.fileProgressBar.setVisibility(View.GONE);
+                    showPreview(holder, file, content);
+                }
+            };
+            reader.loadContent(file, holder.contentCallback);
+        }
 
-                        if (bitmap != null) {
-                            Log.d("SubmittedFilesAdapter", "Bitmap created successfully, size: " + bitmap.getWidth()
-                                    + "x" + bitmap.getHeight());
-                            holder.fileImageView.setImageBitmap(bitmap);
+        private void showPreview(ViewHolder holder, SubmittedFile file, byte[] content) {
+            previewLoader.load(file.getFileId(), content, holder.fileImageView, previewWidth, previewHeight,
+                    new ImagePreviewLoader.Callback() {
+                        @Override
+                        public void onPreview(android.graphics.Bitmap bitmap) {
                             holder.fileImageView.setVisibility(View.VISIBLE);
-                            holder.fileNameTextView.setCompoundDrawablesWithIntrinsicBounds(R.drawable.ic_library_books,
-                                    0,
-                                    0, 0);
-                            holder.fileNameTextView.setCompoundDrawablePadding(8);
-                        } else {
-                            Log.w("SubmittedFilesAdapter", "Bitmap is null after decode, falling back to download");
-                            holder.downloadButton.setVisibility(View.VISIBLE);
-                            holder.fileNameTextView.setCompoundDrawablesWithIntrinsicBounds(R.drawable.ic_file_download,
-                                    0,
-                                    0, 0);
-                            holder.fileNameTextView.setCompoundDrawablePadding(8);
                         }
-                    } else {
-                        Log.w("SubmittedFilesAdapter", "Invalid image dimensions, falling back to download");
-                        holder.downloadButton.setVisibility(View.VISIBLE);
-                        holder.fileNameTextView.setCompoundDrawablesWithIntrinsicBounds(R.drawable.ic_file_download, 0,
-                                0, 0);
-                        holder.fileNameTextView.setCompoundDrawablePadding(8);
+
+                        @Override
+                        public void onFailure() {
+                            Log.w("SubmittedFilesAdapter", "Could not decode " + file.getName()
+                                    + ", falling back to download");
+                            showDownload(holder, file);
+                        }
+                    });
+        }
+
+        private void showDownload(ViewHolder holder, SubmittedFile file) {
+            holder.downloadButton.setVisibility(View.VISIBLE);
+            showDownloadState(holder, file);
+            holder.fileNameTextView.setCompoundDrawablesWithIntrinsicBounds(R.drawable.ic_file_download, 0, 0, 0);
+            holder.fileNameTextView.setCompoundDrawablePadding(8);
+            // Make the whole item clickable for download
+            holder.itemView.setOnClickListener(v -> download(holder, file));
+        }
+
+        private void showUnavailable(ViewHolder holder, SubmittedFile file, List<Integer> missingChunks) {
+            // Some chunks never arrived; offering the broken file would only corrupt the download
+            String reason = missingChunks.isEmpty() ? "could not be read"
+                    : "missing " + missingChunks.size() + " part(s)";
+            holder.fileNameTextView.setText((file.getName() != null ? file.getName() : "Unknown File")
+                    + " (" + reason + ")");
+            holder.fileNameTextView.setCompoundDrawablesWithIntrinsicBounds(0, 0, 0, 0);
+            holder.fileProgressBar.setVisibility(View.GONE);
+            holder.fileImageView.setVisibility(View.GONE);
+            holder.downloadButton.setVisibility(View.GONE);
+            holder.itemView.setOnClickListener(null);
+        }
+
+        private void showDownloadState(ViewHolder holder, SubmittedFile file) {
+            Integer percent = downloadProgress.get(file.getFileId());
+            if (percent == null) {
+                holder.downloadButton.setText("Download");
+                holder.fileProgressBar.setVisibility(View.GONE);
+                return;
+            }
+            holder.downloadButton.setText("Cancel");
+            holder.fileProgressBar.setVisibility(View.VISIBLE);
+            holder.fileProgressBar.setIndeterminate(percent < 0);
+            if (percent >= 0) {
+                holder.fileProgressBar.setMax(100);
+                holder.fileProgressBar.setProgress(percent);
+            }
+        }
+
+        // Starts saving the file, or cancels the download already running for it
+        private void download(ViewHolder holder, SubmittedFile file) {
+            FileDownloader.Job running = downloads.get(file.getFileId());
+            if (running != null) {
+                running.cancel();
+                return;
+            }
+            if (file.getName() == null) {
+                return;
+            }
+
+            String fileId = file.getFileId();
+            downloadProgress.put(fileId, -1);
+            // Not tied to the row: the download finishes even if the row scrolls away
+            downloads.put(fileId, downloader.download(file, new FileDownloader.Listener() {
+                @Override
+                public void onProgress(int percent) {
+                    if (downloads.containsKey(fileId)) {
+                        downloadProgress.put(fileId, percent);
+                        refreshDownloadState(file);
                     }
-                } catch (Exception e) {
-                    Log.e("SubmittedFilesAdapter", "Error decoding image: " + e.getMessage(), e);
-                    holder.downloadButton.setVisibility(View.VISIBLE);
-                    holder.fileNameTextView.setCompoundDrawablesWithIntrinsicBounds(R.drawable.ic_file_download, 0, 0,
-                            0);
-                    holder.fileNameTextView.setCompoundDrawablePadding(8);
                 }
-            } else {
-                Log.d("SubmittedFilesAdapter", "File is not image or base64 is null: " + fileName +
-                        ", isImage: " + isImageFile(fileName) + ", base64 null: " + (base64Data == null));
-                // For non-image files, show download button
-                holder.downloadButton.setVisibility(View.VISIBLE);
-                holder.fileNameTextView.setCompoundDrawablesWithIntrinsicBounds(R.drawable.ic_file_download, 0, 0, 0);
-                holder.fileNameTextView.setCompoundDrawablePadding(8);
-            }
 
-            // Set click listener for download
-            final String finalBase64Data = base64Data;
-            final String finalFileName = fileName;
-            holder.downloadButton.setOnClickListener(v -> {
-                if (finalBase64Data != null && finalFileName != null) {
-                    downloadFile(finalFileName, finalBase64Data);
+                @Override
+                public void onSaved(Uri uri) {
+                    finishDownload(file);
+                    Toast.makeText(context, "File saved to Downloads: " + file.getName(), Toast.LENGTH_SHORT).show();
                 }
-            });
 
-            // Make the whole item clickable for download if no image
-            if (holder.fileImageView.getVisibility() != View.VISIBLE) {
-                holder.itemView.setOnClickListener(v -> {
-                    if (finalBase64Data != null && finalFileName != null) {
-                        downloadFile(finalFileName, finalBase64Data);
-                    }
-                });
-            } else {
-                holder.itemView.setOnClickListener(null);
-            }
+                @Override
+                public void onCancelled() {
+                    finishDownload(file);
+                }
+
+                @Override
+                public void onFailure(String message, Exception e) {
+                    finishDownload(file);
+                    Toast.makeText(context, message + ": " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                }
+            }));
+            showDownloadState(holder, file);
         }
 
-        private boolean isImageFile(String fileName) {
-            if (fileName == null)
-                return false;
-            String lowerName = fileName.toLowerCase();
-            return lowerName.endsWith(".jpg") || lowerName.endsWith(".jpeg") ||
-                    lowerName.endsWith(".png") || lowerName.endsWith(".gif") ||
-                    lowerName.endsWith(".bmp") || lowerName.endsWith(".webp");
+        private void finishDownload(SubmittedFile file) {
+            downloads.remove(file.getFileId());
+            downloadProgress.remove(file.getFileId());
+            refreshDownloadState(file);
+        }
+
+        // Updates whichever row currently shows the file
+        private void refreshDownloadState(SubmittedFile file) {
+            if (recyclerView == null) {
+                return;
+            }
+            RecyclerView.ViewHolder holder = recyclerView.findViewHolderForAdapterPosition(files.indexOf(file));
+            if (holder instanceof ViewHolder && ((ViewHolder) holder).file == file) {
+                showDownloadState((ViewHolder) holder, file);
+            }
         }
 
-        private int calculateInSampleSize(android.graphics.BitmapFactory.Options options, int reqWidth, int reqHeight) {
-            final int height = options.outHeight;
-            final int width = options.outWidth;
-            int inSampleSize = 1;
+        // Updates its row while the row still shows the file it was started for
+        private abstract class RowCallback implements SubmissionReader.ContentCallback {
+            final ViewHolder holder;
+            final SubmittedFile file;
 
-            if (height > reqHeight || width > reqWidth) {
-                final int halfHeight = height / 2;
-                final int halfWidth = width / 2;
+            RowCallback(ViewHolder holder, SubmittedFile file) {
+                this.holder = holder;
+                this.file = file;
+            }
+
+            @Override
+            public void onProgress(long loadedBytes, long totalBytes) {
+                if (holder.file != file) {
+                    return;
+                }
+                holder.fileProgressBar.setVisibility(View.VISIBLE);
+                holder.fileProgressBar.setIndeterminate(totalBytes <= 0);
+                if (totalBytes > 0) {
+                    holder.fileProgressBar.setMax(100);
+                    holder.fileProgressBar.setProgress((int) (loadedBytes * 100 / totalBytes));
+                }
+            }
 
-                while ((halfHeight / inSampleSize) >= reqHeight && (halfWidth / inSampleSize) >= reqWidth) {
-                    inSampleSize *= 2;
+            @Override
+            public void onUnavailable(List<Integer> missingChunks) {
+                if (holder.file == file) {
+                    holder.contentCallback = null;
+                    showUnavailable(holder, file, missingChunks);
                 }
             }
-            return inSampleSize;
         }
 
-        private void downloadFile(String fileName, String base64Data) {
-            try {
-                byte[] decodedBytes = Base64.decode(base64Data, Base64.DEFAULT);
+        private void unbind(ViewHolder holder) {
+            if (holder.contentCallback != null) {
+                reader.cancel(holder.file, holder.contentCallback);
+                holder.contentCallback = null;
+            }
+            holder.file = null;
+            previewLoader.release(holder.fileImageView);
+        }
+
+        @Override
+        public void onViewRecycled(ViewHolder holder) {
+            unbind(holder);
+        }
 
-                // Save to downloads directory
-                java.io.File downloadsDir = android.os.Environment
-                        .getExternalStoragePublicDirectory(android.os.Environment.DIRECTORY_DOWNLOADS);
-                java.io.File file = new java.io.File(downloadsDir, fileName);
+        @Override
+        public void onAttachedToRecyclerView(RecyclerView recyclerView) {
+            this.recyclerView = recyclerView;
+        }
+
+        @Override
+        public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+            this.recyclerView = null;
+            previewLoader.clear();
+            // Partial entries are removed from Downloads
+            for (FileDownloader.Job job : downloads.values()) {
+                job.cancel();
+            }
+        }
 
-                java.io.FileOutputStream fos = new java.io.FileOutputStream(file);
-                fos.write(decodedBytes);
-                fos.close();
+        private String describe(SubmittedFile file) {
+            StringBuilder details = new StringBuilder();
+            if (file.getContentType() != null) {
+                details.append(file.getContentType());
+            }
+            if (file.getSize() >= 0) {
+                if (details.length() > 0) {
+                    details.append(" \u00b7 ");
+                }
+                details.append(android.text.format.Formatter.formatShortFileSize(context, file.getSize()));
+            }
+            return details.toString();
+        }
 
-                Toast.makeText(context, "File saved to Downloads: " + fileName, Toast.LENGTH_SHORT).show();
-            } catch (Exception e) {
-                Toast.makeText(context, "Error saving file: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                Log.e("SubmittedFilesAdapter", "Error saving file", e);
+        private boolean isImageFile(SubmittedFile file) {
+            if (file.getContentType() != null && file.getContentType().startsWith("image/")) {
+                return true;
             }
+            String fileName = file.getName();
+            if (fileName == null)
+                return false;
+            String lowerName = fileName.toLowerCase();
+            return lowerName.endsWith(".jpg") || lowerName.endsWith(".jpeg") ||
+                    lowerName.endsWith(".png") || lowerName.endsWith(".gif") ||
+                    lowerName.endsWith(".bmp") || lowerName.endsWith(".webp");
         }
 
         @Override
@@ -833,12 +881,19 @@ public class AssignmentDetailsActivity extends AppCompatActivity {
 
         static class ViewHolder extends RecyclerView.ViewHolder {
             TextView fileNameTextView;
+            TextView fileDetailsTextView;
+            android.widget.ProgressBar fileProgressBar;
             ImageView fileImageView;
             com.google.android.material.button.MaterialButton downloadButton;
+            // File currently bound and the content load started for it, if any
+            SubmittedFile file;
+            SubmissionReader.ContentCallback contentCallback;
 
             ViewHolder(android.view.View itemView) {
                 super(itemView);
                 fileNameTextView = itemView.findViewById(R.id.fileNameTextView);
+                fileDetailsTextView = itemView.findViewById(R.id.fileDetailsTextView);
+                fileProgressBar = itemView.findViewById(R.id.fileProgressBar);
                 fileImageView = itemView.findViewById(R.id.fileImageView);
                 downloadButton = itemView.findViewById(R.id.downloadButton);
             }
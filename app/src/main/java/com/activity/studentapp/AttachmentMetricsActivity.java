@@ -0,0 +1,92 @@
+package com.activity.studentapp;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.ApplicationInfo;
+import android.os.Bundle;
+import android.util.Log;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.activity.studentapp.attachment.TransferMetrics;
+import com.activity.studentapp.data.ListenerRegistry;
+
+import org.json.JSONException;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Debug screen listing the attachment pipeline metrics of recent submissions,
+ * with an export of the JSON report to the app's external files directory.
+ * Only reachable in debuggable builds, by long-pressing the profile toolbar.
+ */
+public class AttachmentMetricsActivity extends AppCompatActivity {
+    private static final String TAG = "AttachmentMetrics";
+
+    private TextView metricsTextView;
+
+    public static boolean isAvailable(Context context) {
+        return (context.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+    }
+
+    public static void start(Context context) {
+        context.startActivity(new Intent(context, AttachmentMetricsActivity.class));
+    }
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        if (!isAvailable(this)) {
+            finish();
+            return;
+        }
+        setContentView(R.layout.activity_attachment_metrics);
+
+        androidx.appcompat.widget.Toolbar toolbar = findViewById(R.id.toolbar);
+        setSupportActionBar(toolbar);
+        getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+
+        metricsTextView = findViewById(R.id.metricsTextView);
+        findViewById(R.id.refreshMetricsButton).setOnClickListener(v -> showReport());
+        findViewById(R.id.exportMetricsButton).setOnClickListener(v -> exportReport());
+        findViewById(R.id.resetMetricsButton).setOnClickListener(v -> {
+            TransferMetrics.getInstance().reset();
+            showReport();
+        });
+        showReport();
+    }
+
+    @Override
+    public boolean onSupportNavigateUp() {
+        finish();
+        return true;
+    }
+
+    private void showReport() {
+        try {
+            // Live snapshot listeners per screen, to spot leaks while profiling
+            metricsTextView.setText("Live listeners: " + ListenerRegistry.getLiveCounts() + "\n\n"
+                    + TransferMetrics.getInstance().toJson().toString(2));
+        } catch (JSONException e) {
+            Log.e(TAG, "Could not build the report", e);
+            metricsTextView.setText("Could not build the report: " + e.getMessage());
+        }
+    }
+
+    private void exportReport() {
+        File directory = getExternalFilesDir(null);
+        if (directory == null) {
+            directory = getFilesDir();
+        }
+        try {
+            File report = TransferMetrics.getInstance().export(directory);
+            Toast.makeText(this, "Report saved to " + report.getPath(), Toast.LENGTH_LONG).show();
+        } catch (IOException e) {
+            Log.e(TAG, "Could not export the report", e);
+            Toast.makeText(this, "Could not export the report", Toast.LENGTH_SHORT).show();
+        }
+    }
+}
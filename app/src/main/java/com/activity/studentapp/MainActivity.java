@@ -16,20 +16,30 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.activity.studentapp.adapter.SubjectAdapter;
+import com.activity.studentapp.data.FirestoreListenerHub;
+import com.activity.studentapp.data.ListenerRegistry;
+import com.activity.studentapp.data.SubjectScheduleJoin;
+import com.activity.studentapp.model.ScheduleMapper;
 import com.activity.studentapp.model.Subject;
+import com.activity.studentapp.timetable.ClassSession;
+import com.activity.studentapp.timetable.CurrentClassResolver;
+import com.activity.studentapp.timetable.TimeRange;
+import com.activity.studentapp.timetable.Timetable;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
 
 public class MainActivity extends AppCompatActivity {
     private static final String TAG = "MainActivity";
+    private static final ScheduleMapper SCHEDULE_MAPPER = new ScheduleMapper();
 
     private FirebaseFirestore db;
+    private FirestoreListenerHub listenerHub;
     private FirebaseAuth mAuth;
     private SharedPreferences sharedPreferences;
     private String studentId;
@@ -40,10 +50,16 @@ public class MainActivity extends AppCompatActivity {
     private TextView noSubjectsText;
     private TextView headerTitle;
     private ImageButton menuButton;
+    private View todaySection;
+    private TextView tvCurrentClass;
+    private TextView tvNextClass;
+    private CurrentClassResolver currentClassResolver;
     private SubjectAdapter subjectAdapter;
-    private Map<String, String> subjectIdToInstructor;
-    private Map<String, String> subjectIdToSchedule;
-    private List<Subject> currentSubjects;
+    private SubjectScheduleJoin subjectJoin;
+    private ListenerRegistry listeners;
+    private String scheduleSectionName;
+    private String subjectsGradeLevel;
+    private String subjectsSection;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -52,12 +68,13 @@ public class MainActivity extends AppCompatActivity {
 
         // Initialize Firebase instances
         db = FirebaseFirestore.getInstance();
+        listenerHub = FirestoreListenerHub.getInstance();
+        listeners = ListenerRegistry.of(this);
         mAuth = FirebaseAuth.getInstance();
         sharedPreferences = getSharedPreferences("StudentAppPrefs", MODE_PRIVATE);
         studentId = sharedPreferences.getString("studentId", null);
         studentDocId = sharedPreferences.getString("studentDocId", null);
-        subjectIdToInstructor = new HashMap<>();
-        subjectIdToSchedule = new HashMap<>();
+        subjectJoin = new SubjectScheduleJoin(this::showJoinedSubjects);
 
         // Check if coming from login
         boolean fromLogin = getIntent().getBooleanExtra("fromLogin", false);
@@ -86,6 +103,41 @@ public class MainActivity extends AppCompatActivity {
         noSubjectsText = findViewById(R.id.noSubjectsText);
         headerTitle = findViewById(R.id.headerTitle);
         menuButton = findViewById(R.id.menuButton);
+        todaySection = findViewById(R.id.todaySection);
+        tvCurrentClass = findViewById(R.id.tvCurrentClass);
+        tvNextClass = findViewById(R.id.tvNextClass);
+        currentClassResolver = new CurrentClassResolver(this::showCurrentClass);
+    }
+
+    private void showCurrentClass(ClassSession current, ClassSession next) {
+        todaySection.setVisibility(View.VISIBLE);
+        if (current != null) {
+            tvCurrentClass.setText("Now: " + current.getSchedule().getSubjectName() + " (" + current.getTime() + ")");
+        } else {
+            tvCurrentClass.setText("No class right now");
+        }
+        if (next != null) {
+            tvNextClass.setText("Next: " + next.getSchedule().getSubjectName() + " at "
+                    + TimeRange.format(next.getStart()));
+        } else {
+            tvNextClass.setText("No more classes today");
+        }
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        if (currentClassResolver != null) {
+            currentClassResolver.start();
+        }
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        if (currentClassResolver != null) {
+            currentClassResolver.stop();
+        }
     }
 
     private void setupRecyclerView() {
@@ -129,11 +181,11 @@ public class MainActivity extends AppCompatActivity {
         boolean isConnected = activeNetwork != null && activeNetwork.isConnectedOrConnecting();
         Log.d(TAG, "Network connected: " + isConnected);
 
-        // First, get the student's section using snapshot listener for offline support
+        // First, get the student's section using the shared student listener
         Log.d(TAG, "Attempting to fetch student document for ID: " + studentDocId);
-        db.collection("students")
-                .document(studentDocId != null ? studentDocId : studentId)
-                .addSnapshotListener((documentSnapshot, e) -> {
+        String studentKey = studentDocId != null ? studentDocId : studentId;
+        listeners.add(FirestoreListenerHub.studentKey(studentKey), () -> listenerHub.listenToStudent(studentKey,
+                (documentSnapshot, e) -> {
                     Log.d(TAG, "Student listener called");
                     subjectsProgressBar.setVisibility(View.GONE);
                     if (e != null) {
@@ -161,118 +213,132 @@ public class MainActivity extends AppCompatActivity {
                     } else {
                         showNoSubjectsView("Student record not found.");
                     }
-                });
+                }));
     }
 
-    private void updateSubjectsWithScheduleInfo() {
-        if (currentSubjects != null) {
-            for (Subject subject : currentSubjects) {
-                subject.setSchedule(subjectIdToSchedule.get(subject.getId()));
-                subject.setInstructor(subjectIdToInstructor.get(subject.getId()));
-            }
-            subjectAdapter.updateSubjects(currentSubjects);
-            Log.d(TAG, "Updated subjects with schedule info");
+    private void showJoinedSubjects(List<Subject> subjects) {
+        subjectsProgressBar.setVisibility(View.GONE);
+        if (!subjects.isEmpty()) {
+            subjectAdapter.updateSubjects(subjects);
+            subjectsRecyclerView.setVisibility(View.VISIBLE);
+            noSubjectsText.setVisibility(View.GONE);
+            Log.d(TAG, "Displaying " + subjects.size() + " subjects (real-time update)");
+        } else {
+            Log.d(TAG, "No subjects found for grade level: " + subjectsGradeLevel);
+            showNoSubjectsView("No subjects found for your grade level.");
         }
     }
 
     private void fetchSubjectsByGradeLevel(String gradeLevel, String section) {
         Log.d(TAG, "Fetching subjects for gradeLevel: " + gradeLevel + ", section: " + section);
+
+        // First, load schedules for the section with real-time updates (shared with other screens)
+        String fullSectionName = gradeLevel + " - " + section;
+        if (scheduleSectionName != null && !fullSectionName.equals(scheduleSectionName)) {
+            listeners.remove(FirestoreListenerHub.sectionScheduleKey(scheduleSectionName));
+        }
+        scheduleSectionName = fullSectionName;
+        String sectionScheduleKey = FirestoreListenerHub.sectionScheduleKey(fullSectionName);
+        // A no-op when the section is unchanged, so student snapshots don't stack listeners
+        listeners.add(sectionScheduleKey,
+                () -> listenerHub.listenToSectionSchedule(fullSectionName, (querySnapshot, e) -> {
+            if (e != null) {
+                Log.e(TAG, "Error listening to schedules: ", e);
+                // The hub has dropped the failed stream; forget it so the next student snapshot re-attaches
+                listeners.remove(sectionScheduleKey);
+                scheduleSectionName = null;
+                return;
+            }
+            if (querySnapshot != null) {
+                listeners.parse(sectionScheduleKey, querySnapshot,
+                        snapshot -> Timetable.build(SCHEDULE_MAPPER.mapAll(snapshot)),
+                        (timetable, error) -> {
+                            if (error != null) {
+                                Log.e(TAG, "Error parsing schedules", error);
+                                return;
+                            }
+                            Log.d(TAG, "Loaded " + timetable.getSchedules().size() + " schedules (real-time update)");
+                            subjectJoin.setSchedules(timetable.getSchedules());
+                            // The same snapshot feeds the current class card, so it needs no reads of its own
+                            currentClassResolver.setTimetable(timetable);
+                        });
+            }
+        }));
+
+        // Student snapshots that don't change the grade level or section keep the subjects stream as is
+        String subjectsKey = FirestoreListenerHub.subjectsKey(gradeLevel);
+        if (subjectsGradeLevel != null
+                && (!gradeLevel.equals(subjectsGradeLevel) || !Objects.equals(section, subjectsSection))) {
+            // The rows carry the section as their room, so a new section needs fresh rows too
+            listeners.remove(FirestoreListenerHub.subjectsKey(subjectsGradeLevel));
+        }
+        if (listeners.contains(subjectsKey)) {
+            return;
+        }
         // Show loading state
         subjectsProgressBar.setVisibility(View.VISIBLE);
         noSubjectsText.setVisibility(View.GONE);
         subjectsRecyclerView.setVisibility(View.GONE);
 
-        // First, load schedules for the section with real-time updates
-        String fullSectionName = gradeLevel + " - " + section;
-        db.collection("class_schedule")
-                .whereEqualTo("sectionName", fullSectionName)
-                .addSnapshotListener((querySnapshot, e) -> {
-                    if (e != null) {
-                        Log.e(TAG, "Error listening to schedules: ", e);
-                        return;
-                    }
-                    subjectIdToInstructor.clear();
-                    subjectIdToSchedule.clear();
-                    if (querySnapshot != null) {
-                        for (QueryDocumentSnapshot doc : querySnapshot) {
-                            String subjectId = doc.getString("subjectId");
-                            String instructorName = doc.getString("instructorName");
-                            String timeFrame = doc.getString("timeFrame");
-                            if (subjectId != null) {
-                                subjectIdToInstructor.put(subjectId, instructorName);
-                                subjectIdToSchedule.put(subjectId, timeFrame);
-                            }
-                        }
-                        Log.d(TAG, "Loaded schedules for " + querySnapshot.size() + " subjects (real-time update)");
-                        updateSubjectsWithScheduleInfo();
-                    }
-                });
-
-        // Now fetch subjects with real-time updates
-        db.collection("subjects")
-                .whereEqualTo("gradeLevel", gradeLevel)
-                .addSnapshotListener((querySnapshot, e) -> {
-                    subjectsProgressBar.setVisibility(View.GONE);
-                    if (e != null) {
-                        Log.e(TAG, "Error listening to subjects: ", e);
-                        showNoSubjectsView("Error loading subjects. Please try again.");
-                        return;
-                    }
+        subjectsGradeLevel = gradeLevel;
+        subjectsSection = section;
+        listeners.add(subjectsKey, () -> listenerHub.listenToSubjects(gradeLevel, (querySnapshot, e) -> {
+            if (e != null) {
+                subjectsProgressBar.setVisibility(View.GONE);
+                Log.e(TAG, "Error listening to subjects: ", e);
+                listeners.remove(subjectsKey);
+                subjectsGradeLevel = null;
+                subjectsSection = null;
+                showNoSubjectsView("Error loading subjects. Please try again.");
+                return;
+            }
 
-                    if (querySnapshot != null) {
-                        Log.d(TAG, "Subjects snapshot received. Size: " + querySnapshot.size());
-                        List<Subject> subjects = new ArrayList<>();
-                        for (QueryDocumentSnapshot document : querySnapshot) {
-                            try {
-                                Log.d(TAG, "Processing document: " + document.getId());
-                                Log.d(TAG, "Document data: " + document.getData());
-                                Subject subject = new Subject();
-                                subject.setId(document.getId());
-                                subject.setCode(document.getId()); // Use document ID as code
-                                subject.setName(document.getString("subjectName"));
-                                subject.setDescription(document.getString("description"));
-                                subject.setInstructor(subjectIdToInstructor.get(document.getId()));
-                                subject.setSchedule(subjectIdToSchedule.get(document.getId()));
-                                subject.setRoom(section);
-
-                                // Log the subject details for debugging
-                                Log.d(TAG, "Subject loaded: " + subject.getName() +
-                                        " (Code: " + subject.getCode() +
-                                        ", Instructor: " + subject.getInstructor() +
-                                        ", Room: " + subject.getRoom() + ")");
-
-                                subjects.add(subject);
-                            } catch (Exception ex) {
-                                Log.e(TAG, "Error parsing subject: " + ex.getMessage());
+            if (querySnapshot != null) {
+                Log.d(TAG, "Subjects snapshot received. Size: " + querySnapshot.size());
+                listeners.parse(subjectsKey, querySnapshot, snapshot -> parseSubjects(snapshot, section),
+                        (subjects, error) -> {
+                            if (error != null) {
+                                subjectsProgressBar.setVisibility(View.GONE);
+                                Log.e(TAG, "Error parsing subjects", error);
+                                showNoSubjectsView("Error loading subjects. Please try again.");
+                                return;
                             }
-                        }
-
-                        currentSubjects = new ArrayList<>(subjects);
-                        updateSubjectsWithScheduleInfo();
+                            // Instructor and schedule are filled in by the join
+                            subjectJoin.setSubjects(subjects);
+                        });
+            } else {
+                subjectsProgressBar.setVisibility(View.GONE);
+                showNoSubjectsView("No subjects data available.");
+            }
+        }));
+    }
 
-                        if (!subjects.isEmpty()) {
-                            // Update the adapter with the new list of subjects
-                            subjectAdapter.updateSubjects(subjects);
-                            subjectsRecyclerView.setVisibility(View.VISIBLE);
-                            noSubjectsText.setVisibility(View.GONE);
-                            Log.d(TAG, "Displaying " + subjects.size() + " subjects (real-time update)");
-                        } else {
-                            Log.d(TAG, "No subjects found for grade level: " + gradeLevel);
-                            showNoSubjectsView("No subjects found for your grade level.");
-                        }
-                    } else {
-                        showNoSubjectsView("No subjects data available.");
-                    }
-                });
+    // Runs on FirestoreExecutors.BACKGROUND
+    private static List<Subject> parseSubjects(QuerySnapshot querySnapshot, String section) {
+        List<Subject> subjects = new ArrayList<>(querySnapshot.size());
+        for (QueryDocumentSnapshot document : querySnapshot) {
+            try {
+                Subject subject = new Subject();
+                subject.setId(document.getId());
+                subject.setCode(document.getId()); // Use document ID as code
+                subject.setName(document.getString("subjectName"));
+                subject.setDescription(document.getString("description"));
+                subject.setRoom(section);
+                subjects.add(subject);
+            } catch (Exception ex) {
+                Log.e(TAG, "Error parsing subject: " + ex.getMessage());
+            }
+        }
+        return subjects;
     }
 
     private void fetchSubjectsDetails(List<String> subjectIds, String section) {
         Log.d(TAG, "Fetching subject details for IDs: " + subjectIds + ", section: " + section);
         // Fetch subjects that match both the IDs and the section
-        db.collection("subjects")
+        listeners.listen("subjects?id=" + subjectIds + "&section=" + section, db.collection("subjects")
                 .whereIn("id", subjectIds)
-                .whereEqualTo("section", section)
-                .addSnapshotListener((querySnapshot, e) -> {
+                .whereEqualTo("section", section),
+                (querySnapshot, e) -> {
                     if (e != null) {
                         Log.e(TAG, "Error getting subjects: ", e);
                         showNoSubjectsView("Error loading subject details.");
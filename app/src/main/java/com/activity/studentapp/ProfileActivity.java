@@ -19,16 +19,20 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 
+import com.activity.studentapp.data.FirestoreListenerHub;
+import com.activity.studentapp.data.ListenerRegistry;
 import com.activity.studentapp.databinding.ActivityProfileBinding;
 import com.activity.studentapp.model.Student;
+import com.activity.studentapp.model.StudentMapper;
 import com.google.firebase.firestore.FirebaseFirestore;
 
 public class ProfileActivity extends AppCompatActivity {
+    private static final StudentMapper STUDENT_MAPPER = new StudentMapper();
 
     private ActivityProfileBinding binding;
     private Student student;
     private FirebaseFirestore db;
-    private com.google.firebase.firestore.ListenerRegistration studentListener;
+    private FirestoreListenerHub listenerHub;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -38,6 +42,7 @@ public class ProfileActivity extends AppCompatActivity {
 
         // Initialize Firestore
         db = FirebaseFirestore.getInstance();
+        listenerHub = FirestoreListenerHub.getInstance();
 
         // Get student data from shared preferences
         SharedPreferences sharedPreferences = getSharedPreferences("StudentAppPrefs", MODE_PRIVATE);
@@ -50,25 +55,33 @@ public class ProfileActivity extends AppCompatActivity {
         }
 
         setupToolbar();
-        loadStudentData(studentDocId);
         setupClickListeners();
 
-        // Set up real-time listener for student data updates
-        studentListener = db.collection("students").document(studentDocId)
-                .addSnapshotListener((documentSnapshot, e) -> {
-                    if (e != null) {
-                        Log.e("ProfileActivity", "Error listening to student data: " + e.getMessage());
-                        return;
-                    }
-                    if (documentSnapshot != null && documentSnapshot.exists()) {
-                        Student updatedStudent = documentSnapshot.toObject(Student.class);
-                        if (updatedStudent != null) {
-                            updatedStudent.setId(documentSnapshot.getId());
-                            this.student = updatedStudent;
-                            runOnUiThread(() -> setupStudentDetails());
-                        }
-                    }
-                });
+        // Shared real-time listener for student data; reuses the dashboard's stream when it is live
+        ListenerRegistry.of(this).add(FirestoreListenerHub.studentKey(studentDocId),
+                () -> listenerHub.listenToStudent(studentDocId, (documentSnapshot, e) -> {
+            if (e != null) {
+                Log.e("ProfileActivity", "Error listening to student data: " + e.getMessage());
+                if (student == null) {
+                    Toast.makeText(this, "Error loading profile: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                    finish();
+                }
+                return;
+            }
+            if (documentSnapshot != null && documentSnapshot.exists()) {
+                Student updatedStudent = STUDENT_MAPPER.map(documentSnapshot);
+                if (updatedStudent != null) {
+                    this.student = updatedStudent;
+                    setupStudentDetails();
+                } else if (student == null) {
+                    Toast.makeText(this, "Failed to load student data", Toast.LENGTH_SHORT).show();
+                    finish();
+                }
+            } else if (student == null) {
+                Toast.makeText(this, "Student data not found", Toast.LENGTH_SHORT).show();
+                finish();
+            }
+        }));
     }
 
     private void setupToolbar() {
@@ -77,32 +90,12 @@ public class ProfileActivity extends AppCompatActivity {
             getSupportActionBar().setDisplayHomeAsUpEnabled(true);
             getSupportActionBar().setTitle("My Profile");
         }
-    }
-
-    private void loadStudentData(String studentDocId) {
-        db.collection("students")
-                .document(studentDocId)
-                .get()
-                .addOnSuccessListener(documentSnapshot -> {
-                    if (documentSnapshot.exists()) {
-                        student = documentSnapshot.toObject(Student.class);
-                        if (student != null) {
-                            student.setId(documentSnapshot.getId());
-                            setupStudentDetails();
-                        } else {
-                            Toast.makeText(this, "Failed to load student data", Toast.LENGTH_SHORT).show();
-                            finish();
-                        }
-                    } else {
-                        Toast.makeText(this, "Student data not found", Toast.LENGTH_SHORT).show();
-                        finish();
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    Log.e("ProfileActivity", "Error loading student data: " + e.getMessage());
-                    Toast.makeText(this, "Error loading profile: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                    finish();
-                });
+        if (AttachmentMetricsActivity.isAvailable(this)) {
+            binding.toolbar.setOnLongClickListener(v -> {
+                AttachmentMetricsActivity.start(this);
+                return true;
+            });
+        }
     }
 
     private void setupStudentDetails() {
@@ -235,53 +228,52 @@ public class ProfileActivity extends AppCompatActivity {
         // Get student section info to fetch enrolled subjects
         String sectionName = student.getGradeLevel() + " - " + student.getSection();
 
-        // Fetch subjects from class_schedule
-        db.collection("class_schedule")
-                .whereEqualTo("sectionName", sectionName)
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    java.util.Set<String> subjectIds = new java.util.HashSet<>();
-                    for (com.google.firebase.firestore.QueryDocumentSnapshot doc : querySnapshot) {
-                        String subjectId = doc.getString("subjectId");
-                        if (subjectId != null) {
-                            subjectIds.add(subjectId);
+        // Fetch subjects from class_schedule; served from the shared stream when the dashboard holds it
+        listenerHub.getSectionScheduleOnce(sectionName, (querySnapshot, e) -> {
+            if (e != null || querySnapshot == null) {
+                Toast.makeText(this, "Failed to fetch subjects: "
+                        + (e != null ? e.getMessage() : "no data"), Toast.LENGTH_SHORT).show();
+                generatePdf(null);
+                return;
+            }
+            java.util.Set<String> subjectIds = new java.util.HashSet<>();
+            for (com.google.firebase.firestore.QueryDocumentSnapshot doc : querySnapshot) {
+                String subjectId = doc.getString("subjectId");
+                if (subjectId != null) {
+                    subjectIds.add(subjectId);
+                }
+            }
+            if (subjectIds.isEmpty()) {
+                generatePdf(new java.util.ArrayList<>());
+                return;
+            }
+            // Fetch subject names
+            db.collection("subjects")
+                    .whereIn("__name__", new java.util.ArrayList<>(subjectIds))
+                    .get()
+                    .addOnSuccessListener(subjectsSnapshot -> {
+                        java.util.Map<String, String> subjectMap = new java.util.HashMap<>();
+                        for (com.google.firebase.firestore.QueryDocumentSnapshot doc : subjectsSnapshot) {
+                            String name = doc.getString("subjectName");
+                            if (name != null) {
+                                subjectMap.put(doc.getId(), name);
+                            }
                         }
-                    }
-                    if (subjectIds.isEmpty()) {
+                        java.util.List<String> subjects = new java.util.ArrayList<>();
+                        for (String id : subjectIds) {
+                            String name = subjectMap.get(id);
+                            if (name != null) {
+                                subjects.add(name);
+                            }
+                        }
+                        generatePdf(subjects);
+                    })
+                    .addOnFailureListener(ex -> {
+                        Toast.makeText(this, "Failed to fetch subject names: " + ex.getMessage(),
+                                Toast.LENGTH_SHORT).show();
                         generatePdf(new java.util.ArrayList<>());
-                        return;
-                    }
-                    // Fetch subject names
-                    db.collection("subjects")
-                            .whereIn("__name__", new java.util.ArrayList<>(subjectIds))
-                            .get()
-                            .addOnSuccessListener(subjectsSnapshot -> {
-                                java.util.Map<String, String> subjectMap = new java.util.HashMap<>();
-                                for (com.google.firebase.firestore.QueryDocumentSnapshot doc : subjectsSnapshot) {
-                                    String name = doc.getString("subjectName");
-                                    if (name != null) {
-                                        subjectMap.put(doc.getId(), name);
-                                    }
-                                }
-                                java.util.List<String> subjects = new java.util.ArrayList<>();
-                                for (String id : subjectIds) {
-                                    String name = subjectMap.get(id);
-                                    if (name != null) {
-                                        subjects.add(name);
-                                    }
-                                }
-                                generatePdf(subjects);
-                            })
-                            .addOnFailureListener(e -> {
-                                Toast.makeText(this, "Failed to fetch subject names: " + e.getMessage(),
-                                        Toast.LENGTH_SHORT).show();
-                                generatePdf(new java.util.ArrayList<>());
-                            });
-                })
-                .addOnFailureListener(e -> {
-                    Toast.makeText(this, "Failed to fetch subjects: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                    generatePdf(null);
-                });
+                    });
+        });
     }
 
     private void generatePdf(java.util.List<String> subjects) {
@@ -417,9 +409,6 @@ public class ProfileActivity extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        if (studentListener != null) {
-            studentListener.remove();
-        }
         binding = null;
     }
 }
\ No newline at end of file
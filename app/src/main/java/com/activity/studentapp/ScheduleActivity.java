@@ -5,39 +5,41 @@ import android.os.Bundle;
 import android.util.Log;
 import android.view.View;
 import android.widget.ProgressBar;
+import android.widget.Toast;
 import android.widget.TextView;
 
 import androidx.appcompat.app.AppCompatActivity;
-import androidx.recyclerview.widget.LinearLayoutManager;
-import androidx.recyclerview.widget.RecyclerView;
 import android.graphics.Typeface;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 
 import com.activity.studentapp.adapter.ScheduleAdapter;
-import com.activity.studentapp.adapter.ScheduleRowAdapter;
+import com.activity.studentapp.data.FirestoreListenerHub;
+import com.activity.studentapp.data.ListenerRegistry;
 import com.activity.studentapp.model.Schedule;
-import com.activity.studentapp.model.ScheduleRow;
+import com.activity.studentapp.model.ScheduleMapper;
+import com.activity.studentapp.timetable.ClassSession;
+import com.activity.studentapp.timetable.Timetable;
+import com.activity.studentapp.timetable.TimetableView;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public class ScheduleActivity extends AppCompatActivity {
     private static final String TAG = "ScheduleActivity";
+    private static final ScheduleMapper SCHEDULE_MAPPER = new ScheduleMapper();
 
     private FirebaseFirestore db;
+    private FirestoreListenerHub listenerHub;
+    private ListenerRegistry listeners;
+    private String scheduleSectionName;
     private SharedPreferences sharedPreferences;
     private String studentId;
     private String studentDocId;
 
-    private RecyclerView scheduleRecyclerView;
+    private TimetableView timetableView;
     private ProgressBar scheduleProgressBar;
     private TextView tvNoSchedule;
-    private ScheduleRowAdapter adapter;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -50,18 +52,18 @@ public class ScheduleActivity extends AppCompatActivity {
 
         // Initialize Firebase
         db = FirebaseFirestore.getInstance();
+        listenerHub = FirestoreListenerHub.getInstance();
+        listeners = ListenerRegistry.of(this);
         sharedPreferences = getSharedPreferences("StudentAppPrefs", MODE_PRIVATE);
         studentId = sharedPreferences.getString("studentId", null);
         studentDocId = sharedPreferences.getString("studentDocId", null);
 
         // Initialize views
-        scheduleRecyclerView = findViewById(R.id.scheduleRecyclerView);
+        timetableView = findViewById(R.id.timetableView);
         scheduleProgressBar = findViewById(R.id.scheduleProgressBar);
         tvNoSchedule = findViewById(R.id.tvNoSchedule);
 
-        adapter = new ScheduleRowAdapter(new ArrayList<>());
-        scheduleRecyclerView.setLayoutManager(new LinearLayoutManager(this));
-        scheduleRecyclerView.setAdapter(adapter);
+        timetableView.setOnCellClickListener(this::showClasses);
 
         loadSchedule();
     }
@@ -79,11 +81,15 @@ public class ScheduleActivity extends AppCompatActivity {
         scheduleProgressBar.setVisibility(View.VISIBLE);
         tvNoSchedule.setVisibility(View.GONE);
 
-        // First get student data to get section and gradeLevel
-        db.collection("students")
-                .document(studentDocId != null ? studentDocId : studentId)
-                .get()
-                .addOnSuccessListener(documentSnapshot -> {
+        // First get student data to get section and gradeLevel (shared with the dashboard)
+        String studentKey = studentDocId != null ? studentDocId : studentId;
+        listeners.add(FirestoreListenerHub.studentKey(studentKey), () -> listenerHub.listenToStudent(studentKey,
+                (documentSnapshot, e) -> {
+                    if (e != null) {
+                        Log.e(TAG, "Error getting student data", e);
+                        showNoSchedule("Error loading student information");
+                        return;
+                    }
                     if (documentSnapshot != null && documentSnapshot.exists()) {
                         String section = documentSnapshot.getString("section");
                         String gradeLevel = documentSnapshot.getString("gradeLevel");
@@ -96,158 +102,100 @@ public class ScheduleActivity extends AppCompatActivity {
                     } else {
                         showNoSchedule("Student record not found");
                     }
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Error getting student data", e);
-                    showNoSchedule("Error loading student information");
-                });
+                }));
     }
 
     private void fetchSchedule(String gradeLevel, String section) {
         String fullSectionName = gradeLevel + " - " + section;
+        if (fullSectionName.equals(scheduleSectionName)) {
+            return;
+        }
+        if (scheduleSectionName != null) {
+            listeners.remove(FirestoreListenerHub.sectionScheduleKey(scheduleSectionName));
+        }
         Log.d(TAG, "Fetching schedule for section: " + fullSectionName);
 
-        db.collection("class_schedule")
-                .whereEqualTo("sectionName", fullSectionName)
-                .addSnapshotListener((querySnapshot, e) -> {
-                    scheduleProgressBar.setVisibility(View.GONE);
-                    if (e != null) {
-                        Log.e(TAG, "Error listening to schedule", e);
-                        showNoSchedule("Error loading schedule");
-                        return;
-                    }
-                    if (querySnapshot != null) {
-                        Log.d(TAG, "Schedule snapshot received, documents: " + querySnapshot.size());
-                        List<Schedule> schedules = new ArrayList<>();
-                        for (QueryDocumentSnapshot doc : querySnapshot) {
-                            try {
-                                Schedule schedule = doc.toObject(Schedule.class);
-                                Log.d(TAG, "Fetched schedule: " + schedule.getSubjectName() + " on " + schedule.getDay()
-                                        + " at " + schedule.getTimeFrame());
-                                schedules.add(schedule);
-                            } catch (Exception ex) {
-                                Log.e(TAG, "Error parsing schedule document", ex);
+        scheduleSectionName = fullSectionName;
+        String scheduleKey = FirestoreListenerHub.sectionScheduleKey(fullSectionName);
+        listeners.add(scheduleKey,
+                () -> listenerHub.listenToSectionSchedule(fullSectionName, (querySnapshot, e) -> {
+            if (e != null) {
+                scheduleProgressBar.setVisibility(View.GONE);
+                Log.e(TAG, "Error listening to schedule", e);
+                // The hub has dropped the failed stream; forget it so the next student snapshot re-attaches
+                listeners.remove(scheduleKey);
+                scheduleSectionName = null;
+                showNoSchedule("Error loading schedule");
+                return;
+            }
+            if (querySnapshot != null) {
+                Log.d(TAG, "Schedule snapshot received, documents: " + querySnapshot.size());
+                // Mapping and indexing run in the background; the timetable comes back immutable
+                listeners.parse(scheduleKey, querySnapshot,
+                        snapshot -> Timetable.build(SCHEDULE_MAPPER.mapAll(snapshot)),
+                        (timetable, error) -> {
+                            scheduleProgressBar.setVisibility(View.GONE);
+                            if (error != null) {
+                                Log.e(TAG, "Error parsing schedule", error);
+                                showNoSchedule("Error loading schedule");
+                                return;
                             }
-                        }
-                        Log.d(TAG, "Total schedules fetched: " + schedules.size());
-                        displaySchedules(schedules);
-                    } else {
-                        showNoSchedule("No schedule data available");
-                    }
-                });
+                            displaySchedules(timetable);
+                        });
+            } else {
+                scheduleProgressBar.setVisibility(View.GONE);
+                showNoSchedule("No schedule data available");
+            }
+        }));
     }
 
-    private void displaySchedules(List<Schedule> schedules) {
-        Log.d(TAG, "Displaying schedules, count: " + schedules.size());
-        if (schedules.isEmpty()) {
+    private void displaySchedules(Timetable timetable) {
+        Log.d(TAG, "Displaying schedules, count: " + timetable.getSchedules().size());
+        if (timetable.getSchedules().isEmpty()) {
             Log.d(TAG, "No schedule to display");
             showNoSchedule("No schedule available");
             return;
         }
 
-        // Sort schedules by start time
-        List<Schedule> sorted = new ArrayList<>(schedules);
-        sorted.sort((s1, s2) -> Integer.compare(parseTime(s1.getTimeFrame()), parseTime(s2.getTimeFrame())));
-
-        List<ScheduleRow> rows = new ArrayList<>();
-
-        // Group schedules by time frame
-        Map<String, List<Schedule>> timeToSchedules = new HashMap<>();
-        for (Schedule schedule : sorted) {
-            String timeFrame = schedule.getTimeFrame();
-            if (!timeToSchedules.containsKey(timeFrame)) {
-                timeToSchedules.put(timeFrame, new ArrayList<>());
-            }
-            timeToSchedules.get(timeFrame).add(schedule);
+        for (Schedule schedule : timetable.getUnparsed()) {
+            Log.w(TAG, "Skipping schedule with unreadable day or time: " + schedule.getSubjectName()
+                    + " on " + schedule.getDay() + " at " + schedule.getTimeFrame());
         }
-
-        // Create rows for each time frame
-        for (String timeFrame : timeToSchedules.keySet()) {
-            String timeStr = timeFrame.split(" - ")[0];
-            ScheduleRow row = new ScheduleRow(timeStr);
-
-            List<Schedule> timeSchedules = timeToSchedules.get(timeFrame);
-            for (Schedule schedule : timeSchedules) {
-                String day = schedule.getDay();
-                int[] dayIndices = getDayIndices(day);
-
-                for (int dayIndex : dayIndices) {
-                    if (dayIndex >= 0 && dayIndex < 5) {
-                        String subjectInfo = schedule.getSubjectName();
-                        if (schedule.getInstructorName() != null && !schedule.getInstructorName().isEmpty()) {
-                            subjectInfo += "\n" + schedule.getInstructorName();
-                        }
-                        row.setSubject(dayIndex, subjectInfo);
-                    }
-                }
-            }
-
-            rows.add(row);
+        for (Timetable.Overlap overlap : timetable.getOverlaps()) {
+            Log.w(TAG, "Overlapping classes: " + overlap.getFirst().getSchedule().getSubjectName()
+                    + " and " + overlap.getSecond().getSchedule().getSubjectName());
+        }
+        if (timetable.getSessions().isEmpty()) {
+            showNoSchedule("No schedule available");
+            return;
         }
 
-        // Sort rows by time
-        rows.sort((r1, r2) -> Integer.compare(parseTime(r1.getTime()), parseTime(r2.getTime())));
-
-        adapter.updateRows(rows);
-        scheduleRecyclerView.setVisibility(View.VISIBLE);
+        timetableView.setTimetable(timetable);
+        timetableView.setVisibility(View.VISIBLE);
         tvNoSchedule.setVisibility(View.GONE);
     }
 
-    private int[] getDayIndices(String day) {
-        if (day == null) return new int[]{0, 1, 2, 3, 4}; // Default to all days
-
-        switch (day.toLowerCase()) {
-            case "monday":
-            case "mon":
-                return new int[]{0};
-            case "tuesday":
-            case "tue":
-                return new int[]{1};
-            case "wednesday":
-            case "wed":
-                return new int[]{2};
-            case "thursday":
-            case "thu":
-                return new int[]{3};
-            case "friday":
-            case "fri":
-                return new int[]{4};
-            case "m-f":
-            default:
-                return new int[]{0, 1, 2, 3, 4}; // All weekdays
+    private void showClasses(int day, Timetable.Slot slot, List<ClassSession> sessions) {
+        if (sessions.isEmpty()) {
+            return;
         }
-    }
-
-    private int parseTime(String timeStr) {
-        try {
-            // timeStr is like "8:00 AM"
-            String[] parts = timeStr.trim().split(" ");
-            if (parts.length < 2) {
-                // Try parsing as just time without AM/PM
-                String[] hm = timeStr.split(":");
-                int hour = Integer.parseInt(hm[0]);
-                int min = hm.length > 1 ? Integer.parseInt(hm[1]) : 0;
-                return hour * 60 + min;
+        StringBuilder message = new StringBuilder();
+        for (ClassSession session : sessions) {
+            Schedule schedule = session.getSchedule();
+            if (message.length() > 0) {
+                message.append("\n");
             }
-
-            String time = parts[0];
-            String ampm = parts[1];
-            String[] hm = time.split(":");
-            int hour = Integer.parseInt(hm[0]);
-            int min = Integer.parseInt(hm[1]);
-            if (ampm.equals("PM") && hour != 12)
-                hour += 12;
-            if (ampm.equals("AM") && hour == 12)
-                hour = 0;
-            return hour * 60 + min;
-        } catch (Exception e) {
-            Log.e(TAG, "Error parsing time: " + timeStr, e);
-            return 0;
+            message.append(schedule.getSubjectName());
+            if (schedule.getInstructorName() != null && !schedule.getInstructorName().isEmpty()) {
+                message.append(" - ").append(schedule.getInstructorName());
+            }
+            message.append(", ").append(session.getTime());
         }
+        Toast.makeText(this, message, Toast.LENGTH_LONG).show();
     }
 
     private void showNoSchedule(String message) {
-        scheduleRecyclerView.setVisibility(View.GONE);
+        timetableView.setVisibility(View.GONE);
         tvNoSchedule.setText(message);
         tvNoSchedule.setVisibility(View.VISIBLE);
         scheduleProgressBar.setVisibility(View.GONE);
@@ -10,25 +10,25 @@ import android.widget.ImageButton;
 import android.widget.TextView;
 import android.widget.Toast;
 
-import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
+import java.util.Objects;
 
 import androidx.appcompat.app.AppCompatActivity;
 
-import java.util.ArrayList;
-import java.util.List;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.activity.studentapp.adapter.ActivityAdapter;
+import com.activity.studentapp.data.AttendanceResolver;
+import com.activity.studentapp.data.FirestoreListenerHub;
+import com.activity.studentapp.data.ListenerRegistry;
+import com.activity.studentapp.data.LiveSortedList;
 import com.activity.studentapp.model.Subject;
 import com.activity.studentapp.model.Activity;
+import com.activity.studentapp.model.ActivityMapper;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.EventListener;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestoreException;
@@ -36,10 +36,14 @@ import com.google.firebase.firestore.QueryDocumentSnapshot;
 import com.google.firebase.firestore.QuerySnapshot;
 
 public class SubjectDetailsActivity extends AppCompatActivity {
+    // Newest first; items without a publish time fall back to their creation time
+    private static final ActivityMapper ACTIVITY_MAPPER = ActivityMapper.forActivities();
+    private static final ActivityMapper PUBLISHED_ITEM_MAPPER = ActivityMapper.forPublishedItems();
+
+    private static final Comparator<Activity> NEWEST_FIRST = (a1, a2) -> Long.compare(sortTime(a2), sortTime(a1));
+
     private Subject subject;
     private FirebaseFirestore db;
-    private ListenerRegistration subjectDetailsListener;
-    private ListenerRegistration assignmentsListener;
 
     // UI components
     private TextView subjectName;
@@ -55,27 +59,32 @@ public class SubjectDetailsActivity extends AppCompatActivity {
     private TextView noActivitiesText;
     private View activitiesProgressBar;
     private ActivityAdapter activityAdapter;
+    private LiveSortedList<Activity> activityItems;
     private List<Activity> activitiesList;
-    private ListenerRegistration activitiesListener;
 
     // Quiz components
     private RecyclerView quizzesRecyclerView;
     private TextView noQuizzesText;
     private View quizzesProgressBar;
     private ActivityAdapter quizAdapter;
+    private LiveSortedList<Activity> quizItems;
     private List<Activity> quizzesList;
-    private ListenerRegistration quizzesListener;
+    private boolean quizzesLoaded;
 
     // Exam components
     private RecyclerView examsRecyclerView;
     private TextView noExamsText;
     private View examsProgressBar;
     private ActivityAdapter examAdapter;
+    private LiveSortedList<Activity> examItems;
     private List<Activity> examsList;
-    private ListenerRegistration examsListener;
+    private boolean examsLoaded;
+    // Instructor shown on quizzes and exams; read by their parsers on the background thread
+    private volatile String assessmentInstructor;
 
-    // Attendance listener
-    private ListenerRegistration attendanceListener;
+    // Every snapshot listener of this screen, detached on destroy
+    private ListenerRegistry listeners;
+    private AttendanceResolver attendanceResolver;
     private String studentId;
     private String studentDocId;
     private String section;
@@ -87,11 +96,18 @@ public class SubjectDetailsActivity extends AppCompatActivity {
 
         // Initialize Firestore
         db = FirebaseFirestore.getInstance();
-
-        // Initialize lists
-        activitiesList = new ArrayList<>();
-        quizzesList = new ArrayList<>();
-        examsList = new ArrayList<>();
+        listeners = ListenerRegistry.of(this);
+        attendanceResolver = new AttendanceResolver(db);
+
+        // Initialize lists; they are patched in place from snapshot document changes
+        activityItems = new LiveSortedList<>(NEWEST_FIRST);
+        activitiesList = activityItems.asList();
+        quizItems = new LiveSortedList<>(NEWEST_FIRST);
+        quizItems.setVisible(false); // Hidden until attendance is confirmed
+        quizzesList = quizItems.asList();
+        examItems = new LiveSortedList<>(NEWEST_FIRST);
+        examItems.setVisible(false);
+        examsList = examItems.asList();
 
         // Get subject data from intent
         subject = (Subject) getIntent().getSerializableExtra("subject");
@@ -113,26 +129,31 @@ public class SubjectDetailsActivity extends AppCompatActivity {
         setupExamsRecyclerView();
         setupUI();
         loadActivities();
+        setupAttendanceListener();
         loadQuizzes();
         loadExams();
-        setupAttendanceListener();
         setupClickListeners();
     }
 
     private void getStudentSection() {
         if (studentDocId != null) {
-            db.collection("students").document(studentDocId).get().addOnSuccessListener(documentSnapshot -> {
-                if (documentSnapshot.exists()) {
-                    section = documentSnapshot.getString("section");
-                    if (section != null) {
-                        subject.setRoom(section);
-                        // Update the UI with the room
-                        updateSubjectDetails(subject.getName(), subject.getSchedule(), subject.getRoom(),
-                                subject.getInstructor());
-                    }
-                }
-            }).addOnFailureListener(
-                    e -> Log.e("SubjectDetailsActivity", "Error getting student section: " + e.getMessage()));
+            // Shared student stream; no extra read when the dashboard already holds it
+            listeners.add(FirestoreListenerHub.studentKey(studentDocId),
+                    () -> FirestoreListenerHub.getInstance().listenToStudent(studentDocId, (documentSnapshot, e) -> {
+                        if (e != null) {
+                            Log.e("SubjectDetailsActivity", "Error getting student section: " + e.getMessage());
+                            return;
+                        }
+                        if (documentSnapshot != null && documentSnapshot.exists()) {
+                            section = documentSnapshot.getString("section");
+                            if (section != null) {
+                                subject.setRoom(section);
+                                // Update the UI with the room
+                                updateSubjectDetails(subject.getName(), subject.getSchedule(), subject.getRoom(),
+                                        subject.getInstructor());
+                            }
+                        }
+                    }));
         }
     }
 
@@ -174,14 +195,8 @@ public class SubjectDetailsActivity extends AppCompatActivity {
             return;
         }
 
-        // Remove existing listener if any
-        if (subjectDetailsListener != null) {
-            subjectDetailsListener.remove();
-        }
-
-        subjectDetailsListener = db.collection("subjects")
-                .document(subjectId)
-                .addSnapshotListener(new EventListener<DocumentSnapshot>() {
+        listeners.listen("subjects/" + subjectId, db.collection("subjects").document(subjectId),
+                new EventListener<DocumentSnapshot>() {
                     @Override
                     public void onEvent(DocumentSnapshot documentSnapshot, FirebaseFirestoreException e) {
                         if (e != null) {
@@ -240,6 +255,8 @@ public class SubjectDetailsActivity extends AppCompatActivity {
                         DocumentSnapshot scheduleDoc = queryDocumentSnapshots.getDocuments().get(0);
                         String instructor = scheduleDoc.getString("instructorName");
                         String timeFrame = scheduleDoc.getString("timeFrame");
+                        boolean instructorChanged = instructor != null
+                                && !instructor.equals(subject.getInstructor());
                         if (instructor != null) {
                             subject.setInstructor(instructor);
                         }
@@ -249,9 +266,12 @@ public class SubjectDetailsActivity extends AppCompatActivity {
                         // Update the UI with instructor and schedule
                         updateSubjectDetails(subject.getName(), subject.getSchedule(), subject.getRoom(),
                                 subject.getInstructor());
-                        // Reload quizzes and exams to update instructor names
-                        loadQuizzes();
-                        loadExams();
+                        if (instructorChanged) {
+                            // Quizzes and exams show the instructor; update them without re-reading
+                            assessmentInstructor = instructor;
+                            quizItems.updateEach(this::applyAssessmentInstructor);
+                            examItems.updateEach(this::applyAssessmentInstructor);
+                        }
                         Log.d("SubjectDetailsActivity",
                                 "Loaded instructor: " + instructor + ", schedule: " + timeFrame + " for subject: "
                                         + subjectId);
@@ -336,18 +356,21 @@ public class SubjectDetailsActivity extends AppCompatActivity {
 
     private void setupActivitiesRecyclerView() {
         activityAdapter = new ActivityAdapter(activitiesList, this::onActivityClick);
+        activityItems.setCallback(new AdapterListUpdateCallback(activityAdapter));
         activitiesRecyclerView.setLayoutManager(new LinearLayoutManager(this));
         activitiesRecyclerView.setAdapter(activityAdapter);
     }
 
     private void setupQuizzesRecyclerView() {
         quizAdapter = new ActivityAdapter(quizzesList, this::onQuizClick);
+        quizItems.setCallback(new AdapterListUpdateCallback(quizAdapter));
         quizzesRecyclerView.setLayoutManager(new LinearLayoutManager(this));
         quizzesRecyclerView.setAdapter(quizAdapter);
     }
 
     private void setupExamsRecyclerView() {
         examAdapter = new ActivityAdapter(examsList, this::onExamClick);
+        examItems.setCallback(new AdapterListUpdateCallback(examAdapter));
         examsRecyclerView.setLayoutManager(new LinearLayoutManager(this));
         examsRecyclerView.setAdapter(examAdapter);
     }
@@ -358,9 +381,9 @@ public class SubjectDetailsActivity extends AppCompatActivity {
             return;
         }
 
-        // Remove existing listener if any
-        if (activitiesListener != null) {
-            activitiesListener.remove();
+        String activitiesKey = "activities?subjectId=" + subject.getId();
+        if (listeners.contains(activitiesKey)) {
+            return;
         }
 
         // Show loading state
@@ -375,9 +398,17 @@ public class SubjectDetailsActivity extends AppCompatActivity {
         }
 
         // Load activities from Firestore with real-time updates
-        activitiesListener = db.collection("activities")
-                .whereEqualTo("subjectId", subject.getId())
-                .addSnapshotListener((querySnapshot, e) -> {
+        // Parsed on the background thread; only the changes are applied here
+        boolean[] activitiesReset = { true };
+        listeners.listen(activitiesKey, db.collection("activities")
+                .whereEqualTo("subjectId", subject.getId()),
+                querySnapshot -> {
+                    LiveSortedList.Changes<Activity> changes = LiveSortedList.prepare("activities", querySnapshot,
+                            this::parseActivity, activitiesReset[0]);
+                    activitiesReset[0] = false;
+                    return changes;
+                },
+                (changes, e) -> {
                     if (activitiesProgressBar != null) {
                         activitiesProgressBar.setVisibility(View.GONE);
                     }
@@ -389,116 +420,62 @@ public class SubjectDetailsActivity extends AppCompatActivity {
                         return;
                     }
 
-                    if (querySnapshot != null) {
-                        // Remove existing assignments (assignments don't have prefixes anymore)
-                        activitiesList.removeIf(
-                                activity -> activity.getId() != null && !activity.getId().startsWith("activity_"));
-                        for (QueryDocumentSnapshot document : querySnapshot) {
-                            try {
-                                Activity activity = document.toObject(Activity.class);
-                                activity.setId(document.getId());
-                                activitiesList.add(activity);
-                                Log.d("SubjectDetailsActivity", "Loaded activity: " + activity.getTitle());
-                            } catch (Exception ex) {
-                                Log.e("SubjectDetailsActivity", "Error parsing activity: " + ex.getMessage());
-                            }
-                        }
-
-                        // Sort activities by creation date (newest first)
-                        activitiesList.sort((a1, a2) -> Long.compare(a2.getCreatedAt(), a1.getCreatedAt()));
-
-                        if (activityAdapter != null) {
-                            activityAdapter.updateActivities(activitiesList);
-                            Log.d("SubjectDetailsActivity",
-                                    "Updated activities list with " + activitiesList.size() + " items");
-                        }
+                    if (changes != null) {
+                        // Only the changed documents were re-parsed and are re-positioned
+                        activityItems.apply(changes);
+                        Log.d("SubjectDetailsActivity", "Applied " + changes.size()
+                                + " activity changes, " + activitiesList.size() + " items");
                     }
 
                     updateActivitiesEmptyView();
                 });
 
         // Load assignments
-        assignmentsListener = db.collection("assignments")
-                .whereEqualTo("subjectId", subject.getId())
-                .addSnapshotListener((querySnapshot, e) -> {
+        boolean[] assignmentsReset = { true };
+        String subjectId = subject.getId();
+        String instructor = subject.getInstructor();
+        listeners.listen("assignments?subjectId=" + subjectId, db.collection("assignments")
+                .whereEqualTo("subjectId", subjectId),
+                querySnapshot -> {
+                    LiveSortedList.Changes<Activity> changes = LiveSortedList.prepare("assignments", querySnapshot,
+                            document -> parseAssignment(document, subjectId, instructor), assignmentsReset[0]);
+                    assignmentsReset[0] = false;
+                    return changes;
+                },
+                (changes, e) -> {
                     if (e != null) {
                         Log.e("SubjectDetailsActivity", "Error listening to assignments: " + e.getMessage(), e);
                         Toast.makeText(this, "Error loading assignments", Toast.LENGTH_SHORT).show();
                         return;
                     }
 
-                    if (querySnapshot != null) {
-                        // Clear existing assignments and add new ones (assignments come from
-                        // assignments collection)
-                        activitiesList.removeIf(activity -> {
-                            // Remove activities that don't start with "activity_" (these are assignments)
-                            return activity.getId() != null && !activity.getId().startsWith("activity_");
-                        });
-                        for (QueryDocumentSnapshot document : querySnapshot) {
-                            try {
-                                Activity assignment = new Activity();
-                                assignment.setId(document.getId()); // Use actual document ID without prefix
-                                assignment.setTitle(document.getString("title"));
-                                assignment.setDescription(document.getString("description"));
-                                assignment.setCreatedAt(
-                                        document.getLong("createdAt") != null ? document.getLong("createdAt")
-                                                : System.currentTimeMillis());
-
-                                Long publishedAt = document.getLong("publishedAt");
-                                if (publishedAt != null) {
-                                    assignment.setPublishedAt(publishedAt);
-                                } else {
-                                    assignment.setPublishedAt(assignment.getCreatedAt());
-                                }
-
-                                assignment.setSubjectId(subject.getId());
-                                assignment.setInstructorName(subject.getInstructor());
-                                assignment.setStatus("Active");
-
-                                // Map totalPoints from instructor app
-                                Long totalPoints = document.getLong("totalPoints");
-                                if (totalPoints != null) {
-                                    assignment.setTotalPoints(totalPoints.intValue());
-                                } else {
-                                    assignment.setTotalPoints(0);
-                                }
-
-                                // Map published status from instructor app
-                                Boolean published = document.getBoolean("published");
-                                if (published != null) {
-                                    assignment.setPublished(published);
-                                } else {
-                                    assignment.setPublished(true); // Default to published if not set
-                                }
-
-                                Object dueDateObj = document.get("dueDate");
-                                if (dueDateObj instanceof com.google.firebase.Timestamp) {
-                                    assignment.setDueDate(
-                                            ((com.google.firebase.Timestamp) dueDateObj).toDate().getTime());
-                                } else if (dueDateObj instanceof Long) {
-                                    assignment.setDueDate((Long) dueDateObj);
-                                } else {
-                                    assignment.setDueDate(0L);
-                                }
-
-                                activitiesList.add(assignment);
-                                Log.d("SubjectDetailsActivity",
-                                        "Loaded assignment into activities: " + assignment.getTitle());
-                            } catch (Exception ex) {
-                                Log.e("SubjectDetailsActivity", "Error parsing assignment: " + ex.getMessage());
-                            }
-                        }
-
-                        activitiesList.sort((a1, a2) -> Long.compare(a2.getPublishedAt(), a1.getPublishedAt()));
-                        if (activityAdapter != null) {
-                            activityAdapter.updateActivities(activitiesList);
-                        }
-
+                    if (changes != null) {
+                        activityItems.apply(changes);
                         updateActivitiesEmptyView();
                     }
                 });
     }
 
+    private Activity parseActivity(QueryDocumentSnapshot document) {
+        Activity activity = ACTIVITY_MAPPER.map(document);
+        Log.d("SubjectDetailsActivity", "Loaded activity: " + activity.getTitle());
+        return activity;
+    }
+
+    // Runs on the background thread, so it only reads the values passed in
+    private static Activity parseAssignment(QueryDocumentSnapshot document, String subjectId, String instructor) {
+        Activity assignment = PUBLISHED_ITEM_MAPPER.map(document);
+        assignment.setSubjectId(subjectId);
+        assignment.setInstructorName(instructor);
+        assignment.setStatus("Active");
+        Log.d("SubjectDetailsActivity", "Loaded assignment into activities: " + assignment.getTitle());
+        return assignment;
+    }
+
+    private static long sortTime(Activity activity) {
+        return activity.getPublishedAt() > 0 ? activity.getPublishedAt() : activity.getCreatedAt();
+    }
+
     private void updateActivitiesEmptyView() {
         boolean empty = activitiesList.isEmpty();
         if (noActivitiesText != null) {
@@ -521,43 +498,54 @@ public class SubjectDetailsActivity extends AppCompatActivity {
     }
 
     private void checkAttendanceForSubject(String studentId, String subjectId, AttendanceCheckCallback callback) {
-        // Get current date
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-        String currentDate = sdf.format(new Date());
-
-        // Query attendance collection for the student in this subject on current date
-        db.collection("attendance")
-                .whereEqualTo("studentId", studentId)
-                .whereEqualTo("subjectId", subjectId)
-                .whereEqualTo("date", currentDate)
-                .whereEqualTo("isPresent", true)
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    boolean hasAttendance = !querySnapshot.isEmpty();
-                    Log.d("SubjectDetailsActivity", "Attendance check for subject " + subjectId +
-                            " on date " + currentDate + " - Present: " + hasAttendance);
-                    callback.onAttendanceChecked(hasAttendance);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e("SubjectDetailsActivity", "Error checking attendance: " + e.getMessage());
-                    // On error, assume no attendance for security
-                    callback.onAttendanceChecked(false);
-                });
+        // One memoized lookup per (student, subject, day), shared by quizzes and exams
+        attendanceResolver.isPresent(studentId, subjectId, AttendanceResolver.today(),
+                callback::onAttendanceChecked);
     }
 
     private interface AttendanceCheckCallback {
         void onAttendanceChecked(boolean hasAttendance);
     }
 
+    // Converts a quiz or exam document to an Activity-like object for display
+    // Runs on the background thread, so it only reads the values passed in
+    private static Activity parseAssessment(QueryDocumentSnapshot document, String subjectId, String instructor) {
+        // Due date comes from dueDate or scheduledAt, stored as Timestamp, Long or String
+        Activity assessment = PUBLISHED_ITEM_MAPPER.map(document);
+
+        // Set additional fields for proper display
+        assessment.setSubjectId(subjectId);
+        assessment.setInstructorName(instructor);
+        assessment.setStatus("Active");
+        return assessment;
+    }
+
+    // Sets the current instructor on a loaded quiz or exam; true if it was different
+    private boolean applyAssessmentInstructor(Activity assessment) {
+        String instructor = assessmentInstructor;
+        if (Objects.equals(instructor, assessment.getInstructorName())) {
+            return false;
+        }
+        assessment.setInstructorName(instructor);
+        return true;
+    }
+
+    private String quizzesKey() {
+        return "quizzes?subjectId=" + subject.getId() + "&isPublished=true";
+    }
+
+    private String examsKey() {
+        return "exams?subjectId=" + subject.getId() + "&isPublished=true";
+    }
+
     private void loadQuizzes() {
         if (studentId == null || subject.getId() == null) {
             updateQuizzesEmptyView();
             return;
         }
 
-        // Remove existing listener if any
-        if (quizzesListener != null) {
-            quizzesListener.remove();
+        if (listeners.contains(quizzesKey())) {
+            return;
         }
 
         // Show loading state
@@ -573,10 +561,21 @@ public class SubjectDetailsActivity extends AppCompatActivity {
 
         // Load quizzes from Firestore with real-time updates
         // Only show quizzes that are published and student was present for the subject
-        quizzesListener = db.collection("quizzes")
-                .whereEqualTo("subjectId", subject.getId())
-                .whereEqualTo("isPublished", true)
-                .addSnapshotListener((querySnapshot, e) -> {
+        boolean[] quizzesReset = { true };
+        String subjectId = subject.getId();
+        if (assessmentInstructor == null) {
+            assessmentInstructor = subject.getInstructor();
+        }
+        listeners.listen(quizzesKey(), db.collection("quizzes")
+                .whereEqualTo("subjectId", subjectId)
+                .whereEqualTo("isPublished", true),
+                querySnapshot -> {
+                    LiveSortedList.Changes<Activity> changes = LiveSortedList.prepare("quizzes", querySnapshot,
+                            document -> parseAssessment(document, subjectId, assessmentInstructor), quizzesReset[0]);
+                    quizzesReset[0] = false;
+                    return changes;
+                },
+                (changes, e) -> {
                     if (quizzesProgressBar != null) {
                         quizzesProgressBar.setVisibility(View.GONE);
                     }
@@ -588,128 +587,39 @@ public class SubjectDetailsActivity extends AppCompatActivity {
                         return;
                     }
 
-                    if (querySnapshot != null && !querySnapshot.isEmpty()) {
-                        List<Activity> tempQuizzesList = new ArrayList<>();
-                        AtomicInteger pendingChecks = new AtomicInteger(querySnapshot.size());
-
-                        for (QueryDocumentSnapshot document : querySnapshot) {
-                            try {
-                                // Convert quiz to Activity-like object for display
-                                Activity quiz = new Activity();
-                                quiz.setId(document.getId());
-                                quiz.setTitle(document.getString("title"));
-                                quiz.setDescription(document.getString("description"));
-                                quiz.setCreatedAt(document.getLong("createdAt") != null ? document.getLong("createdAt")
-                                        : System.currentTimeMillis());
-
-                                // Set publishedAt from document if available
-                                Long publishedAt = document.getLong("publishedAt");
-                                if (publishedAt != null) {
-                                    quiz.setPublishedAt(publishedAt);
-                                } else {
-                                    quiz.setPublishedAt(quiz.getCreatedAt()); // fallback
-                                }
-
-                                // Set additional fields for proper display
-                                quiz.setSubjectId(subject.getId());
-                                quiz.setInstructorName(subject.getInstructor());
-                                quiz.setStatus("Active");
-
-                                // Try to set due date from scheduledAt or dueDate field
-                                Object dueDateObj = document.get("dueDate");
-                                if (dueDateObj == null) {
-                                    dueDateObj = document.get("scheduledAt");
-                                }
-                                if (dueDateObj instanceof com.google.firebase.Timestamp) {
-                                    quiz.setDueDate(((com.google.firebase.Timestamp) dueDateObj).toDate().getTime());
-                                } else if (dueDateObj instanceof Long) {
-                                    quiz.setDueDate((Long) dueDateObj);
-                                } else if (dueDateObj instanceof String) {
-                                    try {
-                                        quiz.setDueDate(Long.parseLong((String) dueDateObj));
-                                    } catch (NumberFormatException nfe) {
-                                        quiz.setDueDate(0L);
-                                    }
-                                } else {
-                                    quiz.setDueDate(0L);
-                                }
-
-                                // Check attendance for the subject
-                                checkAttendanceForSubject(studentId, subject.getId(), hasAttendance -> {
-                                    if (hasAttendance) {
-                                        tempQuizzesList.add(quiz);
-                                        Log.d("SubjectDetailsActivity",
-                                                "Added quiz with attendance: " + quiz.getTitle());
-                                    } else {
-                                        Log.d("SubjectDetailsActivity",
-                                                "Skipped quiz (no attendance): " + quiz.getTitle());
-                                    }
-
-                                    // Check if all attendance checks are complete
-                                    if (pendingChecks.decrementAndGet() == 0) {
-                                        // All checks complete, update the UI
-                                        runOnUiThread(() -> {
-                                            quizzesList.clear();
-                                            quizzesList.addAll(tempQuizzesList);
-
-                                            // Sort quizzes by published date (newest first)
-                                            quizzesList.sort(
-                                                    (a1, a2) -> Long.compare(a2.getPublishedAt(), a1.getPublishedAt()));
-
-                                            if (quizAdapter != null) {
-                                                quizAdapter.updateActivities(quizzesList);
-                                                Log.d("SubjectDetailsActivity",
-                                                        "Updated quizzes list with " + quizzesList.size()
-                                                                + " items (after attendance filter)");
-                                            }
-
-                                            updateQuizzesEmptyView();
-                                        });
-                                    }
-                                });
-
-                            } catch (Exception ex) {
-                                Log.e("SubjectDetailsActivity", "Error parsing quiz: " + ex.getMessage());
-                                // Still decrement counter even on error
-                                if (pendingChecks.decrementAndGet() == 0) {
-                                    runOnUiThread(() -> {
-                                        quizzesList.clear();
-                                        quizzesList.addAll(tempQuizzesList);
-                                        quizzesList.sort(
-                                                (a1, a2) -> Long.compare(a2.getPublishedAt(), a1.getPublishedAt()));
-
-                                        if (quizAdapter != null) {
-                                            quizAdapter.updateActivities(quizzesList);
-                                            Log.d("SubjectDetailsActivity",
-                                                    "Updated quizzes list with " + quizzesList.size()
-                                                            + " items (after attendance filter)");
-                                        }
-
-                                        updateQuizzesEmptyView();
-                                    });
-                                }
-                            }
-                        }
-                    } else {
-                        // No quizzes found
-                        quizzesList.clear();
-                        if (quizAdapter != null) {
-                            quizAdapter.updateActivities(quizzesList);
-                        }
-                        updateQuizzesEmptyView();
+                    if (changes != null) {
+                        quizItems.apply(changes);
+                        // Catches items parsed just before the instructor changed
+                        quizItems.updateEach(this::applyAssessmentInstructor);
                     }
+                    quizzesLoaded = true;
+                    applyQuizAttendanceFilter();
                 });
     }
 
+    private void applyQuizAttendanceFilter() {
+        if (!quizzesLoaded) {
+            return; // Quizzes not loaded yet
+        }
+
+        // A single attendance answer gates every quiz of this subject
+        checkAttendanceForSubject(studentId, subject.getId(), hasAttendance -> {
+            quizItems.setVisible(hasAttendance);
+            Log.d("SubjectDetailsActivity",
+                    "Showing " + quizzesList.size() + " quizzes (after attendance filter, present: "
+                            + hasAttendance + ")");
+            updateQuizzesEmptyView();
+        });
+    }
+
     private void loadExams() {
         if (studentId == null || subject.getId() == null) {
             updateExamsEmptyView();
             return;
         }
 
-        // Remove existing listener if any
-        if (examsListener != null) {
-            examsListener.remove();
+        if (listeners.contains(examsKey())) {
+            return;
         }
 
         // Show loading state
@@ -725,10 +635,21 @@ public class SubjectDetailsActivity extends AppCompatActivity {
 
         // Load exams from Firestore with real-time updates
         // Only show exams that are published and student was present for the subject
-        examsListener = db.collection("exams")
-                .whereEqualTo("subjectId", subject.getId())
-                .whereEqualTo("isPublished", true)
-                .addSnapshotListener((querySnapshot, e) -> {
+        boolean[] examsReset = { true };
+        String subjectId = subject.getId();
+        if (assessmentInstructor == null) {
+            assessmentInstructor = subject.getInstructor();
+        }
+        listeners.listen(examsKey(), db.collection("exams")
+                .whereEqualTo("subjectId", subjectId)
+                .whereEqualTo("isPublished", true),
+                querySnapshot -> {
+                    LiveSortedList.Changes<Activity> changes = LiveSortedList.prepare("exams", querySnapshot,
+                            document -> parseAssessment(document, subjectId, assessmentInstructor), examsReset[0]);
+                    examsReset[0] = false;
+                    return changes;
+                },
+                (changes, e) -> {
                     if (examsProgressBar != null) {
                         examsProgressBar.setVisibility(View.GONE);
                     }
@@ -740,119 +661,31 @@ public class SubjectDetailsActivity extends AppCompatActivity {
                         return;
                     }
 
-                    if (querySnapshot != null && !querySnapshot.isEmpty()) {
-                        List<Activity> tempExamsList = new ArrayList<>();
-                        AtomicInteger pendingChecks = new AtomicInteger(querySnapshot.size());
-
-                        for (QueryDocumentSnapshot document : querySnapshot) {
-                            try {
-                                // Convert exam to Activity-like object for display
-                                Activity exam = new Activity();
-                                exam.setId(document.getId());
-                                exam.setTitle(document.getString("title"));
-                                exam.setDescription(document.getString("description"));
-                                exam.setCreatedAt(document.getLong("createdAt") != null ? document.getLong("createdAt")
-                                        : System.currentTimeMillis());
-
-                                // Set publishedAt from document if available
-                                Long publishedAt = document.getLong("publishedAt");
-                                if (publishedAt != null) {
-                                    exam.setPublishedAt(publishedAt);
-                                } else {
-                                    exam.setPublishedAt(exam.getCreatedAt()); // fallback
-                                }
-
-                                // Set additional fields for proper display
-                                exam.setSubjectId(subject.getId());
-                                exam.setInstructorName(subject.getInstructor());
-                                exam.setStatus("Active");
-
-                                // Try to set due date from scheduledAt or dueDate field
-                                Object dueDateObj = document.get("dueDate");
-                                if (dueDateObj == null) {
-                                    dueDateObj = document.get("scheduledAt");
-                                }
-                                if (dueDateObj instanceof com.google.firebase.Timestamp) {
-                                    exam.setDueDate(((com.google.firebase.Timestamp) dueDateObj).toDate().getTime());
-                                } else if (dueDateObj instanceof Long) {
-                                    exam.setDueDate((Long) dueDateObj);
-                                } else if (dueDateObj instanceof String) {
-                                    try {
-                                        exam.setDueDate(Long.parseLong((String) dueDateObj));
-                                    } catch (NumberFormatException nfe) {
-                                        exam.setDueDate(0L);
-                                    }
-                                } else {
-                                    exam.setDueDate(0L);
-                                }
-
-                                // Check attendance for the subject
-                                checkAttendanceForSubject(studentId, subject.getId(), hasAttendance -> {
-                                    if (hasAttendance) {
-                                        tempExamsList.add(exam);
-                                        Log.d("SubjectDetailsActivity",
-                                                "Added exam with attendance: " + exam.getTitle());
-                                    } else {
-                                        Log.d("SubjectDetailsActivity",
-                                                "Skipped exam (no attendance): " + exam.getTitle());
-                                    }
-
-                                    // Check if all attendance checks are complete
-                                    if (pendingChecks.decrementAndGet() == 0) {
-                                        // All checks complete, update the UI
-                                        runOnUiThread(() -> {
-                                            examsList.clear();
-                                            examsList.addAll(tempExamsList);
-
-                                            // Sort exams by published date (newest first)
-                                            examsList.sort(
-                                                    (a1, a2) -> Long.compare(a2.getPublishedAt(), a1.getPublishedAt()));
-
-                                            if (examAdapter != null) {
-                                                examAdapter.updateActivities(examsList);
-                                                Log.d("SubjectDetailsActivity",
-                                                        "Updated exams list with " + examsList.size()
-                                                                + " items (after attendance filter)");
-                                            }
-
-                                            updateExamsEmptyView();
-                                        });
-                                    }
-                                });
-
-                            } catch (Exception ex) {
-                                Log.e("SubjectDetailsActivity", "Error parsing exam: " + ex.getMessage());
-                                // Still decrement counter even on error
-                                if (pendingChecks.decrementAndGet() == 0) {
-                                    runOnUiThread(() -> {
-                                        examsList.clear();
-                                        examsList.addAll(tempExamsList);
-                                        examsList.sort(
-                                                (a1, a2) -> Long.compare(a2.getPublishedAt(), a1.getPublishedAt()));
-
-                                        if (examAdapter != null) {
-                                            examAdapter.updateActivities(examsList);
-                                            Log.d("SubjectDetailsActivity",
-                                                    "Updated exams list with " + examsList.size()
-                                                            + " items (after attendance filter)");
-                                        }
-
-                                        updateExamsEmptyView();
-                                    });
-                                }
-                            }
-                        }
-                    } else {
-                        // No exams found
-                        examsList.clear();
-                        if (examAdapter != null) {
-                            examAdapter.updateActivities(examsList);
-                        }
-                        updateExamsEmptyView();
+                    if (changes != null) {
+                        examItems.apply(changes);
+                        // Catches items parsed just before the instructor changed
+                        examItems.updateEach(this::applyAssessmentInstructor);
                     }
+                    examsLoaded = true;
+                    applyExamAttendanceFilter();
                 });
     }
 
+    private void applyExamAttendanceFilter() {
+        if (!examsLoaded) {
+            return; // Exams not loaded yet
+        }
+
+        // A single attendance answer gates every exam of this subject
+        checkAttendanceForSubject(studentId, subject.getId(), hasAttendance -> {
+            examItems.setVisible(hasAttendance);
+            Log.d("SubjectDetailsActivity",
+                    "Showing " + examsList.size() + " exams (after attendance filter, present: "
+                            + hasAttendance + ")");
+            updateExamsEmptyView();
+        });
+    }
+
     private void updateQuizzesEmptyView() {
         boolean empty = quizzesList.isEmpty();
         if (noQuizzesText != null) {
@@ -898,25 +731,31 @@ public class SubjectDetailsActivity extends AppCompatActivity {
             return;
         }
 
-        // Remove existing listener if any
-        if (attendanceListener != null) {
-            attendanceListener.remove();
+        String attendanceKey = "attendance?studentId=" + studentId + "&subjectId=" + subject.getId();
+        if (listeners.contains(attendanceKey)) {
+            return;
         }
 
-        // Listen for attendance changes for this student and subject
-        attendanceListener = db.collection("attendance")
+        // Listen for attendance changes for this student and subject; the stream also answers
+        // attendance lookups so quizzes and exams never query it separately
+        attendanceResolver.attachStream(studentId, subject.getId());
+        listeners.listen(attendanceKey, db.collection("attendance")
                 .whereEqualTo("studentId", studentId)
-                .whereEqualTo("subjectId", subject.getId())
-                .addSnapshotListener((querySnapshot, e) -> {
+                .whereEqualTo("subjectId", subject.getId()),
+                (querySnapshot, e) -> {
                     if (e != null) {
                         Log.e("SubjectDetailsActivity", "Error listening to attendance: " + e.getMessage());
+                        attendanceResolver.onStreamError(studentId, subject.getId());
                         return;
                     }
 
-                    Log.d("SubjectDetailsActivity", "Attendance changed, reloading quizzes and exams");
-                    // Reload quizzes and exams when attendance changes
-                    loadQuizzes();
-                    loadExams();
+                    if (querySnapshot != null
+                            && attendanceResolver.onAttendanceSnapshot(studentId, subject.getId(), querySnapshot)) {
+                        Log.d("SubjectDetailsActivity", "Attendance changed, re-filtering quizzes and exams");
+                        // Re-filter the already loaded quizzes and exams
+                        applyQuizAttendanceFilter();
+                        applyExamAttendanceFilter();
+                    }
                 });
     }
 
@@ -924,28 +763,4 @@ public class SubjectDetailsActivity extends AppCompatActivity {
         // Back button
         backButton.setOnClickListener(v -> finish());
     }
-
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        // Remove real-time listeners to prevent memory leaks
-        if (subjectDetailsListener != null) {
-            subjectDetailsListener.remove();
-        }
-        if (activitiesListener != null) {
-            activitiesListener.remove();
-        }
-        if (quizzesListener != null) {
-            quizzesListener.remove();
-        }
-        if (examsListener != null) {
-            examsListener.remove();
-        }
-        if (assignmentsListener != null) {
-            assignmentsListener.remove();
-        }
-        if (attendanceListener != null) {
-            attendanceListener.remove();
-        }
-    }
-}
\ No newline at end of file
+}
@@ -22,6 +22,7 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import com.activity.studentapp.model.Activity;
 import com.activity.studentapp.model.Question;
+import com.activity.studentapp.model.QuestionMapper;
 import com.activity.studentapp.model.Subject;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
@@ -33,6 +34,7 @@ import java.util.List;
 import java.util.Map;
 
 public class TakeExamActivity extends AppCompatActivity {
+    private static final QuestionMapper QUESTION_MAPPER = new QuestionMapper();
 
     private Activity exam;
     private Subject subject;
@@ -143,77 +145,8 @@ public class TakeExamActivity extends AppCompatActivity {
 
                     for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
                         try {
-                            // Debug: Log all fields in the document
-                            Log.d("TakeExamActivity", "Document data: " + document.getData());
-
-                            Question question = new Question();
-                            question.setId(document.getId());
-
-                            // Load question type
-                            String questionType = document.getString("type");
-                            if (questionType == null) {
-                                questionType = document.getString("questionType");
-                            }
-                            question.setQuestionType(questionType);
-
-                            // Try different possible field names for question text
-                            String questionText = document.getString("questionText");
-                            if (questionText == null) {
-                                questionText = document.getString("question");
-                            }
-                            if (questionText == null) {
-                                questionText = document.getString("text");
-                            }
-                            question.setQuestionText(questionText);
-
-                            // Handle options - could be individual fields or a list
-                            List<String> optionsList = new ArrayList<>();
-                            String optionA = document.getString("optionA");
-                            String optionB = document.getString("optionB");
-                            String optionC = document.getString("optionC");
-                            String optionD = document.getString("optionD");
-
-                            // Also try alternative field names
-                            if (optionA == null)
-                                optionA = document.getString("choiceA");
-                            if (optionB == null)
-                                optionB = document.getString("choiceB");
-                            if (optionC == null)
-                                optionC = document.getString("choiceC");
-                            if (optionD == null)
-                                optionD = document.getString("choiceD");
-
-                            if (optionA != null)
-                                optionsList.add(optionA);
-                            if (optionB != null)
-                                optionsList.add(optionB);
-                            if (optionC != null)
-                                optionsList.add(optionC);
-                            if (optionD != null)
-                                optionsList.add(optionD);
-
-                            // Try to get options as a list/array if individual fields don't exist
-                            if (optionsList.isEmpty()) {
-                                List<String> optionsFromList = (List<String>) document.get("options");
-                                if (optionsFromList != null) {
-                                    optionsList.addAll(optionsFromList);
-                                }
-                            }
-
-                            question.setOptions(optionsList);
-
-                            // For identification questions, we'll collect all correct answers later
-                            // and use them as options for all ID questions
-
-                            // Handle correctAnswer field - could be Boolean or String
-                            Object correctAnswerObj = document.get("correctAnswer");
-                            if (correctAnswerObj instanceof Boolean) {
-                                question.setCorrectAnswer(((Boolean) correctAnswerObj) ? "true" : "false");
-                            } else if (correctAnswerObj instanceof String) {
-                                question.setCorrectAnswer((String) correctAnswerObj);
-                            } else {
-                                question.setCorrectAnswer(""); // Default empty
-                            }
+                            // Field aliases are resolved once per collection layout
+                            Question question = QUESTION_MAPPER.map(document);
 
                             questions.add(question);
                             Log.d("TakeExamActivity", "Loaded question: " + question.getQuestionText());
@@ -8,24 +8,26 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 import com.activity.studentapp.R;
 import com.activity.studentapp.model.Activity;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
 
 public class ActivityAdapter extends RecyclerView.Adapter<ActivityAdapter.ActivityViewHolder> {
 
-    private List<Activity> activities;
+    // The owner mutates the list itself and reports item-level changes
+    private final List<Activity> activities;
     private OnActivityClickListener listener;
 
     public interface OnActivityClickListener {
         void onActivityClick(Activity activity);
     }
 
+    /**
+     * Adapter over a list its owner keeps up to date and reports changes for,
+     * e.g. through an {@link androidx.recyclerview.widget.AdapterListUpdateCallback}.
+     */
     public ActivityAdapter(List<Activity> activities, OnActivityClickListener listener) {
         this.activities = activities;
         this.listener = listener;
+        setHasStableIds(true);
     }
 
     @NonNull
@@ -33,13 +35,21 @@ public class ActivityAdapter extends RecyclerView.Adapter<ActivityAdapter.Activi
     public ActivityViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.item_activity, parent, false);
-        return new ActivityViewHolder(view);
+        ActivityViewHolder holder = new ActivityViewHolder(view);
+        // Looked up on click, so the listener gets the current item even if the row wasn't rebound
+        view.setOnClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (listener != null && position != RecyclerView.NO_POSITION) {
+                listener.onActivityClick(activities.get(position));
+            }
+        });
+        return holder;
     }
 
     @Override
     public void onBindViewHolder(@NonNull ActivityViewHolder holder, int position) {
         Activity activity = activities.get(position);
-        holder.bind(activity, listener);
+        holder.bind(activity);
     }
 
     @Override
@@ -47,9 +57,9 @@ public class ActivityAdapter extends RecyclerView.Adapter<ActivityAdapter.Activi
         return activities != null ? activities.size() : 0;
     }
 
-    public void updateActivities(List<Activity> newActivities) {
-        this.activities = new ArrayList<>(newActivities);
-        notifyDataSetChanged();
+    @Override
+    public long getItemId(int position) {
+        return StableIds.of(activities.get(position).getId());
     }
 
     static class ActivityViewHolder extends RecyclerView.ViewHolder {
@@ -62,17 +72,11 @@ public class ActivityAdapter extends RecyclerView.Adapter<ActivityAdapter.Activi
             tvInstructorName = itemView.findViewById(R.id.tvInstructorName);
         }
 
-        public void bind(Activity activity, OnActivityClickListener listener) {
+        public void bind(Activity activity) {
             tvActivityTitle.setText(activity.getTitle() != null ? activity.getTitle() : "Untitled Activity");
             tvInstructorName
                     .setText(activity.getInstructorName() != null ? "Instructor: " + activity.getInstructorName()
                             : "Unknown Instructor");
-
-            itemView.setOnClickListener(v -> {
-                if (listener != null) {
-                    listener.onActivityClick(activity);
-                }
-            });
         }
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,5 @@
 package com.activity.studentapp.adapter;
 
-import android.net.Uri;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -11,20 +10,22 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.activity.studentapp.R;
+import com.activity.studentapp.attachment.Attachment;
 
 import java.util.List;
 
+// Binds attachments whose metadata was resolved when picked, so binding never queries the provider
 public class FileAdapter extends RecyclerView.Adapter<FileAdapter.FileViewHolder> {
 
-    private List<Uri> fileUris;
+    private List<Attachment> files;
     private OnFileRemoveListener listener;
 
     public interface OnFileRemoveListener {
         void onFileRemove(int position);
     }
 
-    public FileAdapter(List<Uri> fileUris, OnFileRemoveListener listener) {
-        this.fileUris = fileUris;
+    public FileAdapter(List<Attachment> files, OnFileRemoveListener listener) {
+        this.files = files;
         this.listener = listener;
     }
 
@@ -37,9 +38,7 @@ public class FileAdapter extends RecyclerView.Adapter<FileAdapter.FileViewHolder
 
     @Override
     public void onBindViewHolder(@NonNull FileViewHolder holder, int position) {
-        Uri uri = fileUris.get(position);
-        String fileName = getFileNameFromUri(uri);
-        holder.fileNameTextView.setText(fileName);
+        holder.fileNameTextView.setText(files.get(position).getName());
 
         holder.removeFileButton.setOnClickListener(v -> {
             if (listener != null) {
@@ -50,18 +49,7 @@ public class FileAdapter extends RecyclerView.Adapter<FileAdapter.FileViewHolder
 
     @Override
     public int getItemCount() {
-        return fileUris.size();
-    }
-
-    private String getFileNameFromUri(Uri uri) {
-        String path = uri.getPath();
-        if (path != null) {
-            int lastSlash = path.lastIndexOf('/');
-            if (lastSlash != -1) {
-                return path.substring(lastSlash + 1);
-            }
-        }
-        return "Unknown file";
+        return files.size();
     }
 
     public static class FileViewHolder extends RecyclerView.ViewHolder {
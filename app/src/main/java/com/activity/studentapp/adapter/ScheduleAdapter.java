@@ -6,24 +6,47 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.activity.studentapp.R;
 import com.activity.studentapp.model.Schedule;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 public class ScheduleAdapter extends RecyclerView.Adapter<ScheduleAdapter.ScheduleViewHolder> {
 
-    private List<Schedule> schedules;
+    static final DiffUtil.ItemCallback<Schedule> DIFF_CALLBACK = new DiffUtil.ItemCallback<Schedule>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Schedule oldItem, @NonNull Schedule newItem) {
+            return key(oldItem).equals(key(newItem));
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Schedule oldItem, @NonNull Schedule newItem) {
+            return Objects.equals(oldItem.getSubjectName(), newItem.getSubjectName())
+                    && Objects.equals(oldItem.getInstructorName(), newItem.getInstructorName());
+        }
+    };
+
+    private final AsyncListDiffer<Schedule> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
 
     public ScheduleAdapter(List<Schedule> schedules) {
-        this.schedules = schedules;
+        setHasStableIds(true);
+        updateSchedules(schedules);
     }
 
     public void updateSchedules(List<Schedule> schedules) {
-        this.schedules = schedules;
-        notifyDataSetChanged();
+        differ.submitList(schedules != null ? new ArrayList<>(schedules) : null);
+    }
+
+    // Schedule entries carry no document ID; a subject meets a section once per day and time slot
+    private static String key(Schedule schedule) {
+        return schedule.getSubjectId() + "|" + schedule.getSectionId() + "|" + schedule.getDay() + "|"
+                + schedule.getTimeFrame();
     }
 
     @NonNull
@@ -35,7 +58,7 @@ public class ScheduleAdapter extends RecyclerView.Adapter<ScheduleAdapter.Schedu
 
     @Override
     public void onBindViewHolder(@NonNull ScheduleViewHolder holder, int position) {
-        Schedule schedule = schedules.get(position);
+        Schedule schedule = differ.getCurrentList().get(position);
         holder.tvSubjectName.setText(schedule.getSubjectName());
         holder.tvInstructor.setText("Instructor: " + schedule.getInstructorName());
         holder.tvTime.setText("Time: " + schedule.getTimeFrame());
@@ -43,7 +66,12 @@ public class ScheduleAdapter extends RecyclerView.Adapter<ScheduleAdapter.Schedu
 
     @Override
     public int getItemCount() {
-        return schedules != null ? schedules.size() : 0;
+        return differ.getCurrentList().size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return StableIds.of(key(differ.getCurrentList().get(position)));
     }
 
     static class ScheduleViewHolder extends RecyclerView.ViewHolder {
@@ -0,0 +1,27 @@
+package com.activity.studentapp.adapter;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Turns document keys into RecyclerView stable IDs.
+ */
+final class StableIds {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private StableIds() {
+    }
+
+    // 64-bit FNV-1a, so unrelated keys practically never collide
+    static long of(String key) {
+        if (key == null) {
+            return RecyclerView.NO_ID;
+        }
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+}
@@ -7,6 +7,8 @@ import android.widget.TextView;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.activity.studentapp.R;
@@ -14,9 +16,27 @@ import com.activity.studentapp.model.Subject;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 public class SubjectAdapter extends RecyclerView.Adapter<SubjectAdapter.SubjectViewHolder> {
-    private List<Subject> subjects;
+    static final DiffUtil.ItemCallback<Subject> DIFF_CALLBACK = new DiffUtil.ItemCallback<Subject>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Subject oldItem, @NonNull Subject newItem) {
+            return Objects.equals(oldItem.getId(), newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Subject oldItem, @NonNull Subject newItem) {
+            // Only what the row shows
+            return Objects.equals(oldItem.getName(), newItem.getName())
+                    && Objects.equals(oldItem.getSchedule(), newItem.getSchedule())
+                    && Objects.equals(oldItem.getInstructor(), newItem.getInstructor())
+                    && Objects.equals(oldItem.getRoom(), newItem.getRoom());
+        }
+    };
+
+    // Diffs each submitted list off the main thread and dispatches item-level updates
+    private final AsyncListDiffer<Subject> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
     private OnSubjectClickListener listener;
 
     public interface OnSubjectClickListener {
@@ -24,7 +44,8 @@ public class SubjectAdapter extends RecyclerView.Adapter<SubjectAdapter.SubjectV
     }
 
     public SubjectAdapter(List<Subject> subjects) {
-        this.subjects = subjects;
+        setHasStableIds(true);
+        updateSubjects(subjects);
     }
 
     public void setOnSubjectClickListener(OnSubjectClickListener listener) {
@@ -36,23 +57,39 @@ public class SubjectAdapter extends RecyclerView.Adapter<SubjectAdapter.SubjectV
     public SubjectViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.item_subject, parent, false);
-        return new SubjectViewHolder(view);
+        SubjectViewHolder holder = new SubjectViewHolder(view);
+        // Looked up on click: rows are only rebound when a shown field changes, not the rest of the subject
+        view.setOnClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (listener != null && position != RecyclerView.NO_POSITION) {
+                listener.onSubjectClick(differ.getCurrentList().get(position));
+            }
+        });
+        return holder;
     }
 
     @Override
     public void onBindViewHolder(@NonNull SubjectViewHolder holder, int position) {
-        Subject subject = subjects.get(position);
-        holder.bind(subject, listener);
+        Subject subject = differ.getCurrentList().get(position);
+        holder.bind(subject);
     }
 
     @Override
     public int getItemCount() {
-        return subjects != null ? subjects.size() : 0;
+        return differ.getCurrentList().size();
     }
 
+    @Override
+    public long getItemId(int position) {
+        return StableIds.of(differ.getCurrentList().get(position).getId());
+    }
+
+    /**
+     * Submits a new list. Items are compared by value, so pass new Subject
+     * instances rather than mutating ones already submitted.
+     */
     public void updateSubjects(List<Subject> newSubjects) {
-        this.subjects = new ArrayList<>(newSubjects);
-        notifyDataSetChanged();
+        differ.submitList(newSubjects != null ? new ArrayList<>(newSubjects) : null);
     }
 
     static class SubjectViewHolder extends RecyclerView.ViewHolder {
@@ -69,19 +106,12 @@ public class SubjectAdapter extends RecyclerView.Adapter<SubjectAdapter.SubjectV
             roomText = itemView.findViewById(R.id.roomText);
         }
 
-        public void bind(Subject subject, OnSubjectClickListener listener) {
+        public void bind(Subject subject) {
             Log.d("SubjectAdapter", "Binding subject: " + subject.getName());
             subjectNameText.setText(subject.getName() != null ? subject.getName() : "No Name");
             subjectScheduleText.setText(subject.getSchedule() != null ? subject.getSchedule() : "No Schedule");
             instructorNameText.setText(subject.getInstructor() != null ? subject.getInstructor() : "No Instructor");
             roomText.setText(subject.getRoom() != null ? subject.getRoom() : "No Room");
-
-            // Set click listener for the entire item
-            itemView.setOnClickListener(v -> {
-                if (listener != null) {
-                    listener.onSubjectClick(subject);
-                }
-            });
         }
     }
 }
@@ -0,0 +1,66 @@
+package com.activity.studentapp.attachment;
+
+import android.net.Uri;
+
+/**
+ * A file picked for submission, with the metadata {@link AttachmentResolver}
+ * looked up once when it was picked.
+ */
+public final class Attachment {
+    // Largest file a student may attach
+    public static final long MAX_SIZE_BYTES = 10 * 1024 * 1024;
+
+    private final Uri uri;
+    private final String name;
+    private final long size;
+    private final String contentType;
+    private final String sha256;
+
+    /**
+     * A file whose metadata is not known up front; it is looked up when the file is uploaded.
+     */
+    public Attachment(Uri uri, String name) {
+        this(uri, name, -1, null, null);
+    }
+
+    public Attachment(Uri uri, String name, long size, String contentType, String sha256) {
+        this.uri = uri;
+        this.name = name;
+        this.size = size;
+        this.contentType = contentType;
+        this.sha256 = sha256;
+    }
+
+    public Uri getUri() {
+        return uri;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Size in bytes, or -1 if unknown.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * MIME type, or null if unknown.
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * SHA-256 of the content as lowercase hex, or null if it wasn't computed.
+     */
+    public String getSha256() {
+        return sha256;
+    }
+
+    public boolean isWithinSizeLimit() {
+        return size > 0 && size <= MAX_SIZE_BYTES;
+    }
+}
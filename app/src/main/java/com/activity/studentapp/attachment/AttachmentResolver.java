@@ -0,0 +1,120 @@
+package com.activity.studentapp.attachment;
+
+import android.content.ContentResolver;
+import android.content.res.AssetFileDescriptor;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.OpenableColumns;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Looks up the metadata of picked files once, off the main thread.
+ *
+ * Name and size come from a single OpenableColumns query per file; only
+ * providers that don't report a size are asked for a file descriptor. Files
+ * within {@link Attachment#MAX_SIZE_BYTES} are also hashed, so the upload
+ * doesn't read them again just to find out whether their blob exists. The
+ * resulting {@link Attachment}s carry everything the attachment list, the
+ * size check and the upload need.
+ */
+public class AttachmentResolver {
+    private static final String TAG = "AttachmentResolver";
+
+    private static final ExecutorService RESOLVE_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    public interface Callback {
+        /**
+         * @param attachments one per picked URI, in order
+         */
+        void onResolved(List<Attachment> attachments);
+    }
+
+    private final ContentResolver contentResolver;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public AttachmentResolver(ContentResolver contentResolver) {
+        this.contentResolver = contentResolver;
+    }
+
+    /**
+     * Resolves the files in the background; the callback runs on the main thread.
+     */
+    public void resolve(List<Uri> uris, Callback callback) {
+        List<Uri> pending = new ArrayList<>(uris);
+        RESOLVE_EXECUTOR.execute(() -> {
+            List<Attachment> attachments = new ArrayList<>(pending.size());
+            for (Uri uri : pending) {
+                attachments.add(resolve(uri));
+            }
+            mainHandler.post(() -> callback.onResolved(attachments));
+        });
+    }
+
+    // Blocking; runs on RESOLVE_EXECUTOR
+    Attachment resolve(Uri uri) {
+        String name = null;
+        long size = -1;
+        if (ContentResolver.SCHEME_CONTENT.equals(uri.getScheme())) {
+            try (Cursor cursor = contentResolver.query(uri,
+                    new String[]{OpenableColumns.DISPLAY_NAME, OpenableColumns.SIZE}, null, null, null)) {
+                if (cursor != null && cursor.moveToFirst()) {
+                    int nameIndex = cursor.getColumnIndex(OpenableColumns.DISPLAY_NAME);
+                    if (nameIndex >= 0) {
+                        name = cursor.getString(nameIndex);
+                    }
+                    int sizeIndex = cursor.getColumnIndex(OpenableColumns.SIZE);
+                    if (sizeIndex >= 0 && !cursor.isNull(sizeIndex)) {
+                        size = cursor.getLong(sizeIndex);
+                    }
+                }
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Could not query " + uri, e);
+            }
+        }
+        if (name == null) {
+            name = lastSegment(uri);
+        }
+        if (size < 0) {
+            size = statSize(uri);
+        }
+
+        String contentType = contentResolver.getType(uri);
+        String sha256 = null;
+        if (size > 0 && size <= Attachment.MAX_SIZE_BYTES) {
+            try {
+                sha256 = ContentHash.of(contentResolver, uri);
+            } catch (IOException | RuntimeException e) {
+                // The upload hashes the file itself
+                Log.w(TAG, "Could not hash " + uri, e);
+            }
+        }
+        return new Attachment(uri, name, size,
+                contentType != null ? contentType : "application/octet-stream", sha256);
+    }
+
+    // Providers without a SIZE column
+    private long statSize(Uri uri) {
+        try (AssetFileDescriptor descriptor = contentResolver.openAssetFileDescriptor(uri, "r")) {
+            return descriptor != null ? descriptor.getLength() : -1;
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static String lastSegment(Uri uri) {
+        String path = uri.getPath();
+        if (path == null) {
+            return "Unknown file";
+        }
+        int cut = path.lastIndexOf('/');
+        return cut != -1 ? path.substring(cut + 1) : path;
+    }
+}
@@ -0,0 +1,403 @@
+package com.activity.studentapp.attachment;
+
+import android.content.ContentResolver;
+import android.content.res.AssetFileDescriptor;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Shrinks attachments before they are uploaded.
+ *
+ * Photos larger than the configured resolution are downscaled and re-encoded
+ * at the configured quality; they stay ordinary images, so nothing has to be
+ * undone when reading them. Formats that compress well, such as plain text
+ * or legacy Office documents, are deflated instead and stored with the
+ * {@link #CODEC_DEFLATE} codec, which {@link #decode} reverses. A transform
+ * that doesn't make the file smaller is dropped and the file goes up as picked.
+ *
+ * Images also get a small JPEG thumbnail, at most {@link #THUMBNAIL_SIZE}
+ * pixels on the longest side, which is stored inline in the file document so
+ * previews can be shown without fetching the image itself.
+ *
+ * Transforms block and must run off the main thread. Their output is written
+ * to temporary files that the caller deletes with {@link Transformed#discard()}.
+ */
+public class AttachmentTransformer {
+    private static final String TAG = "AttachmentTransformer";
+
+    public static final int DEFAULT_MAX_IMAGE_DIMENSION = 2048;
+    public static final int DEFAULT_IMAGE_QUALITY = 85;
+
+    public static final int THUMBNAIL_SIZE = 320;
+    // Thumbnails live in the file document, which Firestore caps at 1 MiB
+    static final int MAX_THUMBNAIL_BYTES = 48 * 1024;
+    private static final int[] THUMBNAIL_QUALITIES = {75, 60, 45};
+
+    static final String CODEC_IDENTITY = "identity";
+    static final String CODEC_DEFLATE = "deflate";
+
+    // Deflated output must save at least this fraction of the original to be kept
+    private static final double MIN_DEFLATE_SAVING = 0.1;
+
+    private static final Set<String> COMPRESSIBLE_TYPES = new HashSet<>(Arrays.asList(
+            "application/json",
+            "application/xml",
+            "application/rtf",
+            "application/msword",
+            "application/vnd.ms-excel",
+            "application/vnd.ms-powerpoint",
+            "application/x-tex",
+            "image/bmp",
+            "image/svg+xml"));
+
+    /**
+     * An attachment ready for upload: either the picked file itself or a transformed copy.
+     */
+    static final class Transformed {
+        final Uri uri;
+        final String codec;
+        // Size of the content once the codec is reversed, or -1 if unknown
+        final long size;
+        // SHA-256 of the bytes to upload when it was computed while writing them, else null
+        final String hash;
+        // JPEG preview for images, else null
+        final byte[] thumbnail;
+        private final File tempFile;
+
+        Transformed(Uri uri, String codec, long size, String hash, byte[] thumbnail, File tempFile) {
+            this.uri = uri;
+            this.codec = codec;
+            this.size = size;
+            this.hash = hash;
+            this.thumbnail = thumbnail;
+            this.tempFile = tempFile;
+        }
+
+        void discard() {
+            if (tempFile != null && !tempFile.delete()) {
+                Log.w(TAG, "Could not delete " + tempFile);
+            }
+        }
+    }
+
+    private final ContentResolver contentResolver;
+    private final File workDir;
+    private final int maxImageDimension;
+    private final int imageQuality;
+
+    public AttachmentTransformer(ContentResolver contentResolver, File cacheDir) {
+        this(contentResolver, cacheDir, DEFAULT_MAX_IMAGE_DIMENSION, DEFAULT_IMAGE_QUALITY);
+    }
+
+    /**
+     * @param maxImageDimension longest side, in pixels, that uploaded images are scaled down to
+     * @param imageQuality      JPEG/WebP quality, 0-100, used when re-encoding images
+     */
+    public AttachmentTransformer(ContentResolver contentResolver, File cacheDir, int maxImageDimension,
+            int imageQuality) {
+        if (maxImageDimension < 1 || imageQuality < 0 || imageQuality > 100) {
+            throw new IllegalArgumentException("Invalid image limits");
+        }
+        this.contentResolver = contentResolver;
+        this.workDir = new File(cacheDir, "uploads");
+        this.maxImageDimension = maxImageDimension;
+        this.imageQuality = imageQuality;
+    }
+
+    /**
+     * Undoes the codec a file was stored with.
+     */
+    static InputStream decode(String codec, InputStream stored) throws IOException {
+        if (codec == null || CODEC_IDENTITY.equals(codec)) {
+            return stored;
+        }
+        if (CODEC_DEFLATE.equals(codec)) {
+            return new InflaterInputStream(stored);
+        }
+        throw new IOException("Unknown codec " + codec);
+    }
+
+    /**
+     * Returns the smallest form of the attachment to upload. Falls back to the picked
+     * file if transforming it fails. Time spent and decoded bitmaps are recorded in metrics.
+     */
+    Transformed transform(Uri uri, String contentType, TransferMetrics.Session metrics) {
+        long start = System.nanoTime();
+        try {
+            return shrink(uri, contentType, metrics);
+        } finally {
+            metrics.recordEncode(System.nanoTime() - start);
+        }
+    }
+
+    private Transformed shrink(Uri uri, String contentType, TransferMetrics.Session metrics) {
+        long originalSize = sizeOf(uri);
+        byte[] thumbnail = thumbnail(uri, contentType, metrics);
+        try {
+            Transformed result = null;
+            Bitmap.CompressFormat format = imageFormat(contentType);
+            if (format != null) {
+                result = downscale(uri, format, originalSize, thumbnail, metrics);
+            } else if (isCompressible(contentType)) {
+                result = deflate(uri, originalSize);
+            }
+            if (result != null) {
+                Log.d(TAG, "Transformed " + uri + " (" + contentType + ") from " + originalSize + " to "
+                        + result.tempFile.length() + " bytes with " + result.codec);
+                return result;
+            }
+        } catch (IOException | RuntimeException | OutOfMemoryError e) {
+            Log.w(TAG, "Uploading " + uri + " untransformed", e);
+        }
+        return new Transformed(uri, CODEC_IDENTITY, originalSize, null, thumbnail, null);
+    }
+
+    /**
+     * Small JPEG preview of an image, or null for other files and images that can't be decoded.
+     */
+    private byte[] thumbnail(Uri uri, String contentType, TransferMetrics.Session metrics) {
+        if (contentType == null || !contentType.startsWith("image/")) {
+            return null;
+        }
+        try {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            try (InputStream in = contentResolver.openInputStream(uri)) {
+                BitmapFactory.decodeStream(in, null, options);
+            }
+            int longest = Math.max(options.outWidth, options.outHeight);
+            if (longest <= 0) {
+                return null;
+            }
+            options.inJustDecodeBounds = false;
+            options.inSampleSize = 1;
+            while (longest / (options.inSampleSize * 2) >= THUMBNAIL_SIZE) {
+                options.inSampleSize *= 2;
+            }
+            Bitmap bitmap;
+            try (InputStream in = contentResolver.openInputStream(uri)) {
+                bitmap = BitmapFactory.decodeStream(in, null, options);
+            }
+            if (bitmap == null) {
+                return null;
+            }
+            metrics.recordBuffer(bitmap.getAllocationByteCount());
+
+            Matrix matrix = new Matrix();
+            int bitmapLongest = Math.max(bitmap.getWidth(), bitmap.getHeight());
+            if (bitmapLongest > THUMBNAIL_SIZE) {
+                float scale = (float) THUMBNAIL_SIZE / bitmapLongest;
+                matrix.postScale(scale, scale);
+            }
+            matrix.postRotate(rotationOf(uri));
+            Bitmap scaled = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(), matrix, true);
+            if (scaled != bitmap) {
+                bitmap.recycle();
+            }
+            // JPEG has no alpha, so flatten transparent images onto white rather than black
+            Bitmap opaque = Bitmap.createBitmap(scaled.getWidth(), scaled.getHeight(), Bitmap.Config.RGB_565);
+            Canvas canvas = new Canvas(opaque);
+            canvas.drawColor(Color.WHITE);
+            canvas.drawBitmap(scaled, 0, 0, null);
+            scaled.recycle();
+
+            try {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                for (int quality : THUMBNAIL_QUALITIES) {
+                    out.reset();
+                    opaque.compress(Bitmap.CompressFormat.JPEG, quality, out);
+                    if (out.size() <= MAX_THUMBNAIL_BYTES) {
+                        return out.toByteArray();
+                    }
+                }
+                return null;
+            } finally {
+                opaque.recycle();
+            }
+        } catch (IOException | RuntimeException | OutOfMemoryError e) {
+            Log.w(TAG, "No thumbnail for " + uri, e);
+            return null;
+        }
+    }
+
+    private Transformed downscale(Uri uri, Bitmap.CompressFormat format, long originalSize, byte[] thumbnail,
+            TransferMetrics.Session metrics) throws IOException {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        try (InputStream in = contentResolver.openInputStream(uri)) {
+            BitmapFactory.decodeStream(in, null, options);
+        }
+        int longest = Math.max(options.outWidth, options.outHeight);
+        if (longest <= 0) {
+            return null;
+        }
+        boolean resize = longest > maxImageDimension;
+        if (!resize && format == Bitmap.CompressFormat.PNG) {
+            // Re-encoding a lossless image at full size can't make it meaningfully smaller
+            return null;
+        }
+
+        // Sample down by powers of two while staying at or above the target, then scale exactly
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = 1;
+        while (longest / (options.inSampleSize * 2) >= maxImageDimension) {
+            options.inSampleSize *= 2;
+        }
+        Bitmap bitmap;
+        try (InputStream in = contentResolver.openInputStream(uri)) {
+            bitmap = BitmapFactory.decodeStream(in, null, options);
+        }
+        if (bitmap == null) {
+            return null;
+        }
+        metrics.recordBuffer(bitmap.getAllocationByteCount());
+
+        try {
+            Matrix matrix = new Matrix();
+            int bitmapLongest = Math.max(bitmap.getWidth(), bitmap.getHeight());
+            if (bitmapLongest > maxImageDimension) {
+                float scale = (float) maxImageDimension / bitmapLongest;
+                matrix.postScale(scale, scale);
+            }
+            // Re-encoding drops EXIF, so bake the orientation into the pixels
+            matrix.postRotate(rotationOf(uri));
+            if (!matrix.isIdentity()) {
+                Bitmap transformed = Bitmap.createBitmap(bitmap, 0, 0, bitmap.getWidth(), bitmap.getHeight(),
+                        matrix, true);
+                if (transformed != bitmap) {
+                    bitmap.recycle();
+                    bitmap = transformed;
+                }
+            }
+
+            File out = newTempFile();
+            MessageDigest digest = ContentHash.newDigest();
+            try (OutputStream stream = new DigestOutputStream(new FileOutputStream(out), digest)) {
+                if (!bitmap.compress(format, imageQuality, stream)) {
+                    throw new IOException("Could not encode image");
+                }
+            }
+            if (originalSize > 0 && out.length() >= originalSize) {
+                deleteQuietly(out);
+                return null;
+            }
+            return new Transformed(Uri.fromFile(out), CODEC_IDENTITY, out.length(),
+                    ContentHash.hex(digest.digest()), thumbnail, out);
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    private Transformed deflate(Uri uri, long originalSize) throws IOException {
+        File out = newTempFile();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        MessageDigest digest = ContentHash.newDigest();
+        long read = 0;
+        try (InputStream in = contentResolver.openInputStream(uri);
+                DeflaterOutputStream stream = new DeflaterOutputStream(
+                        new DigestOutputStream(new FileOutputStream(out), digest), deflater)) {
+            if (in == null) {
+                throw new IOException("Could not open " + uri);
+            }
+            byte[] buffer = new byte[64 * 1024];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                stream.write(buffer, 0, count);
+                read += count;
+            }
+        } catch (IOException e) {
+            deleteQuietly(out);
+            throw e;
+        } finally {
+            deflater.end();
+        }
+        if (out.length() > read * (1 - MIN_DEFLATE_SAVING)) {
+            deleteQuietly(out);
+            return null;
+        }
+        return new Transformed(Uri.fromFile(out), CODEC_DEFLATE, read, ContentHash.hex(digest.digest()), null,
+                out);
+    }
+
+    private int rotationOf(Uri uri) {
+        try (InputStream in = contentResolver.openInputStream(uri)) {
+            if (in == null) {
+                return 0;
+            }
+            switch (new ExifInterface(in).getAttributeInt(ExifInterface.TAG_ORIENTATION,
+                    ExifInterface.ORIENTATION_NORMAL)) {
+                case ExifInterface.ORIENTATION_ROTATE_90:
+                    return 90;
+                case ExifInterface.ORIENTATION_ROTATE_180:
+                    return 180;
+                case ExifInterface.ORIENTATION_ROTATE_270:
+                    return 270;
+                default:
+                    return 0;
+            }
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private long sizeOf(Uri uri) {
+        try (AssetFileDescriptor descriptor = contentResolver.openAssetFileDescriptor(uri, "r")) {
+            return descriptor != null ? descriptor.getLength() : -1;
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private File newTempFile() throws IOException {
+        if (!workDir.isDirectory() && !workDir.mkdirs()) {
+            throw new IOException("Could not create " + workDir);
+        }
+        return File.createTempFile("upload", null, workDir);
+    }
+
+    @SuppressWarnings("deprecation")
+    private static Bitmap.CompressFormat imageFormat(String contentType) {
+        if ("image/jpeg".equals(contentType)) {
+            return Bitmap.CompressFormat.JPEG;
+        }
+        if ("image/png".equals(contentType)) {
+            return Bitmap.CompressFormat.PNG;
+        }
+        if ("image/webp".equals(contentType)) {
+            return Bitmap.CompressFormat.WEBP;
+        }
+        // GIFs may be animated and everything else can't be re-encoded by Bitmap
+        return null;
+    }
+
+    private static boolean isCompressible(String contentType) {
+        return contentType != null && (contentType.startsWith("text/") || COMPRESSIBLE_TYPES.contains(contentType));
+    }
+
+    private static void deleteQuietly(File file) {
+        if (!file.delete()) {
+            Log.w(TAG, "Could not delete " + file);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.activity.studentapp.attachment;
+
+import android.util.Base64;
+import android.util.Log;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Reads files of older submissions, stored as base64 chunk documents under
+ * submissions/{id}/files/{fileId}/chunks.
+ *
+ * A file's chunks collection is fetched with a single query. Chunks are placed
+ * by their index into one preallocated buffer and decoded once; those uploads
+ * split the base64 text at arbitrary positions, so chunks cannot be decoded on
+ * their own. Missing chunks are reported instead of being skipped.
+ */
+class ChunkReader {
+    private static final String TAG = "ChunkReader";
+
+    interface Callback {
+        /**
+         * @param content decoded bytes, or null if chunks are missing or corrupt
+         * @param missingChunks indices of chunks that could not be loaded
+         */
+        void onRead(byte[] content, List<Integer> missingChunks);
+    }
+
+    /**
+     * Whether the file document describes a chunked file.
+     */
+    static boolean isChunked(DocumentSnapshot fileDoc) {
+        Long chunkCount = fileDoc.getLong("chunkCount");
+        return chunkCount != null && chunkCount > 0;
+    }
+
+    /**
+     * Loads a chunked file; the callback runs on the given executor.
+     */
+    void readFile(SubmittedFile file, Executor executor, Callback callback) {
+        String name = file.getName();
+        int chunkCount = file.getChunkCount();
+        TransferMetrics.Session metrics = TransferMetrics.getInstance().session(TransferMetrics.READ,
+                file.submissionId());
+        long start = System.nanoTime();
+
+        file.reference.collection("chunks").get()
+                .addOnSuccessListener(executor, chunks -> {
+                    long end = System.nanoTime();
+                    assemble(name, chunkCount, chunks, metrics, start, end, callback);
+                })
+                .addOnFailureListener(executor, e -> {
+                    Log.e(TAG, "Error loading chunks for file " + name, e);
+                    callback.onRead(null, allIndices(chunkCount));
+                });
+    }
+
+    private static void assemble(String name, int chunkCount, QuerySnapshot chunks, TransferMetrics.Session metrics,
+            long start, long end, Callback callback) {
+        String[] parts = new String[chunkCount];
+        for (DocumentSnapshot chunkDoc : chunks.getDocuments()) {
+            int index = chunkIndex(chunkDoc);
+            if (index >= 0 && index < chunkCount) {
+                parts[index] = chunkDoc.getString("data");
+            }
+        }
+
+        List<Integer> missing = new ArrayList<>();
+        int totalLength = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            if (parts[i] == null) {
+                missing.add(i);
+            } else {
+                totalLength += parts[i].length();
+            }
+        }
+        metrics.recordTransfer(totalLength, start, end);
+        if (!missing.isEmpty()) {
+            Log.w(TAG, "File " + name + " is missing chunks " + missing);
+            callback.onRead(null, missing);
+            return;
+        }
+
+        long decodeStart = System.nanoTime();
+        // Base64 is ASCII, so each char fits one byte of the preallocated buffer
+        byte[] base64 = new byte[totalLength];
+        int offset = 0;
+        for (String part : parts) {
+            for (int i = 0; i < part.length(); i++) {
+                base64[offset++] = (byte) part.charAt(i);
+            }
+        }
+
+        try {
+            byte[] content = Base64.decode(base64, 0, totalLength, Base64.DEFAULT);
+            metrics.recordDecode(System.nanoTime() - decodeStart);
+            metrics.recordBuffer((long) totalLength + content.length);
+            Log.d(TAG, "Reassembled " + chunkCount + " chunks into " + content.length + " bytes for file " + name);
+            callback.onRead(content, Collections.emptyList());
+        } catch (IllegalArgumentException e) {
+            Log.e(TAG, "Corrupt base64 for file " + name, e);
+            callback.onRead(null, Collections.emptyList());
+        }
+    }
+
+    // Chunk documents carry their index; fall back to the chunk_N document ID
+    private static int chunkIndex(DocumentSnapshot chunkDoc) {
+        Long index = chunkDoc.getLong("index");
+        if (index != null) {
+            return index.intValue();
+        }
+        String id = chunkDoc.getId();
+        if (id.startsWith("chunk_")) {
+            try {
+                return Integer.parseInt(id.substring("chunk_".length()));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        return -1;
+    }
+
+    private static List<Integer> allIndices(int count) {
+        List<Integer> indices = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            indices.add(i);
+        }
+        return indices;
+    }
+}
@@ -0,0 +1,71 @@
+package com.activity.studentapp.attachment;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 content hashes, as lowercase hex, used to address stored files.
+ */
+final class ContentHash {
+
+    private ContentHash() {
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Android release ships SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String of(ContentResolver contentResolver, Uri uri) throws IOException {
+        MessageDigest digest = newDigest();
+        try (InputStream in = contentResolver.openInputStream(uri)) {
+            if (in == null) {
+                throw new IOException("Could not open " + uri);
+            }
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return hex(digest.digest());
+    }
+
+    /**
+     * Reads the rest of the stream and checks that everything read through it hashes to
+     * {@code expected}. Decoders may stop short of the end of the stored bytes, so the rest
+     * still has to be read.
+     *
+     * @throws IOException if the content does not match
+     */
+    static void verify(DigestInputStream stream, String expected) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        while (stream.read(buffer) != -1) {
+            // Only the digest needs the bytes
+        }
+        String actual = hex(stream.getMessageDigest().digest());
+        if (!actual.equals(expected)) {
+            throw new IOException("Content hashes to " + actual + ", expected " + expected);
+        }
+    }
+
+    static String hex(byte[] hash) {
+        char[] digits = "0123456789abcdef".toCharArray();
+        char[] out = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            out[i * 2] = digits[(hash[i] >> 4) & 0xf];
+            out[i * 2 + 1] = digits[hash[i] & 0xf];
+        }
+        return new String(out);
+    }
+}
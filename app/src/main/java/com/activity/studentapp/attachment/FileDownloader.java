@@ -0,0 +1,313 @@
+package com.activity.studentapp.attachment;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.Context;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Environment;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.MediaStore;
+import android.util.Base64;
+import android.util.Base64OutputStream;
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StreamDownloadTask;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Saves submitted files to the public Downloads collection.
+ *
+ * Content is streamed straight into a MediaStore Downloads entry (a file in the
+ * public Downloads directory before Android 10) through a fixed-size buffer, so
+ * memory use doesn't grow with the file. Files in Firebase Storage are copied
+ * from the download stream; older chunked files are fetched one chunk document
+ * at a time, with the next one prefetched, and decoded by an incremental
+ * {@link Base64OutputStream}. Files stored with a codec are decoded on the
+ * way. The entry stays pending until it is complete and is removed if the
+ * download fails or is cancelled. Listener calls run on the main thread.
+ */
+public class FileDownloader {
+    private static final String TAG = "FileDownloader";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final ExecutorService IO_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    public interface Listener {
+        /**
+         * @param percent 0-100, or -1 while the total size is unknown
+         */
+        void onProgress(int percent);
+
+        void onSaved(Uri uri);
+
+        void onCancelled();
+
+        void onFailure(String message, Exception e);
+    }
+
+    public static final class Job {
+        private volatile boolean cancelled;
+        private volatile StreamDownloadTask task;
+
+        public void cancel() {
+            cancelled = true;
+            StreamDownloadTask current = task;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        private void checkCancelled() {
+            if (cancelled) {
+                throw new CancellationException();
+            }
+        }
+    }
+
+    private final ContentResolver contentResolver;
+    private final FirebaseStorage storage;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public FileDownloader(Context context, FirebaseStorage storage) {
+        this.contentResolver = context.getApplicationContext().getContentResolver();
+        this.storage = storage;
+    }
+
+    /**
+     * Starts saving the file to Downloads; jobs run one at a time in the background.
+     */
+    public Job download(SubmittedFile file, Listener listener) {
+        Job job = new Job();
+        IO_EXECUTOR.execute(() -> run(job, file, listener));
+        return job;
+    }
+
+    // Runs on IO_EXECUTOR
+    private void run(Job job, SubmittedFile file, Listener listener) {
+        Target target = null;
+        try {
+            job.checkCancelled();
+            target = openTarget(file);
+            if (file.isChunked()) {
+                writeChunks(job, file, target.out, listener);
+            } else {
+                writeStream(job, file, target.out, listener);
+            }
+            target.out.close();
+            target.publish();
+            Uri uri = target.uri;
+            Log.d(TAG, "Saved " + file.getName() + " to " + uri);
+            mainHandler.post(() -> listener.onSaved(uri));
+        } catch (Exception e) {
+            if (target != null) {
+                target.discard();
+            }
+            if (job.isCancelled()) {
+                mainHandler.post(listener::onCancelled);
+            } else {
+                Log.e(TAG, "Error saving " + file.getName(), e);
+                mainHandler.post(() -> listener.onFailure("Error saving file", e));
+            }
+        }
+    }
+
+    private void writeStream(Job job, SubmittedFile file, OutputStream out, Listener listener) throws Exception {
+        TransferMetrics.Session metrics = TransferMetrics.getInstance().session(TransferMetrics.READ,
+                file.submissionId());
+        long start = System.nanoTime();
+        StreamDownloadTask task = storage.getReference(file.storagePath).getStream();
+        job.task = task;
+        job.checkCancelled();
+        StreamDownloadTask.TaskSnapshot snapshot = Tasks.await(task);
+        // Progress counts decoded bytes, so compare against the decoded size when it is known
+        long total = file.getSize() > 0 ? file.getSize() : snapshot.getTotalByteCount();
+        Progress progress = new Progress(listener);
+        DigestInputStream stored = new DigestInputStream(snapshot.getStream(), ContentHash.newDigest());
+        try (InputStream in = AttachmentTransformer.decode(file.getCodec(), stored)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long written = 0;
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                job.checkCancelled();
+                out.write(buffer, 0, read);
+                written += read;
+                progress.update(total > 0 ? (int) Math.min(100, written * 100 / total) : -1);
+            }
+            if (file.sha256 != null) {
+                // The partial file is discarded when this throws
+                ContentHash.verify(stored, file.sha256);
+            }
+        }
+        metrics.recordTransfer(snapshot.getTotalByteCount(), start, System.nanoTime());
+        metrics.recordBuffer(BUFFER_SIZE);
+    }
+
+    private void writeChunks(Job job, SubmittedFile file, OutputStream out, Listener listener) throws Exception {
+        int chunkCount = file.getChunkCount();
+        Progress progress = new Progress(listener);
+        TransferMetrics.Session metrics = TransferMetrics.getInstance().session(TransferMetrics.READ,
+                file.submissionId());
+        // Decodes as it goes; chunks split the base64 text anywhere, so state carries across writes
+        Base64OutputStream decoder = new Base64OutputStream(new NonClosingOutputStream(out), Base64.DEFAULT, false);
+        Task<DocumentSnapshot> next = chunk(file.reference, 0).get();
+        long nextStart = System.nanoTime();
+        for (int i = 0; i < chunkCount; i++) {
+            job.checkCancelled();
+            DocumentSnapshot chunkDoc = Tasks.await(next);
+            long start = nextStart;
+            long end = System.nanoTime();
+            if (i + 1 < chunkCount) {
+                next = chunk(file.reference, i + 1).get();
+                nextStart = System.nanoTime();
+            }
+            String data = chunkDoc.getString("data");
+            if (data == null) {
+                throw new IOException("Missing chunk " + i + " of " + file.getName());
+            }
+            metrics.recordTransfer(data.length(), start, end);
+            long decodeStart = System.nanoTime();
+            byte[] ascii = new byte[data.length()];
+            for (int c = 0; c < ascii.length; c++) {
+                ascii[c] = (byte) data.charAt(c);
+            }
+            decoder.write(ascii);
+            metrics.recordDecode(System.nanoTime() - decodeStart);
+            metrics.recordBuffer(ascii.length);
+            progress.update((i + 1) * 100 / chunkCount);
+        }
+        decoder.close();
+    }
+
+    private static DocumentReference chunk(DocumentReference fileRef, int index) {
+        return fileRef.collection("chunks").document("chunk_" + index);
+    }
+
+    private Target openTarget(SubmittedFile file) throws IOException {
+        String name = file.getName() != null ? file.getName() : file.getFileId();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            ContentValues values = new ContentValues();
+            values.put(MediaStore.Downloads.DISPLAY_NAME, name);
+            if (file.getContentType() != null) {
+                values.put(MediaStore.Downloads.MIME_TYPE, file.getContentType());
+            }
+            values.put(MediaStore.Downloads.RELATIVE_PATH, Environment.DIRECTORY_DOWNLOADS);
+            values.put(MediaStore.Downloads.IS_PENDING, 1);
+            Uri uri = contentResolver.insert(MediaStore.Downloads.EXTERNAL_CONTENT_URI, values);
+            if (uri == null) {
+                throw new IOException("Could not create download entry for " + name);
+            }
+            OutputStream out = contentResolver.openOutputStream(uri);
+            if (out == null) {
+                contentResolver.delete(uri, null, null);
+                throw new IOException("Could not open download entry for " + name);
+            }
+            return new Target(uri, null, out);
+        }
+
+        File downloadsDir = Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DOWNLOADS);
+        if (!downloadsDir.isDirectory() && !downloadsDir.mkdirs()) {
+            throw new IOException("Downloads directory unavailable");
+        }
+        File target = new File(downloadsDir, name);
+        return new Target(Uri.fromFile(target), target, new FileOutputStream(target));
+    }
+
+    private final class Target {
+        final Uri uri;
+        final File file;
+        final OutputStream out;
+
+        Target(Uri uri, File file, OutputStream out) {
+            this.uri = uri;
+            this.file = file;
+            this.out = out;
+        }
+
+        void publish() {
+            if (file == null) {
+                ContentValues values = new ContentValues();
+                values.put(MediaStore.Downloads.IS_PENDING, 0);
+                contentResolver.update(uri, values, null, null);
+            }
+        }
+
+        void discard() {
+            try {
+                out.close();
+            } catch (IOException ignored) {
+            }
+            if (file == null) {
+                contentResolver.delete(uri, null, null);
+            } else if (!file.delete()) {
+                Log.w(TAG, "Could not delete partial download " + file);
+            }
+        }
+    }
+
+    // Posts progress only when the percentage changes
+    private final class Progress {
+        private final Listener listener;
+        private int last = Integer.MIN_VALUE;
+
+        Progress(Listener listener) {
+            this.listener = listener;
+        }
+
+        void update(int percent) {
+            if (percent != last) {
+                last = percent;
+                mainHandler.post(() -> listener.onProgress(percent));
+            }
+        }
+    }
+
+    // Lets the decoder flush its final bytes on close without closing the entry early
+    private static final class NonClosingOutputStream extends OutputStream {
+        private final OutputStream out;
+
+        NonClosingOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.activity.studentapp.attachment;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import java.lang.ref.SoftReference;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Decodes image previews off the main thread, downsampled to the target size.
+ *
+ * Decoded bitmaps are kept in an LruCache keyed by file ID and target size,
+ * so scrolling back to a row shows its preview immediately. Bitmaps that have
+ * left the cache and are no longer shown are handed to later decodes through
+ * {@link BitmapFactory.Options#inBitmap}. Starting a new load for a view, or
+ * releasing it when its row is recycled, cancels the decode still pending for it.
+ *
+ * Everything except the decoding itself must be called on the main thread.
+ */
+public class ImagePreviewLoader {
+    private static final String TAG = "ImagePreviewLoader";
+
+    private static final ExecutorService DECODE_EXECUTOR = Executors.newFixedThreadPool(2);
+
+    public interface Callback {
+        void onPreview(Bitmap bitmap);
+
+        void onFailure();
+    }
+
+    private static final class Request {
+        final String key;
+        final Callback callback;
+        Future<?> future;
+        boolean cancelled;
+
+        Request(String key, Callback callback) {
+            this.key = key;
+            this.callback = callback;
+        }
+    }
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final LruCache<String, Bitmap> cache;
+    private final Set<Bitmap> cached = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Map<Bitmap, Integer> shownCounts = new IdentityHashMap<>();
+    private final Map<ImageView, Bitmap> shown = new WeakHashMap<>();
+    private final Map<ImageView, Request> pending = new WeakHashMap<>();
+    // Touched by decode threads
+    private final Set<SoftReference<Bitmap>> reusable = Collections.synchronizedSet(
+            Collections.newSetFromMap(new IdentityHashMap<>()));
+
+    public ImagePreviewLoader() {
+        // An eighth of the heap, counted in KB
+        int cacheSizeKb = (int) (Runtime.getRuntime().maxMemory() / 1024 / 8);
+        cache = new LruCache<String, Bitmap>(cacheSizeKb) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getAllocationByteCount() / 1024;
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, String key, Bitmap oldValue, Bitmap newValue) {
+                cached.remove(oldValue);
+                if (!shownCounts.containsKey(oldValue)) {
+                    offerForReuse(oldValue);
+                }
+            }
+        };
+    }
+
+    /**
+     * Shows a preview of the image bytes in the view, from cache or by decoding in the background.
+     */
+    public void load(String fileId, byte[] data, ImageView view, int reqWidth, int reqHeight, Callback callback) {
+        cancel(view);
+        String key = key(fileId, reqWidth, reqHeight);
+        Bitmap bitmap = cache.get(key);
+        if (bitmap != null) {
+            show(view, bitmap);
+            callback.onPreview(bitmap);
+            return;
+        }
+
+        Request request = new Request(key, callback);
+        pending.put(view, request);
+        request.future = DECODE_EXECUTOR.submit(() -> {
+            Bitmap decoded = decode(data, reqWidth, reqHeight);
+            mainHandler.post(() -> deliver(view, request, decoded));
+        });
+    }
+
+    /**
+     * Shows the cached preview of the file, if any, without needing its bytes.
+     *
+     * @return false if the preview still has to be loaded
+     */
+    public boolean showCached(String fileId, ImageView view, int reqWidth, int reqHeight) {
+        cancel(view);
+        Bitmap bitmap = cache.get(key(fileId, reqWidth, reqHeight));
+        if (bitmap == null) {
+            return false;
+        }
+        show(view, bitmap);
+        return true;
+    }
+
+    /**
+     * Cancels a pending load for the view, if any.
+     */
+    public void cancel(ImageView view) {
+        Request request = pending.remove(view);
+        if (request != null) {
+            request.cancelled = true;
+            request.future.cancel(false);
+        }
+    }
+
+    /**
+     * Cancels any pending load and detaches the shown preview, e.g. when the row is recycled.
+     */
+    public void release(ImageView view) {
+        cancel(view);
+        Bitmap bitmap = shown.remove(view);
+        if (bitmap != null) {
+            view.setImageDrawable(null);
+            unshow(bitmap);
+        }
+    }
+
+    public void clear() {
+        for (Request request : pending.values()) {
+            request.cancelled = true;
+            request.future.cancel(false);
+        }
+        pending.clear();
+        cache.evictAll();
+        reusable.clear();
+    }
+
+    private static String key(String fileId, int reqWidth, int reqHeight) {
+        return fileId + "@" + reqWidth + "x" + reqHeight;
+    }
+
+    private void deliver(ImageView view, Request request, Bitmap bitmap) {
+        Bitmap preview = cache.get(request.key);
+        if (preview == null && bitmap != null) {
+            // Keep the work even if the row moved on; it may scroll back
+            cached.add(bitmap);
+            cache.put(request.key, bitmap);
+            preview = bitmap;
+        } else if (bitmap != null && bitmap != preview) {
+            // Another load decoded the same preview first
+            offerForReuse(bitmap);
+        }
+        if (request.cancelled || pending.get(view) != request) {
+            return;
+        }
+        pending.remove(view);
+        if (preview == null) {
+            request.callback.onFailure();
+            return;
+        }
+        show(view, preview);
+        request.callback.onPreview(preview);
+    }
+
+    private void show(ImageView view, Bitmap bitmap) {
+        Bitmap previous = shown.put(view, bitmap);
+        if (previous == bitmap) {
+            return;
+        }
+        Integer count = shownCounts.get(bitmap);
+        shownCounts.put(bitmap, count != null ? count + 1 : 1);
+        view.setImageBitmap(bitmap);
+        if (previous != null) {
+            unshow(previous);
+        }
+    }
+
+    private void unshow(Bitmap bitmap) {
+        Integer count = shownCounts.get(bitmap);
+        if (count == null || count <= 1) {
+            shownCounts.remove(bitmap);
+            if (!cached.contains(bitmap)) {
+                offerForReuse(bitmap);
+            }
+        } else {
+            shownCounts.put(bitmap, count - 1);
+        }
+    }
+
+    private void offerForReuse(Bitmap bitmap) {
+        if (bitmap.isMutable()) {
+            reusable.add(new SoftReference<>(bitmap));
+        }
+    }
+
+    // Runs on a decode thread
+    private Bitmap decode(byte[] data, int reqWidth, int reqHeight) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            Log.w(TAG, "Not a decodable image");
+            return null;
+        }
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight, reqWidth, reqHeight);
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        options.inMutable = true;
+        options.inBitmap = takeReusable(options);
+        try {
+            return BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        } catch (IllegalArgumentException e) {
+            // The candidate could not be reused after all; decode into a fresh bitmap
+            options.inBitmap = null;
+            return BitmapFactory.decodeByteArray(data, 0, data.length, options);
+        }
+    }
+
+    private Bitmap takeReusable(BitmapFactory.Options options) {
+        int width = (options.outWidth + options.inSampleSize - 1) / options.inSampleSize;
+        int height = (options.outHeight + options.inSampleSize - 1) / options.inSampleSize;
+        int byteCount = width * height * 2; // RGB_565
+        synchronized (reusable) {
+            Iterator<SoftReference<Bitmap>> iterator = reusable.iterator();
+            while (iterator.hasNext()) {
+                Bitmap candidate = iterator.next().get();
+                if (candidate == null || candidate.isRecycled()) {
+                    iterator.remove();
+                } else if (candidate.getAllocationByteCount() >= byteCount) {
+                    iterator.remove();
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    static int calculateInSampleSize(int width, int height, int reqWidth, int reqHeight) {
+        int inSampleSize = 1;
+        if (height > reqHeight || width > reqWidth) {
+            final int halfHeight = height / 2;
+            final int halfWidth = width / 2;
+
+            while ((halfHeight / inSampleSize) >= reqHeight && (halfWidth / inSampleSize) >= reqWidth) {
+                inSampleSize *= 2;
+            }
+        }
+        return inSampleSize;
+    }
+}
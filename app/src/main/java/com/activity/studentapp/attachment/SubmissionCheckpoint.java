@@ -0,0 +1,191 @@
+package com.activity.studentapp.attachment;
+
+import android.util.AtomicFile;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * On-disk state of a submission being uploaded in the background, so the
+ * upload survives process death and picks up where it stopped.
+ *
+ * The directory holds a private copy of every attachment and a checkpoint
+ * file recording, per file, its prepared form and hash, the Storage upload
+ * session once one exists, and whether the upload is confirmed. The document
+ * IDs are fixed up front, so committing again after a crash just rewrites the
+ * same documents. The checkpoint is replaced atomically on every save.
+ */
+public final class SubmissionCheckpoint {
+    private static final String FILE_NAME = "checkpoint.json";
+
+    static final class FileEntry {
+        final String fileId;
+        final String name;
+        final String contentType;
+        // Private copy of the picked file, and its SHA-256 if known when it was picked
+        final String stagedPath;
+        String contentHash;
+        // Set once the file is prepared: what is uploaded and how
+        String uploadPath;
+        String codec;
+        long size = -1;
+        String hash;
+        // Base64 JPEG preview, for images
+        String thumbnail;
+        // Resumable upload session, once Storage has opened one
+        String sessionUri;
+        long storedSize;
+        boolean done;
+
+        FileEntry(String fileId, String name, String contentType, String stagedPath) {
+            this.fileId = fileId;
+            this.name = name;
+            this.contentType = contentType;
+            this.stagedPath = stagedPath;
+        }
+    }
+
+    private final File directory;
+    private final AtomicFile file;
+    private final String submissionId;
+    private final Map<String, Object> submission;
+    private final List<FileEntry> files;
+
+    private SubmissionCheckpoint(File directory, String submissionId, Map<String, Object> submission,
+            List<FileEntry> files) {
+        this.directory = directory;
+        this.file = new AtomicFile(new File(directory, FILE_NAME));
+        this.submissionId = submissionId;
+        this.submission = submission;
+        this.files = files;
+    }
+
+    static SubmissionCheckpoint create(File directory, String submissionId, Map<String, Object> submission) {
+        return new SubmissionCheckpoint(directory, submissionId, new HashMap<>(submission), new ArrayList<>());
+    }
+
+    static SubmissionCheckpoint load(File directory) throws IOException {
+        AtomicFile file = new AtomicFile(new File(directory, FILE_NAME));
+        try {
+            JSONObject json = new JSONObject(new String(file.readFully(), StandardCharsets.UTF_8));
+            Map<String, Object> submission = new HashMap<>();
+            JSONObject fields = json.getJSONObject("submission");
+            for (Iterator<String> keys = fields.keys(); keys.hasNext(); ) {
+                String key = keys.next();
+                Object value = fields.get(key);
+                submission.put(key, value == JSONObject.NULL ? null : value);
+            }
+
+            List<FileEntry> entries = new ArrayList<>();
+            JSONArray array = json.getJSONArray("files");
+            for (int i = 0; i < array.length(); i++) {
+                JSONObject item = array.getJSONObject(i);
+                FileEntry entry = new FileEntry(item.getString("fileId"), item.getString("name"),
+                        item.getString("contentType"), item.getString("stagedPath"));
+                entry.contentHash = item.optString("contentHash", null);
+                entry.uploadPath = item.optString("uploadPath", null);
+                entry.codec = item.optString("codec", null);
+                entry.size = item.optLong("size", -1);
+                entry.hash = item.optString("hash", null);
+                entry.thumbnail = item.optString("thumbnail", null);
+                entry.sessionUri = item.optString("sessionUri", null);
+                entry.storedSize = item.optLong("storedSize", 0);
+                entry.done = item.optBoolean("done", false);
+                entries.add(entry);
+            }
+            return new SubmissionCheckpoint(directory, json.getString("submissionId"), submission, entries);
+        } catch (JSONException e) {
+            throw new IOException("Corrupt checkpoint in " + directory, e);
+        }
+    }
+
+    public String getSubmissionId() {
+        return submissionId;
+    }
+
+    File getDirectory() {
+        return directory;
+    }
+
+    Map<String, Object> getSubmission() {
+        return Collections.unmodifiableMap(submission);
+    }
+
+    List<FileEntry> getFiles() {
+        return files;
+    }
+
+    void addFile(FileEntry entry) {
+        files.add(entry);
+    }
+
+    synchronized void save() throws IOException {
+        FileOutputStream out = file.startWrite();
+        try {
+            out.write(toJson().toString().getBytes(StandardCharsets.UTF_8));
+            file.finishWrite(out);
+        } catch (IOException | JSONException e) {
+            file.failWrite(out);
+            throw e instanceof IOException ? (IOException) e : new IOException(e);
+        }
+    }
+
+    /**
+     * Removes the checkpoint and the staged copies.
+     */
+    void delete() {
+        deleteRecursively(directory);
+    }
+
+    private JSONObject toJson() throws JSONException {
+        JSONObject fields = new JSONObject();
+        for (Map.Entry<String, Object> field : submission.entrySet()) {
+            fields.put(field.getKey(), field.getValue() != null ? field.getValue() : JSONObject.NULL);
+        }
+        JSONArray array = new JSONArray();
+        for (FileEntry entry : files) {
+            JSONObject item = new JSONObject();
+            item.put("fileId", entry.fileId);
+            item.put("name", entry.name);
+            item.put("contentType", entry.contentType);
+            item.put("stagedPath", entry.stagedPath);
+            item.putOpt("contentHash", entry.contentHash);
+            item.putOpt("uploadPath", entry.uploadPath);
+            item.putOpt("codec", entry.codec);
+            item.put("size", entry.size);
+            item.putOpt("hash", entry.hash);
+            item.putOpt("thumbnail", entry.thumbnail);
+            item.putOpt("sessionUri", entry.sessionUri);
+            item.put("storedSize", entry.storedSize);
+            item.put("done", entry.done);
+            array.put(item);
+        }
+        JSONObject json = new JSONObject();
+        json.put("submissionId", submissionId);
+        json.put("submission", fields);
+        json.put("files", array);
+        return json;
+    }
+
+    static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,209 @@
+package com.activity.studentapp.attachment;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Reassembled submission files kept on disk, keyed by submission and file ID.
+ *
+ * A submission doesn't change once submitted, so an entry never goes stale and
+ * reopening a submission reads its files from here instead of fetching their
+ * chunks again, also while offline. Every entry stores the SHA-256 of its
+ * content, and an entry that doesn't match it, or the size the file document
+ * records, is deleted and treated as missing.
+ *
+ * The cache stays within its byte budget by evicting the least recently used
+ * entries; reading an entry touches its modification time, so the order
+ * survives restarts. All disk work runs on one background thread shared by
+ * every instance, and callbacks run on the main thread.
+ */
+public class SubmissionFileCache {
+    private static final String TAG = "SubmissionFileCache";
+
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private static final int FORMAT_VERSION = 1;
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final ExecutorService DISK_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    interface Callback {
+        /**
+         * @param content the cached content, or null if it isn't cached
+         */
+        void onResult(byte[] content);
+    }
+
+    private final File directory;
+    private final long maxBytes;
+
+    public SubmissionFileCache(File cacheDir) {
+        this(cacheDir, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * @param maxBytes total size the entries may take on disk
+     */
+    public SubmissionFileCache(File cacheDir, long maxBytes) {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("Invalid cache size " + maxBytes);
+        }
+        this.directory = new File(cacheDir, "submission_files");
+        this.maxBytes = maxBytes;
+    }
+
+    static String key(SubmittedFile file) {
+        return file.submissionId() + "/" + file.getFileId();
+    }
+
+    /**
+     * Looks the file up off the main thread.
+     */
+    void get(SubmittedFile file, Callback callback) {
+        String key = key(file);
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        DISK_EXECUTOR.execute(() -> {
+            byte[] content = read(key, file.getSize());
+            mainHandler.post(() -> callback.onResult(content));
+        });
+    }
+
+    /**
+     * Stores the file's content off the main thread.
+     */
+    void put(SubmittedFile file, byte[] content) {
+        String key = key(file);
+        DISK_EXECUTOR.execute(() -> {
+            try {
+                write(key, content);
+            } catch (IOException e) {
+                Log.w(TAG, "Could not cache " + key, e);
+            }
+        });
+    }
+
+    /**
+     * Deletes every entry.
+     */
+    public void clear() {
+        DISK_EXECUTOR.execute(() -> {
+            File[] entries = directory.listFiles();
+            if (entries != null) {
+                for (File entry : entries) {
+                    entry.delete();
+                }
+            }
+        });
+    }
+
+    /**
+     * Blocking lookup; returns null for missing or corrupt entries.
+     *
+     * @param expectedSize the content size the file document records, or -1 if unknown
+     */
+    synchronized byte[] read(String key, long expectedSize) {
+        File entry = entryFile(key);
+        if (!entry.isFile()) {
+            return null;
+        }
+        byte[] content;
+        try (DataInputStream in = new DataInputStream(new FileInputStream(entry))) {
+            if (in.readInt() != FORMAT_VERSION || !key.equals(in.readUTF())) {
+                throw new IOException("Foreign entry");
+            }
+            byte[] hash = new byte[32];
+            in.readFully(hash);
+            int length = in.readInt();
+            if (length < 0 || length > Attachment.MAX_SIZE_BYTES
+                    || (expectedSize >= 0 && length != expectedSize)) {
+                throw new IOException("Unexpected length " + length);
+            }
+            content = new byte[length];
+            in.readFully(content);
+            if (in.read() != -1 || !Arrays.equals(hash, ContentHash.newDigest().digest(content))) {
+                throw new IOException("Checksum mismatch");
+            }
+        } catch (IOException e) {
+            // Truncated or damaged; fetch the file again
+            entry.delete();
+            return null;
+        }
+        entry.setLastModified(System.currentTimeMillis());
+        return content;
+    }
+
+    /**
+     * Blocking store, replacing any entry for the key, followed by eviction down to the budget.
+     * Content larger than the whole budget is not stored.
+     */
+    synchronized void write(String key, byte[] content) throws IOException {
+        if (content.length > maxBytes) {
+            return;
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        File entry = entryFile(key);
+        File temp = new File(directory, entry.getName() + TEMP_SUFFIX);
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(temp))) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(key);
+            out.write(ContentHash.newDigest().digest(content));
+            out.writeInt(content.length);
+            out.write(content);
+        } catch (IOException e) {
+            temp.delete();
+            throw e;
+        }
+        // The rename is atomic, so readers never see a half-written entry
+        if (!temp.renameTo(entry)) {
+            temp.delete();
+            throw new IOException("Could not replace " + entry);
+        }
+        trim();
+    }
+
+    private void trim() {
+        File[] entries = directory.listFiles();
+        if (entries == null) {
+            return;
+        }
+        long total = 0;
+        for (File entry : entries) {
+            total += entry.length();
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+        Arrays.sort(entries, Comparator.comparingLong(File::lastModified));
+        for (File entry : entries) {
+            if (total <= maxBytes) {
+                break;
+            }
+            long length = entry.length();
+            if (entry.delete()) {
+                total -= length;
+            }
+        }
+    }
+
+    private File entryFile(String key) {
+        // Hash the key so any ID makes a valid file name
+        MessageDigest digest = ContentHash.newDigest();
+        return new File(directory, ContentHash.hex(digest.digest(key.getBytes(StandardCharsets.UTF_8))));
+    }
+}
@@ -0,0 +1,235 @@
+package com.activity.studentapp.attachment;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.Operation;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
+
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts submissions as persistent background jobs.
+ *
+ * The picked files are copied into app storage first, since access to them
+ * may not outlive the process, and a {@link SubmissionCheckpoint} is written
+ * next to them. {@link SubmissionWorker} then uploads the submission whenever
+ * a connection is available, resuming after restarts. There is at most one
+ * job per student and assignment; observe it through {@link #uniqueWorkName}.
+ * A job that fails keeps the staged files, so the student can {@link #retry}
+ * it or {@link #discard} them.
+ */
+public final class SubmissionJobs {
+    private static final String TAG = "SubmissionJobs";
+
+    // Input of every job, and output of a finished one
+    public static final String KEY_SUBMISSION_ID = "submissionId";
+    // Output of a failed job
+    public static final String KEY_MESSAGE = "message";
+    // Progress of a running job, 0-100
+    public static final String KEY_PROGRESS = "progress";
+
+    private static final long BACKOFF_DELAY_SECONDS = 15;
+    // Jobs are tagged with their submission, so a duplicate enqueue can report the one already pending
+    private static final String SUBMISSION_TAG_PREFIX = "submission:";
+
+    private static final ExecutorService STAGE_EXECUTOR = Executors.newSingleThreadExecutor();
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    public interface Callback {
+        void onEnqueued(String submissionId);
+
+        /**
+         * A submission for the assignment is still uploading, so nothing new was staged or queued.
+         *
+         * @param submissionId the pending submission, or null for jobs from older versions
+         */
+        void onAlreadyPending(String submissionId);
+
+        void onFailure(String message, Exception e);
+    }
+
+    private SubmissionJobs() {
+    }
+
+    public static String uniqueWorkName(String studentId, String assignmentId) {
+        return "submission-" + studentId + "-" + assignmentId;
+    }
+
+    static File directory(Context context, String submissionId) {
+        return new File(new File(context.getFilesDir(), "pending_submissions"), submissionId);
+    }
+
+    /**
+     * Copies the files and schedules the upload; the callback runs on the main thread.
+     */
+    public static void enqueue(Context context, String studentId, String assignmentId,
+            Map<String, Object> submission, List<Attachment> files, Callback callback) {
+        Context appContext = context.getApplicationContext();
+        STAGE_EXECUTOR.execute(() -> {
+            WorkManager workManager = WorkManager.getInstance(appContext);
+            String workName = uniqueWorkName(studentId, assignmentId);
+            WorkInfo pending = pendingWork(workManager, workName);
+            if (pending != null) {
+                // Skip copying files that KEEP would never upload
+                MAIN_HANDLER.post(() -> callback.onAlreadyPending(submissionOf(pending)));
+                return;
+            }
+
+            // IDs are allocated locally, so every run writes the same documents
+            FirebaseFirestore db = FirebaseFirestore.getInstance();
+            String submissionId = db.collection("submissions").document().getId();
+            File directory = directory(appContext, submissionId);
+            SubmissionCheckpoint checkpoint = SubmissionCheckpoint.create(directory, submissionId, submission);
+            try {
+                stage(appContext.getContentResolver(), db, checkpoint, files);
+                checkpoint.save();
+            } catch (IOException e) {
+                Log.e(TAG, "Could not stage submission " + submissionId, e);
+                checkpoint.delete();
+                MAIN_HANDLER.post(() -> callback.onFailure("Could not read the attached files", e));
+                return;
+            }
+
+            try {
+                schedule(appContext, studentId, assignmentId, submissionId).getResult().get();
+            } catch (ExecutionException e) {
+                Log.e(TAG, "Could not enqueue submission " + submissionId, e);
+                checkpoint.delete();
+                MAIN_HANDLER.post(() -> callback.onFailure("Could not start the submission", e));
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // Another job may have been enqueued since the check above, in which case KEEP dropped this one
+            WorkInfo current = pendingWork(workManager, workName);
+            String currentId = current != null ? submissionOf(current) : submissionId;
+            if (!submissionId.equals(currentId)) {
+                Log.d(TAG, "Submission " + currentId + " is already pending, dropping " + submissionId);
+                checkpoint.delete();
+                MAIN_HANDLER.post(() -> callback.onAlreadyPending(currentId));
+                return;
+            }
+            Log.d(TAG, "Enqueued submission " + submissionId + " with " + files.size() + " files");
+            MAIN_HANDLER.post(() -> callback.onEnqueued(submissionId));
+        });
+    }
+
+    /**
+     * Whether a failed submission still has its staged files, i.e. it can be retried.
+     */
+    public static boolean hasStagedFiles(Context context, String submissionId) {
+        return directory(context, submissionId).isDirectory();
+    }
+
+    /**
+     * Runs a failed submission again from its checkpoint.
+     */
+    public static void retry(Context context, String studentId, String assignmentId, String submissionId) {
+        schedule(context.getApplicationContext(), studentId, assignmentId, submissionId);
+        Log.d(TAG, "Retrying submission " + submissionId);
+    }
+
+    /**
+     * Deletes the staged files of a failed submission the student gave up on.
+     */
+    public static void discard(Context context, String submissionId) {
+        File directory = directory(context, submissionId);
+        STAGE_EXECUTOR.execute(() -> SubmissionCheckpoint.deleteRecursively(directory));
+    }
+
+    private static Operation schedule(Context appContext, String studentId, String assignmentId,
+            String submissionId) {
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(SubmissionWorker.class)
+                .setInputData(new Data.Builder().putString(KEY_SUBMISSION_ID, submissionId).build())
+                .addTag(SUBMISSION_TAG_PREFIX + submissionId)
+                .setConstraints(new Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.CONNECTED)
+                        .build())
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, BACKOFF_DELAY_SECONDS, TimeUnit.SECONDS)
+                .build();
+        // KEEP: a second tap while a submission is pending must not submit twice
+        return WorkManager.getInstance(appContext)
+                .enqueueUniqueWork(uniqueWorkName(studentId, assignmentId), ExistingWorkPolicy.KEEP, request);
+    }
+
+    // The job still waiting or running under the name, or null; blocks, so only call it on STAGE_EXECUTOR
+    private static WorkInfo pendingWork(WorkManager workManager, String workName) {
+        try {
+            for (WorkInfo info : workManager.getWorkInfosForUniqueWork(workName).get()) {
+                if (!info.getState().isFinished()) {
+                    return info;
+                }
+            }
+        } catch (ExecutionException e) {
+            Log.w(TAG, "Could not look up " + workName, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    private static String submissionOf(WorkInfo info) {
+        for (String tag : info.getTags()) {
+            if (tag.startsWith(SUBMISSION_TAG_PREFIX)) {
+                return tag.substring(SUBMISSION_TAG_PREFIX.length());
+            }
+        }
+        return null;
+    }
+
+    private static void stage(ContentResolver contentResolver, FirebaseFirestore db, SubmissionCheckpoint checkpoint,
+            List<Attachment> files) throws IOException {
+        File directory = checkpoint.getDirectory();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        for (Attachment attachment : files) {
+            String fileId = db.collection("submissions").document(checkpoint.getSubmissionId())
+                    .collection("files").document().getId();
+            File staged = new File(directory, fileId);
+            try (InputStream in = contentResolver.openInputStream(attachment.getUri());
+                    OutputStream out = new FileOutputStream(staged)) {
+                if (in == null) {
+                    throw new IOException("Could not open " + attachment.getUri());
+                }
+                byte[] buffer = new byte[64 * 1024];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+            }
+            String contentType = attachment.getContentType();
+            if (contentType == null) {
+                contentType = contentResolver.getType(attachment.getUri());
+            }
+            SubmissionCheckpoint.FileEntry entry = new SubmissionCheckpoint.FileEntry(fileId, attachment.getName(),
+                    contentType != null ? contentType : "application/octet-stream", staged.getPath());
+            // The copy has the same bytes, so the hash resolved at pick time still holds
+            entry.contentHash = attachment.getSha256();
+            checkpoint.addFile(entry);
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package com.activity.studentapp.attachment;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+
+import com.google.firebase.firestore.Blob;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StreamDownloadTask;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads the files of a submission, whichever way they were stored.
+ *
+ * Listing a submission only reads the file documents, so the list can be shown
+ * at once, with image thumbnails when the upload stored them. Content is
+ * fetched per file when a row needs it: files with a storagePath are streamed
+ * from Firebase Storage with progress and checked against their recorded
+ * SHA-256, failing the load on a mismatch; older files stored as base64 chunk
+ * documents go through {@link ChunkReader}.
+ *
+ * Heap use is bounded: at most {@link #MAX_CONCURRENT_LOADS} files are fetched
+ * at once and loaded content is kept in an LruCache with a fixed byte budget.
+ * Given a {@link SubmissionFileCache}, content is also kept on disk and looked
+ * up there before anything is fetched. Concurrent requests for the same file
+ * share one load. Everything except the decoding must be called on the main
+ * thread, and callbacks run there.
+ */
+public class SubmissionReader {
+    private static final String TAG = "SubmissionReader";
+
+    private static final int MAX_CONCURRENT_LOADS = 2;
+
+    // Reassembly and decoding happen here, off the main thread
+    private static final ExecutorService DECODE_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    public interface Callback {
+        void onLoaded(List<SubmittedFile> files);
+
+        void onFailure(String message, Exception e);
+    }
+
+    public interface ContentCallback {
+        /**
+         * @param totalBytes the file size, or -1 while it is unknown
+         */
+        void onProgress(long loadedBytes, long totalBytes);
+
+        void onContent(byte[] content);
+
+        /**
+         * @param missingChunks chunks that never arrived; empty if the file could not be read at all
+         */
+        void onUnavailable(List<Integer> missingChunks);
+    }
+
+    private static final class Load {
+        final SubmittedFile file;
+        final List<ContentCallback> callbacks = new ArrayList<>();
+        StreamDownloadTask task;
+        // Set when the content came from the disk cache, so it isn't stored again
+        boolean fromDisk;
+        long loadedBytes;
+        long totalBytes;
+
+        Load(SubmittedFile file) {
+            this.file = file;
+            this.totalBytes = file.getSize();
+        }
+    }
+
+    private final FirebaseStorage storage;
+    private final SubmissionFileCache diskCache;
+    private final ChunkReader chunkReader = new ChunkReader();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final LruCache<String, byte[]> contentCache;
+    private final Map<String, Load> loads = new HashMap<>();
+    private final ArrayDeque<Load> queued = new ArrayDeque<>();
+    private int running;
+
+    public SubmissionReader(FirebaseStorage storage) {
+        this(storage, null);
+    }
+
+    /**
+     * @param diskCache where loaded content is kept across screens and restarts, or null
+     */
+    public SubmissionReader(FirebaseStorage storage, SubmissionFileCache diskCache) {
+        this.storage = storage;
+        this.diskCache = diskCache;
+        // An eighth of the heap, counted in KB
+        int cacheSizeKb = (int) (Runtime.getRuntime().maxMemory() / 1024 / 8);
+        contentCache = new LruCache<String, byte[]>(cacheSizeKb) {
+            @Override
+            protected int sizeOf(String key, byte[] content) {
+                return Math.max(1, content.length / 1024);
+            }
+        };
+    }
+
+    /**
+     * Lists the files of the submission from their documents, without loading any content.
+     * Files without content are left out.
+     */
+    public void readSubmission(DocumentReference submissionRef, Callback callback) {
+        submissionRef.collection("files").get()
+                .addOnSuccessListener(snapshot -> {
+                    List<SubmittedFile> files = new ArrayList<>();
+                    for (DocumentSnapshot fileDoc : snapshot.getDocuments()) {
+                        SubmittedFile file = toSubmittedFile(fileDoc);
+                        if (file != null) {
+                            files.add(file);
+                        }
+                    }
+                    callback.onLoaded(files);
+                })
+                .addOnFailureListener(e -> callback.onFailure("Error loading submitted files", e));
+    }
+
+    /**
+     * Content already loaded for the file, or null.
+     */
+    public byte[] getCachedContent(SubmittedFile file) {
+        return contentCache.get(file.getFileId());
+    }
+
+    /**
+     * Loads the file's content, from cache if possible. A load already running for
+     * the file is joined rather than started again.
+     */
+    public void loadContent(SubmittedFile file, ContentCallback callback) {
+        byte[] cached = contentCache.get(file.getFileId());
+        if (cached != null) {
+            callback.onContent(cached);
+            return;
+        }
+
+        Load load = loads.get(file.getFileId());
+        if (load == null) {
+            load = new Load(file);
+            loads.put(file.getFileId(), load);
+            queued.add(load);
+        }
+        load.callbacks.add(callback);
+        callback.onProgress(load.loadedBytes, load.totalBytes);
+        startQueued();
+    }
+
+    /**
+     * Stops delivering to the callback. A load nobody waits for any more is dropped from the
+     * queue, or cancelled if it is streaming from Storage.
+     */
+    public void cancel(SubmittedFile file, ContentCallback callback) {
+        Load load = loads.get(file.getFileId());
+        if (load == null || !load.callbacks.remove(callback) || !load.callbacks.isEmpty()) {
+            return;
+        }
+        if (queued.remove(load)) {
+            loads.remove(file.getFileId());
+        } else if (load.task != null) {
+            // Forget it now, so a request before the failure callback starts afresh rather than joining
+            // a load that can only end unavailable; finish() still releases its slot
+            loads.remove(file.getFileId());
+            load.task.cancel();
+        }
+    }
+
+    public void clear() {
+        for (Load load : new ArrayList<>(loads.values())) {
+            load.callbacks.clear();
+            if (load.task != null) {
+                load.task.cancel();
+            }
+        }
+        queued.clear();
+        loads.clear();
+        contentCache.evictAll();
+    }
+
+    private static SubmittedFile toSubmittedFile(DocumentSnapshot fileDoc) {
+        String storagePath = fileDoc.getString("storagePath");
+        boolean chunked = ChunkReader.isChunked(fileDoc);
+        if (storagePath == null && !chunked) {
+            return null;
+        }
+        Long size = fileDoc.getLong("size");
+        String contentType = fileDoc.getString("contentType");
+        if (contentType == null) {
+            contentType = fileDoc.getString("type");
+        }
+        String codec = fileDoc.getString("codec");
+        Blob thumbnail = fileDoc.getBlob("thumbnail");
+        return new SubmittedFile(fileDoc.getId(), fileDoc.getString("name"), size != null ? size : -1,
+                contentType, chunked ? fileDoc.getLong("chunkCount").intValue() : 0,
+                codec != null ? codec : AttachmentTransformer.CODEC_IDENTITY,
+                thumbnail != null ? thumbnail.toBytes() : null, storagePath, fileDoc.getString("sha256"),
+                fileDoc.getReference());
+    }
+
+    private void startQueued() {
+        while (running < MAX_CONCURRENT_LOADS && !queued.isEmpty()) {
+            Load load = queued.poll();
+            running++;
+            if (diskCache == null) {
+                fetch(load);
+                continue;
+            }
+            diskCache.get(load.file, content -> {
+                if (content != null) {
+                    load.fromDisk = true;
+                    finish(load, content, Collections.emptyList());
+                } else if (load.callbacks.isEmpty()) {
+                    // Cancelled during the lookup
+                    finish(load, null, Collections.emptyList());
+                } else {
+                    fetch(load);
+                }
+            });
+        }
+    }
+
+    private void fetch(Load load) {
+        if (load.file.isChunked()) {
+            chunkReader.readFile(load.file, DECODE_EXECUTOR,
+                    (content, missing) -> mainHandler.post(() -> finish(load, content, missing)));
+        } else {
+            download(load);
+        }
+    }
+
+    private void download(Load load) {
+        SubmittedFile file = load.file;
+        String storagePath = file.storagePath;
+        TransferMetrics.Session metrics = TransferMetrics.getInstance().session(TransferMetrics.READ,
+                file.submissionId());
+        long start = System.nanoTime();
+        byte[][] result = new byte[1][];
+        load.task = storage.getReference(storagePath).getStream((snapshot, stream) -> {
+            DigestInputStream stored = new DigestInputStream(stream, ContentHash.newDigest());
+            try (InputStream decoded = AttachmentTransformer.decode(file.getCodec(), stored)) {
+                byte[] content = readFully(decoded, file.getSize() > 0 ? file.getSize() : snapshot.getTotalByteCount());
+                if (file.sha256 != null) {
+                    // Fails the load rather than showing bytes that aren't what was submitted
+                    ContentHash.verify(stored, file.sha256);
+                }
+                result[0] = content;
+            }
+        });
+        load.task.addOnProgressListener(snapshot -> {
+            load.loadedBytes = snapshot.getBytesTransferred();
+            load.totalBytes = snapshot.getTotalByteCount();
+            for (ContentCallback callback : new ArrayList<>(load.callbacks)) {
+                callback.onProgress(load.loadedBytes, load.totalBytes);
+            }
+        });
+        load.task.addOnSuccessListener(snapshot -> {
+                    // Inflating happens while streaming, so it counts as transfer time here
+                    metrics.recordTransfer(snapshot.getTotalByteCount(), start, System.nanoTime());
+                    metrics.recordBuffer(result[0].length);
+                    finish(load, result[0], Collections.emptyList());
+                })
+                .addOnFailureListener(e -> {
+                    if (!load.task.isCanceled()) {
+                        Log.e(TAG, "Error downloading " + storagePath, e);
+                    }
+                    finish(load, null, Collections.emptyList());
+                });
+    }
+
+    // Runs on a Storage worker thread; totalBytes is the expected decoded size
+    private static byte[] readFully(InputStream stream, long totalBytes) throws IOException {
+        if (totalBytes > Attachment.MAX_SIZE_BYTES) {
+            throw new IOException("File exceeds " + Attachment.MAX_SIZE_BYTES + " bytes");
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(totalBytes > 0 ? (int) totalBytes : 64 * 1024);
+        byte[] buffer = new byte[64 * 1024];
+        int read;
+        while ((read = stream.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+            if (out.size() > Attachment.MAX_SIZE_BYTES) {
+                throw new IOException("File exceeds " + Attachment.MAX_SIZE_BYTES + " bytes");
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private void finish(Load load, byte[] content, List<Integer> missing) {
+        running--;
+        if (loads.get(load.file.getFileId()) == load) {
+            loads.remove(load.file.getFileId());
+        }
+        if (content != null) {
+            contentCache.put(load.file.getFileId(), content);
+            if (diskCache != null && !load.fromDisk) {
+                diskCache.put(load.file, content);
+            }
+        }
+        for (ContentCallback callback : load.callbacks) {
+            if (content != null) {
+                callback.onContent(content);
+            } else {
+                callback.onUnavailable(missing);
+            }
+        }
+        startQueued();
+    }
+}
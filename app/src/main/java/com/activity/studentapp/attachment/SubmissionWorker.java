@@ -0,0 +1,116 @@
+package com.activity.studentapp.attachment;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Data;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.storage.FirebaseStorage;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs one checkpointed submission, started by {@link SubmissionJobs}.
+ *
+ * Each run resumes from the checkpoint, so a run interrupted by process death
+ * or a lost connection continues with the files that are not confirmed yet.
+ * A run WorkManager stops cancels its uploads first, so runs never overlap.
+ * A run that failed for a transient reason is retried with backoff until
+ * {@link #MAX_RUNS} is reached; other failures end the job at once. A failed
+ * job keeps its checkpoint and staged files until the student retries or
+ * discards it through {@link SubmissionJobs}.
+ */
+public class SubmissionWorker extends Worker {
+    private static final String TAG = "SubmissionWorker";
+
+    private static final int MAX_RUNS = 8;
+    private static final long STOP_POLL_MS = 500;
+
+    public SubmissionWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        String submissionId = getInputData().getString(SubmissionJobs.KEY_SUBMISSION_ID);
+        SubmissionCheckpoint checkpoint;
+        try {
+            checkpoint = SubmissionCheckpoint.load(SubmissionJobs.directory(context, submissionId));
+        } catch (IOException e) {
+            Log.e(TAG, "No usable checkpoint for submission " + submissionId, e);
+            return Result.failure(failure(submissionId, "The submission could not be resumed"));
+        }
+
+        ContentResolver contentResolver = context.getContentResolver();
+        SubmissionWriter writer = new SubmissionWriter(contentResolver, FirebaseFirestore.getInstance(),
+                FirebaseStorage.getInstance(), new AttachmentTransformer(contentResolver, checkpoint.getDirectory()));
+        CountDownLatch done = new CountDownLatch(1);
+        String[] error = new String[1];
+        boolean[] retryable = new boolean[1];
+        SubmissionWriter.Run run = writer.resume(checkpoint, new SubmissionWriter.Listener() {
+            @Override
+            public void onSubmitted(String id) {
+                done.countDown();
+            }
+
+            @Override
+            public void onFailure(String message, Exception e, boolean canRetry) {
+                error[0] = message;
+                retryable[0] = canRetry;
+                done.countDown();
+            }
+
+            @Override
+            public void onProgress(int storedFiles, int totalFiles) {
+                setProgressAsync(new Data.Builder()
+                        .putInt(SubmissionJobs.KEY_PROGRESS, storedFiles * 100 / totalFiles)
+                        .build());
+            }
+        });
+
+        try {
+            // WorkManager doesn't interrupt a stopped worker, so look for the stop while waiting
+            while (!done.await(STOP_POLL_MS, TimeUnit.MILLISECONDS)) {
+                if (isStopped()) {
+                    // The next run must not drive the same upload sessions alongside this one
+                    run.cancel();
+                    return Result.retry();
+                }
+            }
+        } catch (InterruptedException e) {
+            run.cancel();
+            Thread.currentThread().interrupt();
+            return Result.retry();
+        }
+
+        if (error[0] == null) {
+            checkpoint.delete();
+            return Result.success(new Data.Builder()
+                    .putString(SubmissionJobs.KEY_SUBMISSION_ID, submissionId)
+                    .build());
+        }
+        if (retryable[0] && getRunAttemptCount() + 1 < MAX_RUNS) {
+            Log.w(TAG, "Submission " + submissionId + " failed, retrying: " + error[0]);
+            return Result.retry();
+        }
+        // The staged copies may be the only ones left, so they stay until the student decides
+        Log.e(TAG, "Giving up on submission " + submissionId + ": " + error[0]);
+        return Result.failure(failure(submissionId, error[0]));
+    }
+
+    private static Data failure(String submissionId, String message) {
+        return new Data.Builder()
+                .putString(SubmissionJobs.KEY_SUBMISSION_ID, submissionId)
+                .putString(SubmissionJobs.KEY_MESSAGE, message)
+                .build();
+    }
+}
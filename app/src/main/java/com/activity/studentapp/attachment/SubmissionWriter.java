@@ -0,0 +1,561 @@
+package com.activity.studentapp.attachment;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Base64;
+import android.util.Log;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.Blob;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.WriteBatch;
+import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StorageException;
+import com.google.firebase.storage.StorageMetadata;
+import com.google.firebase.storage.StorageReference;
+import com.google.firebase.storage.UploadTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes a submission and uploads its files to Firebase Storage.
+ *
+ * Files are content addressed: each file's bytes go to blobs/{uid}/{sha256}
+ * in Storage, under the signed-in uploader, and submissions/{id}/files records
+ * the object path, hash, size and content type. A file whose blob already
+ * exists, e.g. a resubmission, is referenced without uploading it again once
+ * the blob's size and recorded hash match the file. New blobs
+ * go up through a resumable upload session, up to {@code maxInFlight} at once.
+ * An upload that still fails after the SDK's own retries is resumed from its
+ * session with backoff, without restarting the submission. Failures that
+ * retrying can't fix, such as a file the rules reject, fail it at once.
+ *
+ * Before its upload, each file is hashed on a background thread and, with an
+ * {@link AttachmentTransformer}, shrunk first; the codec it was stored with is
+ * recorded in its file document, along with a thumbnail for images. Timings,
+ * retries and throughput go to the submission's {@link TransferMetrics} session.
+ *
+ * Once every file is stored, the file documents and the submission document
+ * are committed in one batch, so the submission only appears, already marked
+ * submitted, when all of its content is there. A submission resumed from a
+ * {@link SubmissionCheckpoint} records each step there and skips files
+ * already confirmed. Files of older submissions are
+ * stored as base64 chunk documents and read by {@link ChunkReader}.
+ */
+public class SubmissionWriter {
+    private static final String TAG = "SubmissionWriter";
+
+    public static final int DEFAULT_MAX_IN_FLIGHT = 3;
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long RETRY_BASE_DELAY_MS = 1000;
+
+    // Bookkeeping for all uploads happens on this thread
+    private static final ScheduledExecutorService CALLBACK_EXECUTOR = Executors.newSingleThreadScheduledExecutor();
+    // Transforming and hashing files is kept off the bookkeeping thread
+    private static final ExecutorService PREPARE_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    public interface Listener {
+        void onSubmitted(String submissionId);
+
+        /**
+         * @param retryable whether running the submission again may succeed, as after a lost
+         *                  connection; false when it needs the student, e.g. a file that can't be
+         *                  read or that Storage rejects
+         */
+        void onFailure(String message, Exception e, boolean retryable);
+
+        default void onProgress(int storedFiles, int totalFiles) {
+        }
+    }
+
+    public interface Run {
+        /**
+         * Stops the submission without reporting to the listener. Uploads in flight are cancelled;
+         * the checkpoint keeps what was confirmed, so a later {@link #resume} continues from there.
+         */
+        void cancel();
+    }
+
+    private final ContentResolver contentResolver;
+    private final FirebaseFirestore db;
+    private final FirebaseStorage storage;
+    private final AttachmentTransformer transformer;
+    private final int maxInFlight;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Uploads files exactly as picked.
+     */
+    public SubmissionWriter(ContentResolver contentResolver, FirebaseFirestore db, FirebaseStorage storage) {
+        this(contentResolver, db, storage, null, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    public SubmissionWriter(ContentResolver contentResolver, FirebaseFirestore db, FirebaseStorage storage,
+            AttachmentTransformer transformer) {
+        this(contentResolver, db, storage, transformer, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * @param transformer shrinks files before upload, or null to upload them as picked
+     */
+    public SubmissionWriter(ContentResolver contentResolver, FirebaseFirestore db, FirebaseStorage storage,
+            AttachmentTransformer transformer, int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be at least 1");
+        }
+        this.contentResolver = contentResolver;
+        this.db = db;
+        this.storage = storage;
+        this.transformer = transformer;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Storage object path of the uploader's file content with the given SHA-256 hash.
+     */
+    public static String blobPath(String uid, String sha256) {
+        return "blobs/" + uid + "/" + sha256;
+    }
+
+    /**
+     * Starts writing the submission; the listener is called on the main thread.
+     *
+     * @return the ID the submission document will have
+     */
+    public String submit(Map<String, Object> submission, List<Attachment> files, Listener listener) {
+        DocumentReference submissionRef = db.collection("submissions").document();
+        Upload upload = new Upload(submissionRef, new HashMap<>(submission), new ArrayList<>(files), listener);
+        CALLBACK_EXECUTOR.execute(upload::begin);
+        return submissionRef.getId();
+    }
+
+    /**
+     * Continues a submission from its checkpoint; the listener is called on the main thread.
+     */
+    public Run resume(SubmissionCheckpoint checkpoint, Listener listener) {
+        DocumentReference submissionRef = db.collection("submissions").document(checkpoint.getSubmissionId());
+        Upload upload = new Upload(submissionRef, checkpoint, listener);
+        CALLBACK_EXECUTOR.execute(upload::begin);
+        // Queued behind everything this run has scheduled so far, and before any later run's work
+        return () -> CALLBACK_EXECUTOR.execute(upload::cancel);
+    }
+
+    private static final class FileUpload {
+        final Attachment attachment;
+        final DocumentReference fileRef;
+        final String contentType;
+        final SubmissionCheckpoint.FileEntry entry; // Null unless the submission is checkpointed
+        // Set once the file is prepared, before the first attempt
+        AttachmentTransformer.Transformed source;
+        String hash;
+        StorageReference objectRef;
+        Uri sessionUri; // Set once the upload session exists, so a retry resumes it
+        UploadTask task; // The current attempt, if one is running
+        long storedSize;
+        long startNanos; // When the current attempt started
+        boolean done;
+        int attempt;
+
+        // Length of the bytes to upload, or -1 if it can't be told without reading them
+        long uploadLength() {
+            if ("file".equals(source.uri.getScheme())) {
+                return new File(source.uri.getPath()).length();
+            }
+            return source.uri.equals(attachment.getUri()) ? attachment.getSize() : -1;
+        }
+
+        FileUpload(Attachment attachment, DocumentReference fileRef, String contentType,
+                SubmissionCheckpoint.FileEntry entry) {
+            this.attachment = attachment;
+            this.fileRef = fileRef;
+            this.contentType = contentType;
+            this.entry = entry;
+        }
+
+        // Blobs are shared, so per-file details like the name stay in the file document
+        StorageMetadata metadata() {
+            return new StorageMetadata.Builder()
+                    .setContentType(contentType)
+                    .setCustomMetadata("codec", source.codec)
+                    .setCustomMetadata("sha256", hash)
+                    .build();
+        }
+    }
+
+    // Confined to CALLBACK_EXECUTOR
+    private final class Upload {
+        private final DocumentReference submissionRef;
+        private final Map<String, Object> submission;
+        private final Listener listener;
+        private final SubmissionCheckpoint checkpoint;
+        private final TransferMetrics.Session metrics;
+        private final List<FileUpload> uploads = new ArrayList<>();
+        private final String uid;
+        private int next;
+        private int inFlight;
+        private int completed;
+        private boolean finished;
+
+        Upload(DocumentReference submissionRef, Map<String, Object> submission, List<Attachment> files,
+                Listener listener) {
+            this.submissionRef = submissionRef;
+            this.submission = submission;
+            this.listener = listener;
+            this.checkpoint = null;
+            this.uid = currentUid();
+            this.metrics = TransferMetrics.getInstance().session(TransferMetrics.UPLOAD, submissionRef.getId());
+            for (Attachment attachment : files) {
+                // IDs are allocated locally, so the bytes can go out before any document is written
+                DocumentReference fileRef = submissionRef.collection("files").document();
+                String contentType = attachment.getContentType() != null ? attachment.getContentType()
+                        : contentResolver.getType(attachment.getUri());
+                uploads.add(new FileUpload(attachment, fileRef,
+                        contentType != null ? contentType : "application/octet-stream", null));
+            }
+        }
+
+        Upload(DocumentReference submissionRef, SubmissionCheckpoint checkpoint, Listener listener) {
+            this.submissionRef = submissionRef;
+            this.submission = new HashMap<>(checkpoint.getSubmission());
+            this.listener = listener;
+            this.checkpoint = checkpoint;
+            this.uid = currentUid();
+            this.metrics = TransferMetrics.getInstance().session(TransferMetrics.UPLOAD, submissionRef.getId());
+            for (SubmissionCheckpoint.FileEntry entry : checkpoint.getFiles()) {
+                Attachment attachment = new Attachment(Uri.fromFile(new File(entry.stagedPath)), entry.name, -1,
+                        entry.contentType, entry.contentHash);
+                FileUpload upload = new FileUpload(attachment, submissionRef.collection("files").document(entry.fileId),
+                        entry.contentType, entry);
+                if (entry.hash != null && uid != null) {
+                    // Prepared before the restart; the same bytes must go up so the session stays valid
+                    File prepared = new File(entry.uploadPath);
+                    upload.source = new AttachmentTransformer.Transformed(Uri.fromFile(prepared), entry.codec,
+                            entry.size, entry.hash,
+                            entry.thumbnail != null ? Base64.decode(entry.thumbnail, Base64.NO_WRAP) : null,
+                            entry.uploadPath.equals(entry.stagedPath) ? null : prepared);
+                    upload.hash = entry.hash;
+                    upload.objectRef = storage.getReference(blobPath(uid, entry.hash));
+                    upload.sessionUri = entry.sessionUri != null ? Uri.parse(entry.sessionUri) : null;
+                }
+                upload.storedSize = entry.storedSize;
+                upload.done = entry.done;
+                if (upload.done) {
+                    completed++;
+                }
+                uploads.add(upload);
+            }
+        }
+
+        void begin() {
+            if (uid == null) {
+                fail("Sign in again to submit", null, false);
+                return;
+            }
+            pump();
+        }
+
+        // Starts uploads until the window is full
+        void pump() {
+            while (!finished && next < uploads.size() && inFlight < maxInFlight) {
+                FileUpload upload = uploads.get(next++);
+                if (upload.done) {
+                    continue;
+                }
+                inFlight++;
+                if (upload.source != null) {
+                    uploadIfMissing(upload);
+                } else {
+                    prepare(upload);
+                }
+            }
+            if (!finished && completed == uploads.size()) {
+                commit(1);
+            }
+        }
+
+        private void prepare(FileUpload upload) {
+            PREPARE_EXECUTOR.execute(() -> {
+                Uri uri = upload.attachment.getUri();
+                AttachmentTransformer.Transformed source = transformer != null
+                        ? transformer.transform(uri, upload.contentType, metrics)
+                        : new AttachmentTransformer.Transformed(uri, AttachmentTransformer.CODEC_IDENTITY, -1, null,
+                                null, null);
+                String hash;
+                long hashStart = System.nanoTime();
+                try {
+                    if (source.hash != null) {
+                        hash = source.hash;
+                    } else if (source.uri.equals(uri) && upload.attachment.getSha256() != null) {
+                        // Uploaded as picked, and already hashed when it was picked
+                        hash = upload.attachment.getSha256();
+                    } else {
+                        hash = ContentHash.of(contentResolver, source.uri);
+                    }
+                    metrics.recordEncode(System.nanoTime() - hashStart);
+                } catch (IOException e) {
+                    source.discard();
+                    CALLBACK_EXECUTOR.execute(
+                            () -> fail("Failed to read " + upload.attachment.getName() + ": " + e.getMessage(), e,
+                                    false));
+                    return;
+                }
+                CALLBACK_EXECUTOR.execute(() -> {
+                    upload.source = source;
+                    upload.hash = hash;
+                    upload.objectRef = storage.getReference(blobPath(uid, hash));
+                    if (finished) {
+                        source.discard();
+                    } else {
+                        persist(upload);
+                        uploadIfMissing(upload);
+                    }
+                });
+            });
+        }
+
+        // Blobs are only ever created, never replaced, but only one that matches the file is reused
+        private void uploadIfMissing(FileUpload upload) {
+            upload.objectRef.getMetadata()
+                    .addOnSuccessListener(CALLBACK_EXECUTOR, metadata -> {
+                        if (finished) {
+                            return;
+                        }
+                        long length = upload.uploadLength();
+                        if (!upload.hash.equals(metadata.getCustomMetadata("sha256"))
+                                || (length >= 0 && metadata.getSizeBytes() != length)) {
+                            // It can't be replaced either, so this file can't be submitted as is
+                            Log.e(TAG, upload.objectRef.getPath() + " does not match " + upload.attachment.getName());
+                            fail("The stored copy of " + upload.attachment.getName() + " is damaged", null, false);
+                            return;
+                        }
+                        Log.d(TAG, "Reusing " + upload.objectRef.getPath() + " for " + upload.attachment.getName());
+                        upload.storedSize = metadata.getSizeBytes();
+                        complete(upload);
+                    })
+                    .addOnFailureListener(CALLBACK_EXECUTOR, e -> {
+                        if (!finished) {
+                            start(upload);
+                        }
+                    });
+        }
+
+        private void complete(FileUpload upload) {
+            if (finished) {
+                return;
+            }
+            upload.done = true;
+            persist(upload);
+            inFlight--;
+            completed++;
+            int stored = completed;
+            mainHandler.post(() -> listener.onProgress(stored, uploads.size()));
+            pump();
+        }
+
+        // Records the upload's progress in the checkpoint, if there is one
+        private void persist(FileUpload upload) {
+            if (checkpoint == null) {
+                return;
+            }
+            SubmissionCheckpoint.FileEntry entry = upload.entry;
+            if (upload.source != null) {
+                entry.uploadPath = upload.source.uri.getPath();
+                entry.codec = upload.source.codec;
+                entry.size = upload.source.size;
+                entry.hash = upload.hash;
+                entry.thumbnail = upload.source.thumbnail != null
+                        ? Base64.encodeToString(upload.source.thumbnail, Base64.NO_WRAP) : null;
+            }
+            entry.sessionUri = upload.sessionUri != null ? upload.sessionUri.toString() : null;
+            entry.storedSize = upload.storedSize;
+            entry.done = upload.done;
+            try {
+                checkpoint.save();
+            } catch (IOException e) {
+                // The upload itself is fine; a restart would just redo this step
+                Log.w(TAG, "Could not save checkpoint for " + submissionRef.getId(), e);
+            }
+        }
+
+        private void start(FileUpload upload) {
+            upload.attempt++;
+            upload.startNanos = System.nanoTime();
+            StorageMetadata metadata = upload.metadata();
+            UploadTask task = upload.sessionUri != null
+                    ? upload.objectRef.putFile(upload.source.uri, metadata, upload.sessionUri)
+                    : upload.objectRef.putFile(upload.source.uri, metadata);
+            upload.task = task;
+            task.addOnProgressListener(CALLBACK_EXECUTOR, snapshot -> {
+                if (finished) {
+                    return;
+                }
+                Uri sessionUri = snapshot.getUploadSessionUri();
+                if (sessionUri != null && !sessionUri.equals(upload.sessionUri)) {
+                    upload.sessionUri = sessionUri;
+                    persist(upload);
+                }
+            });
+            task.addOnSuccessListener(CALLBACK_EXECUTOR, snapshot -> {
+                upload.storedSize = snapshot.getTotalByteCount();
+                metrics.recordTransfer(upload.storedSize, upload.startNanos, System.nanoTime());
+                complete(upload);
+            });
+            task.addOnFailureListener(CALLBACK_EXECUTOR, e -> {
+                if (finished) {
+                    return;
+                }
+                if (upload.attempt >= MAX_ATTEMPTS || !isRetryable(e)) {
+                    Log.e(TAG, "Giving up on " + upload.objectRef.getPath(), e);
+                    fail("Failed to upload " + upload.attachment.getName() + ": " + e.getMessage(), e,
+                            isRetryable(e));
+                    return;
+                }
+                metrics.recordRetry();
+                if (upload.sessionUri != null && isSessionGone(e)) {
+                    // Nothing of an expired session can be resumed, so open a new one
+                    upload.sessionUri = null;
+                    persist(upload);
+                }
+                Log.w(TAG, "Resuming " + upload.objectRef.getPath() + " after attempt " + upload.attempt, e);
+                // Another submission may have created the same blob meanwhile
+                CALLBACK_EXECUTOR.schedule(() -> {
+                    if (!finished) {
+                        uploadIfMissing(upload);
+                    }
+                }, backoff(upload.attempt), TimeUnit.MILLISECONDS);
+            });
+        }
+
+        private void commit(int attempt) {
+            WriteBatch batch = db.batch();
+            for (FileUpload upload : uploads) {
+                Map<String, Object> fileDoc = new HashMap<>();
+                fileDoc.put("name", upload.attachment.getName());
+                fileDoc.put("storagePath", upload.objectRef.getPath());
+                fileDoc.put("sha256", upload.hash);
+                // size is what the reader ends up with; storedSize is what Storage holds
+                fileDoc.put("size", upload.source.size >= 0 ? upload.source.size : upload.storedSize);
+                fileDoc.put("storedSize", upload.storedSize);
+                fileDoc.put("contentType", upload.contentType);
+                fileDoc.put("codec", upload.source.codec);
+                if (upload.source.thumbnail != null) {
+                    fileDoc.put("thumbnail", Blob.fromBytes(upload.source.thumbnail));
+                }
+                batch.set(upload.fileRef, fileDoc);
+            }
+            batch.set(submissionRef, submission);
+
+            batch.commit().addOnSuccessListener(CALLBACK_EXECUTOR, aVoid -> {
+                finished = true;
+                discardSources();
+                metrics.finish(true);
+                Log.d(TAG, "Submission " + submissionRef.getId() + " committed with " + uploads.size() + " files");
+                mainHandler.post(() -> listener.onSubmitted(submissionRef.getId()));
+            }).addOnFailureListener(CALLBACK_EXECUTOR, e -> {
+                if (attempt >= MAX_ATTEMPTS || !isRetryable(e)) {
+                    fail("Failed to save submission: " + e.getMessage(), e, isRetryable(e));
+                    return;
+                }
+                metrics.recordRetry();
+                CALLBACK_EXECUTOR.schedule(() -> commit(attempt + 1), backoff(attempt), TimeUnit.MILLISECONDS);
+            });
+        }
+
+        void cancel() {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            metrics.finish(false);
+            for (FileUpload upload : uploads) {
+                if (upload.task != null && !upload.done) {
+                    upload.task.cancel();
+                }
+            }
+            Log.d(TAG, "Cancelled submission " + submissionRef.getId());
+        }
+
+        private void fail(String message, Exception e, boolean retryable) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            metrics.finish(false);
+            if (checkpoint == null) {
+                // A checkpointed submission keeps its prepared files for the next attempt
+                discardSources();
+            }
+            mainHandler.post(() -> listener.onFailure(message, e, retryable));
+        }
+
+        // Deletes transformed copies; uploads still being transformed discard theirs when done
+        private void discardSources() {
+            for (FileUpload upload : uploads) {
+                if (upload.source != null) {
+                    upload.source.discard();
+                }
+            }
+        }
+    }
+
+    private static String currentUid() {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        return user != null ? user.getUid() : null;
+    }
+
+    // Rejections by rules, e.g. of an oversized file, and quota errors won't go away by trying again
+    static boolean isRetryable(Exception e) {
+        if (e instanceof StorageException) {
+            switch (((StorageException) e).getErrorCode()) {
+                case StorageException.ERROR_NOT_AUTHENTICATED:
+                case StorageException.ERROR_NOT_AUTHORIZED:
+                case StorageException.ERROR_QUOTA_EXCEEDED:
+                case StorageException.ERROR_BUCKET_NOT_FOUND:
+                case StorageException.ERROR_PROJECT_NOT_FOUND:
+                    return false;
+                default:
+                    return true;
+            }
+        }
+        if (e instanceof FirebaseFirestoreException) {
+            switch (((FirebaseFirestoreException) e).getCode()) {
+                case PERMISSION_DENIED:
+                case UNAUTHENTICATED:
+                case INVALID_ARGUMENT:
+                case FAILED_PRECONDITION:
+                case OUT_OF_RANGE:
+                    return false;
+                default:
+                    return true;
+            }
+        }
+        // Network and other I/O errors
+        return true;
+    }
+
+    private static boolean isSessionGone(Exception e) {
+        if (!(e instanceof StorageException)) {
+            return false;
+        }
+        int status = ((StorageException) e).getHttpResultCode();
+        return status == 404 || status == 410;
+    }
+
+    private static long backoff(int attempt) {
+        return RETRY_BASE_DELAY_MS << (attempt - 1);
+    }
+}
@@ -0,0 +1,90 @@
+package com.activity.studentapp.attachment;
+
+import com.google.firebase.firestore.DocumentReference;
+
+/**
+ * Metadata of a file of a submission, read from its document under
+ * submissions/{id}/files. The content is loaded separately, on demand,
+ * through {@link SubmissionReader#loadContent}; images uploaded with a
+ * thumbnail can be previewed from the metadata alone.
+ */
+public final class SubmittedFile {
+    private final String fileId;
+    private final String name;
+    private final long size;
+    private final String contentType;
+    private final int chunkCount;
+    private final String codec;
+    private final byte[] thumbnail;
+    // Where the content lives: a Storage object, or chunk documents under the file document
+    final String storagePath;
+    // SHA-256 of the stored bytes, which downloads are checked against; null for chunked files
+    final String sha256;
+    final DocumentReference reference;
+
+    SubmittedFile(String fileId, String name, long size, String contentType, int chunkCount, String codec,
+            byte[] thumbnail, String storagePath, String sha256, DocumentReference reference) {
+        this.fileId = fileId;
+        this.name = name;
+        this.size = size;
+        this.contentType = contentType;
+        this.chunkCount = chunkCount;
+        this.codec = codec;
+        this.thumbnail = thumbnail;
+        this.storagePath = storagePath;
+        this.sha256 = sha256;
+        this.reference = reference;
+    }
+
+    public String getFileId() {
+        return fileId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Size in bytes, or -1 if the document doesn't record it (older chunked files).
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * MIME type, or null if unknown.
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Number of base64 chunk documents, or 0 for files stored in Firebase Storage.
+     */
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    /**
+     * How the stored bytes are encoded, e.g. "deflate"; "identity" for files stored as they are.
+     */
+    public String getCodec() {
+        return codec;
+    }
+
+    /**
+     * Small JPEG preview stored with image files, or null if the file has none.
+     */
+    public byte[] getThumbnail() {
+        return thumbnail;
+    }
+
+    public boolean isChunked() {
+        return chunkCount > 0;
+    }
+
+    // The file document lives at submissions/{submissionId}/files/{fileId}
+    String submissionId() {
+        return reference.getParent().getParent().getId();
+    }
+}
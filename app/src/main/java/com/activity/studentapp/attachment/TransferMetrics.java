@@ -0,0 +1,220 @@
+package com.activity.studentapp.attachment;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Process-wide measurements of the attachment pipeline, per submission.
+ *
+ * Uploads and reads each get a {@link Session} per submission that collects
+ * the bytes moved, the time from the first transfer starting to the last one
+ * ending, a latency histogram of the individual transfers (a Storage object
+ * or a batch of chunk documents), retries, the CPU time spent encoding
+ * (transforming, hashing) and decoding (base64, inflating), and the largest
+ * buffer held in memory. Comparing transfer time with encode and decode time
+ * tells a network-bound submission from a CPU-bound one.
+ *
+ * The most recent {@link #MAX_SESSIONS} sessions are kept in memory and can
+ * be exported as a JSON report. All methods are thread safe.
+ */
+public final class TransferMetrics {
+    public static final String UPLOAD = "upload";
+    public static final String READ = "read";
+
+    static final int MAX_SESSIONS = 20;
+
+    private static TransferMetrics instance;
+
+    // Insertion ordered, so the oldest session is dropped first
+    private final Map<String, Session> sessions = new LinkedHashMap<>();
+
+    TransferMetrics() {
+    }
+
+    public static synchronized TransferMetrics getInstance() {
+        if (instance == null) {
+            instance = new TransferMetrics();
+        }
+        return instance;
+    }
+
+    /**
+     * Latencies in power-of-two millisecond buckets: bucket i counts values up to 2^i ms.
+     */
+    static final class Histogram {
+        static final int BUCKETS = 14;
+
+        final long[] counts = new long[BUCKETS];
+        long count;
+        long totalMs;
+        long maxMs;
+
+        void record(long ms) {
+            int bucket = 0;
+            while (bucket < BUCKETS - 1 && ms > (1L << bucket)) {
+                bucket++;
+            }
+            counts[bucket]++;
+            count++;
+            totalMs += ms;
+            maxMs = Math.max(maxMs, ms);
+        }
+
+        JSONObject toJson() throws JSONException {
+            JSONObject buckets = new JSONObject();
+            for (int i = 0; i < BUCKETS; i++) {
+                if (counts[i] > 0) {
+                    buckets.put(i == BUCKETS - 1 ? ">" + (1L << (i - 1)) : "<=" + (1L << i), counts[i]);
+                }
+            }
+            return new JSONObject()
+                    .put("count", count)
+                    .put("meanMs", count > 0 ? totalMs / count : 0)
+                    .put("maxMs", maxMs)
+                    .put("bucketsMs", buckets);
+        }
+    }
+
+    public static final class Session {
+        final String direction;
+        final String submissionId;
+        final long createdAt = System.currentTimeMillis();
+        final Histogram latency = new Histogram();
+        long bytes;
+        long firstStartNanos = -1;
+        long lastEndNanos = -1;
+        int retries;
+        long encodeNanos;
+        long decodeNanos;
+        long peakBufferBytes;
+        String outcome;
+
+        Session(String direction, String submissionId) {
+            this.direction = direction;
+            this.submissionId = submissionId;
+        }
+
+        /**
+         * One transfer of {@code bytes} over the network, timed with {@link System#nanoTime()}.
+         */
+        synchronized void recordTransfer(long bytes, long startNanos, long endNanos) {
+            this.bytes += bytes;
+            if (firstStartNanos < 0 || startNanos < firstStartNanos) {
+                firstStartNanos = startNanos;
+            }
+            lastEndNanos = Math.max(lastEndNanos, endNanos);
+            latency.record((endNanos - startNanos) / 1_000_000);
+        }
+
+        synchronized void recordRetry() {
+            retries++;
+        }
+
+        synchronized void recordEncode(long nanos) {
+            encodeNanos += nanos;
+        }
+
+        synchronized void recordDecode(long nanos) {
+            decodeNanos += nanos;
+        }
+
+        synchronized void recordBuffer(long bytes) {
+            peakBufferBytes = Math.max(peakBufferBytes, bytes);
+        }
+
+        synchronized void finish(boolean success) {
+            outcome = success ? "succeeded" : "failed";
+        }
+
+        /**
+         * Bytes per second between the first transfer starting and the last one ending.
+         */
+        synchronized long bytesPerSecond() {
+            long elapsed = lastEndNanos - firstStartNanos;
+            return firstStartNanos < 0 || elapsed <= 0 ? 0 : bytes * 1_000_000_000L / elapsed;
+        }
+
+        synchronized JSONObject toJson() throws JSONException {
+            long transferNanos = firstStartNanos < 0 ? 0 : lastEndNanos - firstStartNanos;
+            return new JSONObject()
+                    .put("direction", direction)
+                    .put("submissionId", submissionId)
+                    .put("createdAt", createdAt)
+                    .put("outcome", outcome != null ? outcome : "running")
+                    .put("bytes", bytes)
+                    .put("transferMs", transferNanos / 1_000_000)
+                    .put("bytesPerSecond", bytesPerSecond())
+                    .put("latency", latency.toJson())
+                    .put("retries", retries)
+                    .put("encodeMs", encodeNanos / 1_000_000)
+                    .put("decodeMs", decodeNanos / 1_000_000)
+                    .put("peakBufferBytes", peakBufferBytes)
+                    .put("boundBy", encodeNanos + decodeNanos > transferNanos ? "cpu" : "network");
+        }
+    }
+
+    /**
+     * The session for the submission in the given direction, started on first use.
+     */
+    public synchronized Session session(String direction, String submissionId) {
+        String key = direction + "/" + submissionId;
+        Session session = sessions.get(key);
+        if (session == null) {
+            session = new Session(direction, submissionId);
+            sessions.put(key, session);
+            Iterator<Session> oldest = sessions.values().iterator();
+            while (sessions.size() > MAX_SESSIONS) {
+                oldest.next();
+                oldest.remove();
+            }
+        }
+        return session;
+    }
+
+    synchronized List<Session> getSessions() {
+        return new ArrayList<>(sessions.values());
+    }
+
+    public synchronized void reset() {
+        sessions.clear();
+    }
+
+    /**
+     * The report of every kept session, newest first.
+     */
+    public JSONObject toJson() throws JSONException {
+        List<Session> kept = getSessions();
+        JSONArray array = new JSONArray();
+        for (int i = kept.size() - 1; i >= 0; i--) {
+            array.put(kept.get(i).toJson());
+        }
+        return new JSONObject()
+                .put("generatedAt", System.currentTimeMillis())
+                .put("sessions", array);
+    }
+
+    /**
+     * Writes the report to attachment-metrics.json in the directory.
+     */
+    public File export(File directory) throws IOException {
+        File report = new File(directory, "attachment-metrics.json");
+        try (OutputStream out = new FileOutputStream(report)) {
+            out.write(toJson().toString(2).getBytes(StandardCharsets.UTF_8));
+        } catch (JSONException e) {
+            throw new IOException("Could not build the report", e);
+        }
+        return report;
+    }
+}
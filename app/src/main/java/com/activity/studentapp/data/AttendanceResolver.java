@@ -0,0 +1,188 @@
+package com.activity.studentapp.data;
+
+import android.util.Log;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Memoized "was the student present" lookup keyed by (student, subject, date).
+ *
+ * Each key costs at most one attendance query. When a live attendance stream
+ * for the student and subject is attached, lookups are answered from its
+ * latest snapshot, which covers every date, and wait for its first snapshot
+ * instead of querying at all. Callbacks run on the main thread.
+ */
+public class AttendanceResolver {
+    private static final String TAG = "AttendanceResolver";
+
+    public interface Callback {
+        void onResolved(boolean present);
+    }
+
+    private final FirebaseFirestore db;
+    private final Map<String, Boolean> resolved = new HashMap<>();
+    private final Map<String, List<Callback>> pending = new HashMap<>();
+    private final Set<String> streamed = new HashSet<>();
+    // Dates the student was present on, per stream, from its latest snapshot
+    private final Map<String, Set<String>> presentDates = new HashMap<>();
+
+    public AttendanceResolver(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    public static String today() {
+        return new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(new Date());
+    }
+
+    public void isPresent(String studentId, String subjectId, String date, Callback callback) {
+        String key = key(studentId, subjectId, date);
+        Boolean present = resolved.get(key);
+        if (present != null) {
+            callback.onResolved(present);
+            return;
+        }
+
+        Set<String> dates = presentDates.get(streamKey(studentId, subjectId));
+        if (dates != null) {
+            // E.g. a new day: the stream's last snapshot already holds every date
+            boolean answer = dates.contains(date);
+            resolved.put(key, answer);
+            callback.onResolved(answer);
+            return;
+        }
+
+        List<Callback> waiting = pending.get(key);
+        if (waiting != null) {
+            waiting.add(callback);
+            return;
+        }
+        waiting = new ArrayList<>();
+        waiting.add(callback);
+        pending.put(key, waiting);
+
+        if (streamed.contains(streamKey(studentId, subjectId))) {
+            // The attendance listener will answer with its first snapshot
+            return;
+        }
+
+        db.collection("attendance")
+                .whereEqualTo("studentId", studentId)
+                .whereEqualTo("subjectId", subjectId)
+                .whereEqualTo("date", date)
+                .whereEqualTo("isPresent", true)
+                .get()
+                .addOnSuccessListener(querySnapshot -> {
+                    Log.d(TAG, "Attendance for " + key + " - Present: " + !querySnapshot.isEmpty());
+                    resolve(key, !querySnapshot.isEmpty());
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error checking attendance: " + e.getMessage());
+                    // On error, assume no attendance for security but don't cache the answer
+                    List<Callback> callbacks = pending.remove(key);
+                    if (callbacks != null) {
+                        for (Callback c : callbacks) {
+                            c.onResolved(false);
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Marks that a live attendance listener for the student and subject is being attached.
+     */
+    public void attachStream(String studentId, String subjectId) {
+        streamed.add(streamKey(studentId, subjectId));
+    }
+
+    public void detachStream(String studentId, String subjectId) {
+        streamed.remove(streamKey(studentId, subjectId));
+        presentDates.remove(streamKey(studentId, subjectId));
+    }
+
+    /**
+     * The attendance listener failed; answer anything waiting on it with a one-off query instead.
+     */
+    public void onStreamError(String studentId, String subjectId) {
+        detachStream(studentId, subjectId);
+        String prefix = streamKey(studentId, subjectId) + "|";
+        for (String key : new ArrayList<>(pending.keySet())) {
+            if (key.startsWith(prefix)) {
+                List<Callback> callbacks = pending.remove(key);
+                String date = key.substring(prefix.length());
+                for (Callback callback : callbacks) {
+                    isPresent(studentId, subjectId, date, callback);
+                }
+            }
+        }
+    }
+
+    /**
+     * Feeds a snapshot of attendance filtered by studentId and subjectId (all dates) into the cache,
+     * answering any lookups waiting for it.
+     *
+     * @return true if an answer already given for the student and subject changed
+     */
+    public boolean onAttendanceSnapshot(String studentId, String subjectId, QuerySnapshot snapshot) {
+        Set<String> dates = new HashSet<>();
+        for (DocumentSnapshot doc : snapshot.getDocuments()) {
+            String date = doc.getString("date");
+            if (date != null && Boolean.TRUE.equals(doc.getBoolean("isPresent"))) {
+                dates.add(date);
+            }
+        }
+        return onPresentDates(studentId, subjectId, dates);
+    }
+
+    boolean onPresentDates(String studentId, String subjectId, Set<String> dates) {
+        String stream = streamKey(studentId, subjectId);
+        presentDates.put(stream, dates);
+        String prefix = stream + "|";
+        boolean changed = false;
+        for (Map.Entry<String, Boolean> entry : resolved.entrySet()) {
+            if (entry.getKey().startsWith(prefix)) {
+                boolean present = dates.contains(entry.getKey().substring(prefix.length()));
+                if (entry.getValue() != present) {
+                    entry.setValue(present);
+                    changed = true;
+                }
+            }
+        }
+        // Lookups that waited for the first snapshot get their answer now, which is not a change
+        for (String key : new ArrayList<>(pending.keySet())) {
+            if (key.startsWith(prefix)) {
+                resolve(key, dates.contains(key.substring(prefix.length())));
+            }
+        }
+        return changed;
+    }
+
+    private void resolve(String key, boolean present) {
+        resolved.put(key, present);
+        List<Callback> callbacks = pending.remove(key);
+        if (callbacks != null) {
+            for (Callback callback : callbacks) {
+                callback.onResolved(present);
+            }
+        }
+    }
+
+    private static String key(String studentId, String subjectId, String date) {
+        return studentId + "|" + subjectId + "|" + date;
+    }
+
+    private static String streamKey(String studentId, String subjectId) {
+        return studentId + "|" + subjectId;
+    }
+}
@@ -0,0 +1,75 @@
+package com.activity.studentapp.data;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Threads for Firestore results: snapshots are parsed, sorted and grouped on
+ * one background thread, and only the finished result is posted to the main
+ * thread.
+ *
+ * The background thread is single, so results of one stream arrive in the
+ * order their snapshots did, which incremental consumers such as
+ * {@link LiveSortedList} rely on. Parsers must not touch views and should
+ * return data the main thread won't have to copy or sort again.
+ */
+public final class FirestoreExecutors {
+
+    /**
+     * Runs snapshot callbacks and parsing, in order.
+     */
+    public static final ExecutorService BACKGROUND =
+            Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "firestore-callbacks"));
+
+    private static Handler mainHandler;
+
+    public interface Parser<S, T> {
+        T parse(S input) throws Exception;
+    }
+
+    public interface Callback<T> {
+        /**
+         * @param result the parsed result, or null on error
+         * @param e the listener or parsing error, or null
+         */
+        void onResult(T result, Exception e);
+    }
+
+    private FirestoreExecutors() {
+    }
+
+    /**
+     * Parses the input in the background and delivers the result on the main thread.
+     */
+    public static <S, T> void parse(S input, Parser<S, T> parser, Callback<T> callback) {
+        BACKGROUND.execute(() -> deliver(input, null, parser, callback));
+    }
+
+    /**
+     * Parses on the calling background thread, e.g. inside a snapshot listener attached with
+     * {@link #BACKGROUND}, and delivers on the main thread.
+     */
+    static <S, T> void deliver(S input, Exception error, Parser<S, T> parser, Callback<T> callback) {
+        T result = null;
+        if (error == null && input != null) {
+            try {
+                result = parser.parse(input);
+            } catch (Exception e) {
+                error = e;
+            }
+        }
+        T parsed = result;
+        Exception failure = error;
+        postToMain(() -> callback.onResult(parsed, failure));
+    }
+
+    public static synchronized void postToMain(Runnable action) {
+        if (mainHandler == null) {
+            mainHandler = new Handler(Looper.getMainLooper());
+        }
+        mainHandler.post(action);
+    }
+}
@@ -0,0 +1,219 @@
+package com.activity.studentapp.data;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.EventListener;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Process-wide hub that keeps one live snapshot listener per query key and
+ * shares it between every screen that subscribes to the same key.
+ *
+ * Subscribers are reference counted: the Firestore listener is attached for
+ * the first subscriber and detached a short while after the last one leaves,
+ * so hopping between the dashboard, schedule and profile screens reuses the
+ * same stream. A new subscriber immediately receives the latest snapshot.
+ * An error ends the stream for its current subscribers; the next subscriber
+ * attaches a fresh listener rather than inheriting the failed one.
+ *
+ * All methods must be called on the main thread.
+ */
+public final class FirestoreListenerHub {
+    private static final String TAG = "FirestoreListenerHub";
+
+    // Keep an unused stream alive briefly so activity recreation doesn't re-read it
+    private static final long DETACH_DELAY_MS = 5000;
+
+    private static FirestoreListenerHub instance;
+
+    private final FirebaseFirestore db;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Map<String, Channel<?>> channels = new HashMap<>();
+
+    private FirestoreListenerHub(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    public static synchronized FirestoreListenerHub getInstance() {
+        if (instance == null) {
+            instance = new FirestoreListenerHub(FirebaseFirestore.getInstance());
+        }
+        return instance;
+    }
+
+    // Shared keys
+    public static String studentKey(String studentDocId) {
+        return "students/" + studentDocId;
+    }
+
+    public static String sectionScheduleKey(String sectionName) {
+        return "class_schedule?sectionName=" + sectionName;
+    }
+
+    public static String subjectsKey(String gradeLevel) {
+        return "subjects?gradeLevel=" + gradeLevel;
+    }
+
+    /**
+     * Listens to students/{studentDocId}.
+     */
+    public ListenerRegistration listenToStudent(String studentDocId, EventListener<DocumentSnapshot> listener) {
+        return listen(studentKey(studentDocId), db.collection("students").document(studentDocId), listener);
+    }
+
+    /**
+     * Listens to class_schedule filtered by the full section name, e.g. "Grade 7 - Rizal".
+     */
+    public ListenerRegistration listenToSectionSchedule(String sectionName, EventListener<QuerySnapshot> listener) {
+        return listen(sectionScheduleKey(sectionName),
+                db.collection("class_schedule").whereEqualTo("sectionName", sectionName), listener);
+    }
+
+    /**
+     * Listens to the subjects offered to a grade level.
+     */
+    public ListenerRegistration listenToSubjects(String gradeLevel, EventListener<QuerySnapshot> listener) {
+        return listen(subjectsKey(gradeLevel), db.collection("subjects").whereEqualTo("gradeLevel", gradeLevel),
+                listener);
+    }
+
+    /**
+     * Delivers a single class_schedule snapshot for the section, reusing the live stream if one is held.
+     */
+    public void getSectionScheduleOnce(String sectionName, EventListener<QuerySnapshot> listener) {
+        ListenerRegistration[] registration = new ListenerRegistration[1];
+        registration[0] = listenToSectionSchedule(sectionName, (snapshot, e) -> {
+            if (registration[0] == null) {
+                return;
+            }
+            registration[0].remove();
+            registration[0] = null;
+            listener.onEvent(snapshot, e);
+        });
+    }
+
+    public ListenerRegistration listen(String key, Query query, EventListener<QuerySnapshot> listener) {
+        return subscribe(key, query::addSnapshotListener, listener);
+    }
+
+    public ListenerRegistration listen(String key, DocumentReference document,
+            EventListener<DocumentSnapshot> listener) {
+        return subscribe(key, document::addSnapshotListener, listener);
+    }
+
+    /**
+     * Number of subscribers currently sharing the stream for the given key.
+     */
+    public int getSubscriberCount(String key) {
+        Channel<?> channel = channels.get(key);
+        return channel != null ? channel.subscribers.size() : 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> ListenerRegistration subscribe(String key, Source<T> source, EventListener<T> listener) {
+        Channel<T> channel = (Channel<T>) channels.get(key);
+        if (channel == null) {
+            channel = new Channel<>(key, source);
+            channels.put(key, channel);
+        }
+        return channel.add(listener);
+    }
+
+    private interface Source<T> {
+        ListenerRegistration attach(EventListener<T> sink);
+    }
+
+    private final class Channel<T> implements EventListener<T> {
+        private final String key;
+        private final Source<T> source;
+        private final List<EventListener<T>> subscribers = new ArrayList<>();
+        private ListenerRegistration upstream;
+        private Runnable pendingDetach;
+        private T latest;
+        private boolean hasValue;
+
+        Channel(String key, Source<T> source) {
+            this.key = key;
+            this.source = source;
+        }
+
+        ListenerRegistration add(EventListener<T> listener) {
+            subscribers.add(listener);
+            if (pendingDetach != null) {
+                mainHandler.removeCallbacks(pendingDetach);
+                pendingDetach = null;
+            }
+            if (upstream == null) {
+                Log.d(TAG, "Attaching listener for " + key);
+                upstream = source.attach(this);
+            } else if (hasValue) {
+                // Hand the cached snapshot to the newcomer without another read
+                mainHandler.post(() -> {
+                    if (subscribers.contains(listener)) {
+                        listener.onEvent(latest, null);
+                    }
+                });
+            }
+            return () -> remove(listener);
+        }
+
+        private void remove(EventListener<T> listener) {
+            if (!subscribers.remove(listener) || !subscribers.isEmpty()) {
+                return;
+            }
+            pendingDetach = () -> {
+                pendingDetach = null;
+                if (subscribers.isEmpty() && upstream != null) {
+                    Log.d(TAG, "Detaching listener for " + key);
+                    close();
+                }
+            };
+            mainHandler.postDelayed(pendingDetach, DETACH_DELAY_MS);
+        }
+
+        @Override
+        public void onEvent(T value, FirebaseFirestoreException e) {
+            // Copy so subscribers may unsubscribe from inside their callback
+            List<EventListener<T>> receivers = new ArrayList<>(subscribers);
+            if (e != null) {
+                // Firestore has already ended the listener, so drop the channel instead of replaying the error
+                Log.w(TAG, "Listener for " + key + " failed", e);
+                close();
+            } else {
+                latest = value;
+                hasValue = true;
+            }
+            for (EventListener<T> subscriber : receivers) {
+                subscriber.onEvent(value, e);
+            }
+        }
+
+        private void close() {
+            if (upstream != null) {
+                upstream.remove();
+                upstream = null;
+            }
+            if (pendingDetach != null) {
+                mainHandler.removeCallbacks(pendingDetach);
+                pendingDetach = null;
+            }
+            subscribers.clear();
+            if (channels.get(key) == this) {
+                channels.remove(key);
+            }
+        }
+    }
+}
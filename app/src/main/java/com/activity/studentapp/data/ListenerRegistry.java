@@ -0,0 +1,214 @@
+package com.activity.studentapp.data;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.EventListener;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The snapshot listeners of one screen, keyed by query and removed together
+ * when the screen is destroyed.
+ *
+ * Registering a key the screen already listens to keeps the existing listener,
+ * so code that runs on every snapshot of some other stream can't stack up
+ * duplicates; call {@link #remove} first to really replace one. Live counts
+ * per screen are kept process-wide for the debug metrics screen. A screen
+ * holding more than {@link #MAX_PER_SCREEN} listeners is almost certainly
+ * leaking them, which fails fast in debuggable builds and is logged
+ * otherwise.
+ *
+ * All methods must be called on the main thread.
+ */
+public final class ListenerRegistry {
+    private static final String TAG = "ListenerRegistry";
+
+    static final int MAX_PER_SCREEN = 24;
+
+    // Live listeners per screen class, across every instance of it
+    private static final Map<String, Integer> LIVE_COUNTS = new TreeMap<>();
+
+    private final String screen;
+    private final boolean strict;
+    private final Map<String, ListenerRegistration> registrations = new LinkedHashMap<>();
+    private boolean destroyed;
+
+    ListenerRegistry(String screen, boolean strict) {
+        this.screen = screen;
+        this.strict = strict;
+    }
+
+    /**
+     * A registry for the owner, cleared when it is destroyed.
+     */
+    public static ListenerRegistry of(LifecycleOwner owner) {
+        boolean strict = owner instanceof Context
+                && (((Context) owner).getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+        ListenerRegistry registry = new ListenerRegistry(owner.getClass().getSimpleName(), strict);
+        Lifecycle lifecycle = owner.getLifecycle();
+        if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            registry.destroyed = true;
+        } else {
+            lifecycle.addObserver(new DefaultLifecycleObserver() {
+                @Override
+                public void onDestroy(@NonNull LifecycleOwner source) {
+                    source.getLifecycle().removeObserver(this);
+                    registry.clear();
+                }
+            });
+        }
+        return registry;
+    }
+
+    public interface Attach {
+        ListenerRegistration attach();
+    }
+
+    /**
+     * Attaches a listener under the key unless one is already registered, e.g. a
+     * {@link FirestoreListenerHub} subscription. Only the caller that attached the
+     * listener gets a handle that removes it; duplicates get a handle that does nothing.
+     */
+    public ListenerRegistration add(String key, Attach attach) {
+        if (registrations.containsKey(key)) {
+            // The listener belongs to whoever attached it
+            return () -> {
+            };
+        }
+        if (destroyed) {
+            // A late callback after onDestroy; attaching now would leak
+            Log.w(TAG, screen + " is destroyed, not listening to " + key);
+            return () -> {
+            };
+        }
+        ListenerRegistration upstream = attach.attach();
+        registrations.put(key, upstream);
+        updateCount(1);
+        // A stale handle must not remove a listener attached later under the same key
+        return () -> {
+            if (registrations.get(key) == upstream) {
+                remove(key);
+            }
+        };
+    }
+
+    public ListenerRegistration listen(String key, Query query, EventListener<QuerySnapshot> listener) {
+        return add(key, () -> query.addSnapshotListener(listener));
+    }
+
+    public ListenerRegistration listen(String key, DocumentReference document,
+            EventListener<DocumentSnapshot> listener) {
+        return add(key, () -> document.addSnapshotListener(listener));
+    }
+
+    /**
+     * Listens on {@link FirestoreExecutors#BACKGROUND}: each snapshot is parsed there and only the
+     * result reaches the callback, on the main thread. Results still in flight when the key is
+     * removed are dropped.
+     */
+    public <T> ListenerRegistration listen(String key, Query query, FirestoreExecutors.Parser<QuerySnapshot, T> parser,
+            FirestoreExecutors.Callback<T> callback) {
+        return add(key, () -> {
+            boolean[] live = {true};
+            ListenerRegistration upstream = query.addSnapshotListener(FirestoreExecutors.BACKGROUND,
+                    (snapshot, e) -> FirestoreExecutors.deliver(snapshot, e, parser, (result, error) -> {
+                        if (live[0]) {
+                            callback.onResult(result, error);
+                        }
+                    }));
+            return () -> {
+                live[0] = false;
+                upstream.remove();
+            };
+        });
+    }
+
+    /**
+     * Parses a snapshot received under the key, e.g. from a shared {@link FirestoreListenerHub} stream, on
+     * {@link FirestoreExecutors#BACKGROUND}. The result is dropped if the listener under the key is removed
+     * or replaced before it arrives, which includes the screen being destroyed.
+     */
+    public <S, T> void parse(String key, S input, FirestoreExecutors.Parser<S, T> parser,
+            FirestoreExecutors.Callback<T> callback) {
+        ListenerRegistration owner = registrations.get(key);
+        if (owner == null) {
+            return;
+        }
+        FirestoreExecutors.parse(input, parser, (result, error) -> {
+            if (registrations.get(key) == owner) {
+                callback.onResult(result, error);
+            }
+        });
+    }
+
+    public boolean contains(String key) {
+        return registrations.containsKey(key);
+    }
+
+    /**
+     * Detaches the listener registered under the key, if any.
+     */
+    public void remove(String key) {
+        ListenerRegistration upstream = registrations.remove(key);
+        if (upstream != null) {
+            upstream.remove();
+            updateCount(-1);
+        }
+    }
+
+    /**
+     * Number of listeners this screen currently holds.
+     */
+    public int size() {
+        return registrations.size();
+    }
+
+    void clear() {
+        destroyed = true;
+        for (String key : new ArrayList<>(registrations.keySet())) {
+            remove(key);
+        }
+    }
+
+    /**
+     * Live listeners per screen, for debugging leaks.
+     */
+    public static synchronized Map<String, Integer> getLiveCounts() {
+        return Collections.unmodifiableMap(new TreeMap<>(LIVE_COUNTS));
+    }
+
+    private void updateCount(int delta) {
+        synchronized (ListenerRegistry.class) {
+            Integer count = LIVE_COUNTS.get(screen);
+            int live = (count != null ? count : 0) + delta;
+            if (live > 0) {
+                LIVE_COUNTS.put(screen, live);
+            } else {
+                LIVE_COUNTS.remove(screen);
+            }
+        }
+        if (delta > 0 && registrations.size() > MAX_PER_SCREEN) {
+            String message = screen + " holds " + registrations.size() + " listeners: " + registrations.keySet();
+            if (strict) {
+                throw new IllegalStateException(message);
+            }
+            Log.w(TAG, message);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.activity.studentapp.data;
+
+import android.util.Log;
+
+import androidx.recyclerview.widget.ListUpdateCallback;
+
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sorted list of parsed documents that is patched in place from
+ * {@link QuerySnapshot#getDocumentChanges()} instead of being rebuilt.
+ *
+ * Items are keyed by document path, so several collections (e.g. activities
+ * and assignments) can feed one list. Positions are found by binary search
+ * and only item-level changes are reported to the {@link ListUpdateCallback}.
+ * Not thread safe; use from one thread.
+ */
+public class LiveSortedList<T> {
+
+    public interface DocumentParser<T> {
+        T parse(QueryDocumentSnapshot document) throws Exception;
+    }
+
+    public interface ItemUpdater<T> {
+        // Returns true if the item was changed
+        boolean update(T item);
+    }
+
+    private static final class Entry<T> {
+        final String key;
+        final T item;
+
+        Entry(String key, T item) {
+            this.key = key;
+            this.item = item;
+        }
+    }
+
+    private final Comparator<Entry<T>> order;
+    private final List<Entry<T>> entries = new ArrayList<>();
+    private final Map<String, Entry<T>> byKey = new HashMap<>();
+    private final List<T> view = new AbstractList<T>() {
+        @Override
+        public T get(int index) {
+            if (!visible) {
+                throw new IndexOutOfBoundsException("List is hidden");
+            }
+            return entries.get(index).item;
+        }
+
+        @Override
+        public int size() {
+            return visible ? entries.size() : 0;
+        }
+    };
+    private ListUpdateCallback callback;
+    private boolean visible = true;
+
+    public LiveSortedList(Comparator<T> comparator) {
+        // Break ties by key so every item has exactly one position
+        this.order = (a, b) -> {
+            int result = comparator.compare(a.item, b.item);
+            return result != 0 ? result : a.key.compareTo(b.key);
+        };
+    }
+
+    public void setCallback(ListUpdateCallback callback) {
+        this.callback = callback;
+    }
+
+    /**
+     * Read-only live view of the sorted items; empty while hidden.
+     */
+    public List<T> asList() {
+        return Collections.unmodifiableList(view);
+    }
+
+    public int size() {
+        return view.size();
+    }
+
+    public boolean isEmpty() {
+        return view.isEmpty();
+    }
+
+    public boolean isVisible() {
+        return visible;
+    }
+
+    /**
+     * Shows or hides every item at once, e.g. when a gate such as attendance flips.
+     */
+    public void setVisible(boolean visible) {
+        if (this.visible == visible) {
+            return;
+        }
+        this.visible = visible;
+        if (callback != null && !entries.isEmpty()) {
+            if (visible) {
+                callback.onInserted(0, entries.size());
+            } else {
+                callback.onRemoved(0, entries.size());
+            }
+        }
+    }
+
+    /**
+     * One snapshot's document changes, parsed and ready to apply. Built by {@link #prepare}
+     * on any thread, so parsing stays off the main thread; applying is only the list updates.
+     */
+    public static final class Changes<T> {
+        final String keyPrefix;
+        // Paths of every document in the snapshot when it replaces the collection, else null
+        final Set<String> present;
+        final List<String> keys = new ArrayList<>();
+        // Parallel to keys; null for a removed document
+        final List<T> items = new ArrayList<>();
+
+        Changes(String keyPrefix, Set<String> present) {
+            this.keyPrefix = keyPrefix;
+            this.present = present;
+        }
+
+        public int size() {
+            return keys.size();
+        }
+    }
+
+    /**
+     * Parses the changes of one snapshot of a query on {@code collectionPath}. Pass
+     * {@code reset} for the first snapshot of a freshly attached listener: it reports every
+     * current document as added, so items of that collection no longer present are dropped.
+     * Documents that fail to parse are left out, keeping their previous version in the list.
+     */
+    public static <T> Changes<T> prepare(String collectionPath, QuerySnapshot snapshot, DocumentParser<T> parser,
+            boolean reset) {
+        Set<String> present = null;
+        if (reset) {
+            present = new HashSet<>();
+            for (QueryDocumentSnapshot document : snapshot) {
+                present.add(document.getReference().getPath());
+            }
+        }
+        Changes<T> changes = new Changes<>(collectionPath + "/", present);
+        for (DocumentChange change : snapshot.getDocumentChanges()) {
+            QueryDocumentSnapshot document = change.getDocument();
+            String key = document.getReference().getPath();
+            if (change.getType() == DocumentChange.Type.REMOVED) {
+                changes.keys.add(key);
+                changes.items.add(null);
+                continue;
+            }
+            try {
+                T item = parser.parse(document);
+                changes.keys.add(key);
+                changes.items.add(item);
+            } catch (Exception ex) {
+                // Leave the previous version in place rather than dropping the row
+                Log.e("LiveSortedList", "Error parsing " + key + ": " + ex.getMessage());
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Applies changes built by {@link #prepare}.
+     */
+    public void apply(Changes<T> changes) {
+        if (changes.present != null) {
+            removeMissing(changes.keyPrefix, changes.present);
+        }
+        for (int i = 0; i < changes.keys.size(); i++) {
+            T item = changes.items.get(i);
+            if (item == null) {
+                remove(changes.keys.get(i));
+            } else {
+                upsert(changes.keys.get(i), item);
+            }
+        }
+    }
+
+    /**
+     * Parses and applies the changes of one snapshot on the calling thread; see {@link #prepare}.
+     */
+    public void applyChanges(String collectionPath, QuerySnapshot snapshot, DocumentParser<T> parser,
+            boolean reset) {
+        apply(prepare(collectionPath, snapshot, parser, reset));
+    }
+
+    public void upsert(String key, T item) {
+        Entry<T> entry = new Entry<>(key, item);
+        Entry<T> previous = byKey.put(key, entry);
+        if (previous == null) {
+            int position = insertionPoint(entry);
+            entries.add(position, entry);
+            if (visible && callback != null) {
+                callback.onInserted(position, 1);
+            }
+            return;
+        }
+
+        int from = indexOf(previous);
+        int to = insertionPoint(entry);
+        if (to == from || to == from + 1) {
+            // Sort position unchanged
+            entries.set(from, entry);
+            if (visible && callback != null) {
+                callback.onChanged(from, 1, null);
+            }
+            return;
+        }
+        entries.remove(from);
+        if (to > from) {
+            to--;
+        }
+        entries.add(to, entry);
+        if (visible && callback != null) {
+            callback.onMoved(from, to);
+            callback.onChanged(to, 1, null);
+        }
+    }
+
+    public boolean remove(String key) {
+        Entry<T> previous = byKey.remove(key);
+        if (previous == null) {
+            return false;
+        }
+        int position = indexOf(previous);
+        entries.remove(position);
+        if (visible && callback != null) {
+            callback.onRemoved(position, 1);
+        }
+        return true;
+    }
+
+    /**
+     * Updates every item in place, hidden ones included, and reports the ones that changed.
+     * The updater must not change anything the list is sorted by.
+     */
+    public void updateEach(ItemUpdater<T> updater) {
+        for (int i = 0; i < entries.size(); i++) {
+            if (updater.update(entries.get(i).item) && visible && callback != null) {
+                callback.onChanged(i, 1, null);
+            }
+        }
+    }
+
+    public void clear() {
+        int count = entries.size();
+        entries.clear();
+        byKey.clear();
+        if (visible && callback != null && count > 0) {
+            callback.onRemoved(0, count);
+        }
+    }
+
+    // Drops keys under the prefix that are not in the given set
+    private void removeMissing(String keyPrefix, Set<String> keep) {
+        List<String> stale = new ArrayList<>();
+        for (String key : byKey.keySet()) {
+            if (key.startsWith(keyPrefix) && !keep.contains(key)) {
+                stale.add(key);
+            }
+        }
+        for (String key : stale) {
+            remove(key);
+        }
+    }
+
+    private int indexOf(Entry<T> entry) {
+        return Collections.binarySearch(entries, entry, order);
+    }
+
+    private int insertionPoint(Entry<T> entry) {
+        int index = Collections.binarySearch(entries, entry, order);
+        return index >= 0 ? index : -(index + 1);
+    }
+}
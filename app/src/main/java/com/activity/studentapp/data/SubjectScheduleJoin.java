@@ -0,0 +1,132 @@
+package com.activity.studentapp.data;
+
+import android.view.Choreographer;
+
+import com.activity.studentapp.model.Schedule;
+import com.activity.studentapp.model.Subject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Joins the subjects stream with the section's class_schedule stream by
+ * subject ID, filling in each subject's instructor and time frame.
+ *
+ * Either input may change at any time. Changes are not joined right away but
+ * on the next frame, so a burst that lands in the same frame, such as both
+ * streams answering from the cache at startup, produces one result. The
+ * listener receives an unmodifiable list, and only when the joined subjects
+ * differ from the last list it received. Nothing is emitted until the
+ * subjects have arrived. All methods must be called on the main thread.
+ */
+public class SubjectScheduleJoin {
+
+    public interface Listener {
+        void onJoined(List<Subject> subjects);
+    }
+
+    interface FrameScheduler {
+        void postFrame(Runnable action);
+    }
+
+    private static final class Slot {
+        final String instructor;
+        final String timeFrame;
+
+        Slot(String instructor, String timeFrame) {
+            this.instructor = instructor;
+            this.timeFrame = timeFrame;
+        }
+    }
+
+    private final Listener listener;
+    private final FrameScheduler scheduler;
+    private final Runnable emit = this::emit;
+
+    private List<Subject> subjects;
+    private Map<String, Slot> slots = Collections.emptyMap();
+    private List<Subject> joined;
+    private boolean scheduled;
+
+    public SubjectScheduleJoin(Listener listener) {
+        this(listener, action -> Choreographer.getInstance().postFrameCallback(frameTimeNanos -> action.run()));
+    }
+
+    SubjectScheduleJoin(Listener listener, FrameScheduler scheduler) {
+        this.listener = listener;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Replaces the subjects, as read from the subjects collection.
+     */
+    public void setSubjects(List<Subject> subjects) {
+        this.subjects = new ArrayList<>(subjects);
+        schedule();
+    }
+
+    /**
+     * Replaces the section's schedules. When a subject has several, the last one wins.
+     */
+    public void setSchedules(List<Schedule> schedules) {
+        Map<String, Slot> bySubject = new HashMap<>();
+        for (Schedule schedule : schedules) {
+            if (schedule.getSubjectId() != null) {
+                bySubject.put(schedule.getSubjectId(),
+                        new Slot(schedule.getInstructorName(), schedule.getTimeFrame()));
+            }
+        }
+        slots = bySubject;
+        schedule();
+    }
+
+    private void schedule() {
+        if (!scheduled) {
+            scheduled = true;
+            scheduler.postFrame(emit);
+        }
+    }
+
+    private void emit() {
+        scheduled = false;
+        if (subjects == null) {
+            return;
+        }
+        List<Subject> result = new ArrayList<>(subjects.size());
+        for (Subject subject : subjects) {
+            Slot slot = slots.get(subject.getId());
+            // Fresh instances so the adapter's diff sees the changed schedule and instructor
+            result.add(new Subject(subject.getId(), subject.getCode(), subject.getName(), subject.getDescription(),
+                    slot != null ? slot.instructor : null, slot != null ? slot.timeFrame : null, subject.getRoom()));
+        }
+        if (joined != null && sameSubjects(joined, result)) {
+            return;
+        }
+        joined = Collections.unmodifiableList(result);
+        listener.onJoined(joined);
+    }
+
+    private static boolean sameSubjects(List<Subject> a, List<Subject> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            Subject x = a.get(i);
+            Subject y = b.get(i);
+            if (!Objects.equals(x.getId(), y.getId())
+                    || !Objects.equals(x.getCode(), y.getCode())
+                    || !Objects.equals(x.getName(), y.getName())
+                    || !Objects.equals(x.getDescription(), y.getDescription())
+                    || !Objects.equals(x.getInstructor(), y.getInstructor())
+                    || !Objects.equals(x.getSchedule(), y.getSchedule())
+                    || !Objects.equals(x.getRoom(), y.getRoom())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
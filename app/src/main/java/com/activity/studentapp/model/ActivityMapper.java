@@ -0,0 +1,58 @@
+package com.activity.studentapp.model;
+
+import java.util.Map;
+
+/**
+ * Maps activities, assignments, quizzes and exams documents into {@link Activity}.
+ */
+public class ActivityMapper extends DocumentMapper<Activity> {
+    private final FieldAlias dueDate = new FieldAlias("dueDate", "scheduledAt");
+    private final boolean publishedItems;
+
+    private ActivityMapper(boolean publishedItems) {
+        this.publishedItems = publishedItems;
+    }
+
+    /**
+     * Plain field mapping for the activities collection.
+     */
+    public static ActivityMapper forActivities() {
+        return new ActivityMapper(false);
+    }
+
+    /**
+     * For items the instructor app publishes (assignments, quizzes, exams): a missing
+     * createdAt means "now", publishedAt falls back to createdAt and items count as
+     * published unless marked otherwise.
+     */
+    public static ActivityMapper forPublishedItems() {
+        return new ActivityMapper(true);
+    }
+
+    @Override
+    public Activity map(String id, Map<String, Object> data) {
+        Activity activity = new Activity();
+        activity.setId(id);
+        activity.setTitle(asString(data.get("title")));
+        activity.setDescription(asString(data.get("description")));
+        activity.setSubjectId(asString(data.get("subjectId")));
+        activity.setSectionId(asString(data.get("sectionId")));
+        activity.setInstructorId(asString(data.get("instructorId")));
+        activity.setInstructorName(asString(data.get("instructorName")));
+        activity.setStatus(asString(data.get("status")));
+        activity.setTotalPoints(asInt(data.get("totalPoints"), 0));
+        activity.setDueDate(asMillis(dueDate.read(data), 0L));
+
+        if (publishedItems) {
+            long createdAt = asMillis(data.get("createdAt"), System.currentTimeMillis());
+            activity.setCreatedAt(createdAt);
+            activity.setPublishedAt(asMillis(data.get("publishedAt"), createdAt));
+            activity.setPublished(asBoolean(data.get("published"), true));
+        } else {
+            activity.setCreatedAt(asMillis(data.get("createdAt"), 0L));
+            activity.setPublishedAt(asMillis(data.get("publishedAt"), 0L));
+            activity.setPublished(asBoolean(data.get("published"), false));
+        }
+        return activity;
+    }
+}
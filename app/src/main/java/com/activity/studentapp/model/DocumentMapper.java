@@ -0,0 +1,99 @@
+package com.activity.studentapp.model;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes a Firestore document into a model object.
+ *
+ * The document's fields are read once through {@link DocumentSnapshot#getData()}
+ * and decoded from the resulting map, instead of converting one field per
+ * {@code getString}/{@code getLong} call or going through reflection with
+ * {@code toObject}. Values of an unexpected type are treated as absent rather
+ * than throwing. Mappers hold per-collection alias state, so keep one instance
+ * per collection.
+ */
+public abstract class DocumentMapper<T> {
+
+    /**
+     * Decodes already extracted document data. Usable without Firestore, e.g. in unit tests.
+     */
+    public abstract T map(String id, Map<String, Object> data);
+
+    /**
+     * @return the decoded model, or null if the document does not exist
+     */
+    public T map(DocumentSnapshot document) {
+        Map<String, Object> data = document.getData();
+        return data != null ? map(document.getId(), data) : null;
+    }
+
+    public List<T> mapAll(Iterable<? extends DocumentSnapshot> documents) {
+        List<T> items = new ArrayList<>();
+        for (DocumentSnapshot document : documents) {
+            T item = map(document);
+            if (item != null) {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    protected static String asString(Object value) {
+        return value instanceof String ? (String) value : null;
+    }
+
+    /**
+     * Epoch millis from a Timestamp, Date, number or numeric string.
+     */
+    protected static long asMillis(Object value, long defaultValue) {
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toDate().getTime();
+        }
+        if (value instanceof Date) {
+            return ((Date) value).getTime();
+        }
+        return asLong(value, defaultValue);
+    }
+
+    protected static long asLong(Object value, long defaultValue) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof String) {
+            try {
+                return Long.parseLong((String) value);
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+        return defaultValue;
+    }
+
+    protected static int asInt(Object value, int defaultValue) {
+        return value instanceof Number ? ((Number) value).intValue() : defaultValue;
+    }
+
+    protected static boolean asBoolean(Object value, boolean defaultValue) {
+        return value instanceof Boolean ? (Boolean) value : defaultValue;
+    }
+
+    protected static List<String> asStringList(Object value) {
+        if (!(value instanceof List)) {
+            return null;
+        }
+        List<?> raw = (List<?>) value;
+        List<String> strings = new ArrayList<>(raw.size());
+        for (Object item : raw) {
+            if (item instanceof String) {
+                strings.add((String) item);
+            }
+        }
+        return strings;
+    }
+}
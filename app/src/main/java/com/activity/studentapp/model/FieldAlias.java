@@ -0,0 +1,44 @@
+package com.activity.studentapp.model;
+
+import java.util.Map;
+
+/**
+ * One logical document field that may be stored under several names, e.g.
+ * "questionText", "question" or "text".
+ *
+ * Names are always tried in the order given, so the value read never depends
+ * on documents read before. Documents that use the primary name cost a single
+ * map lookup per field.
+ */
+public final class FieldAlias {
+    private final String[] names;
+    private volatile int resolved;
+
+    public FieldAlias(String... names) {
+        if (names.length == 0) {
+            throw new IllegalArgumentException("At least one field name is required");
+        }
+        this.names = names;
+    }
+
+    /**
+     * Returns the first non-null value stored under any of the names, or null.
+     */
+    public Object read(Map<String, Object> data) {
+        for (int i = 0; i < names.length; i++) {
+            Object value = data.get(names[i]);
+            if (value != null) {
+                resolved = i;
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The name that matched most recently, or the primary name if none has yet.
+     */
+    public String getResolvedName() {
+        return names[resolved];
+    }
+}
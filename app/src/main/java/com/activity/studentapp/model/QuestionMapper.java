@@ -0,0 +1,56 @@
+package com.activity.studentapp.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps quizzes/{id}/questions and exams/{id}/questions documents.
+ */
+public class QuestionMapper extends DocumentMapper<Question> {
+    private final FieldAlias type = new FieldAlias("type", "questionType");
+    private final FieldAlias text = new FieldAlias("questionText", "question", "text");
+    private final FieldAlias[] choices = {
+            new FieldAlias("optionA", "choiceA"),
+            new FieldAlias("optionB", "choiceB"),
+            new FieldAlias("optionC", "choiceC"),
+            new FieldAlias("optionD", "choiceD")
+    };
+
+    @Override
+    public Question map(String id, Map<String, Object> data) {
+        Question question = new Question();
+        question.setId(id);
+        question.setQuestionType(asString(type.read(data)));
+        question.setQuestionText(asString(text.read(data)));
+
+        // Options are either individual fields or a list
+        List<String> options = new ArrayList<>(choices.length);
+        for (FieldAlias choice : choices) {
+            String option = asString(choice.read(data));
+            if (option != null) {
+                options.add(option);
+            }
+        }
+        if (options.isEmpty()) {
+            List<String> listed = asStringList(data.get("options"));
+            if (listed != null) {
+                options = listed;
+            }
+        }
+        question.setOptions(options);
+
+        // correctAnswer may be stored as a Boolean for true/false questions
+        Object correctAnswer = data.get("correctAnswer");
+        if (correctAnswer instanceof Boolean) {
+            question.setCorrectAnswer((Boolean) correctAnswer ? "true" : "false");
+        } else if (correctAnswer instanceof String) {
+            question.setCorrectAnswer((String) correctAnswer);
+        } else {
+            question.setCorrectAnswer("");
+        }
+
+        question.setPoints(asInt(data.get("points"), 1));
+        return question;
+    }
+}
@@ -0,0 +1,24 @@
+package com.activity.studentapp.model;
+
+import java.util.Map;
+
+/**
+ * Maps class_schedule documents.
+ */
+public class ScheduleMapper extends DocumentMapper<Schedule> {
+
+    @Override
+    public Schedule map(String id, Map<String, Object> data) {
+        Schedule schedule = new Schedule();
+        schedule.setInstructorId(asString(data.get("instructorId")));
+        schedule.setSubjectId(asString(data.get("subjectId")));
+        schedule.setSectionId(asString(data.get("sectionId")));
+        schedule.setDay(asString(data.get("day")));
+        schedule.setTimeFrame(asString(data.get("timeFrame")));
+        schedule.setInstructorName(asString(data.get("instructorName")));
+        schedule.setSubjectName(asString(data.get("subjectName")));
+        schedule.setSectionName(asString(data.get("sectionName")));
+        schedule.setCreatedAt(asMillis(data.get("createdAt"), 0L));
+        return schedule;
+    }
+}
@@ -0,0 +1,35 @@
+package com.activity.studentapp.model;
+
+import java.util.Map;
+
+/**
+ * Maps students documents.
+ */
+public class StudentMapper extends DocumentMapper<Student> {
+
+    @Override
+    public Student map(String id, Map<String, Object> data) {
+        Student student = new Student();
+        student.setId(id);
+        student.setStudentId(asString(data.get("studentId")));
+        student.setFirstName(asString(data.get("firstName")));
+        student.setMiddleName(asString(data.get("middleName")));
+        student.setLastName(asString(data.get("lastName")));
+        student.setEmail(asString(data.get("email")));
+        student.setPhone(asString(data.get("phone")));
+        student.setAddress(asString(data.get("address")));
+        student.setBirthDate(asString(data.get("birthDate")));
+        student.setGender(asString(data.get("gender")));
+        student.setGradeLevel(asString(data.get("gradeLevel")));
+        student.setSection(asString(data.get("section")));
+        student.setSchoolYear(asString(data.get("schoolYear")));
+        student.setStatus(asString(data.get("status")));
+        student.setPhotoUrl(asString(data.get("photoUrl")));
+        student.setRfidTag(asString(data.get("rfidTag")));
+        student.setTemporaryPassword(asString(data.get("temporaryPassword")));
+        student.setUsername(asString(data.get("username")));
+        student.setCreatedAt(asMillis(data.get("createdAt"), 0L));
+        student.setUpdatedAt(asMillis(data.get("updatedAt"), 0L));
+        return student;
+    }
+}
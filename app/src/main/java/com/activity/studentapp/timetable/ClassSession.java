@@ -0,0 +1,45 @@
+package com.activity.studentapp.timetable;
+
+import com.activity.studentapp.model.Schedule;
+
+/**
+ * A class_schedule entry with its days and times parsed once.
+ */
+public final class ClassSession {
+    private final Schedule schedule;
+    private final int days;
+    private final TimeRange time;
+
+    public ClassSession(Schedule schedule, int days, TimeRange time) {
+        this.schedule = schedule;
+        this.days = days;
+        this.time = time;
+    }
+
+    public Schedule getSchedule() {
+        return schedule;
+    }
+
+    /**
+     * The days the class meets, as a {@link DayMask}.
+     */
+    public int getDays() {
+        return days;
+    }
+
+    public TimeRange getTime() {
+        return time;
+    }
+
+    public int getStart() {
+        return time.getStart();
+    }
+
+    public int getEnd() {
+        return time.getEnd();
+    }
+
+    public boolean meetsOn(int day) {
+        return DayMask.contains(days, day);
+    }
+}
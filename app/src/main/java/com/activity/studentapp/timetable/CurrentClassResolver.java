@@ -0,0 +1,97 @@
+package com.activity.studentapp.timetable;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.Calendar;
+
+/**
+ * Tracks the student's current and next class from the section schedule a
+ * screen already listens to, so answering costs no reads.
+ *
+ * Each schedule update rebuilds today's {@link DailyAgenda} once; lookups are
+ * binary searches on it. While started, the listener is called again exactly
+ * when a class starts or ends, and at midnight for the new day's agenda,
+ * rather than on a polling timer. All methods must be called on the main
+ * thread, and the listener runs on it.
+ */
+public class CurrentClassResolver {
+    private static final String TAG = "CurrentClassResolver";
+
+    public interface Listener {
+        /**
+         * @param current the class in session, or null
+         * @param next the next class today, or null
+         */
+        void onChanged(ClassSession current, ClassSession next);
+    }
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable refresh = this::refresh;
+    private final Listener listener;
+
+    private Timetable timetable;
+    private DailyAgenda agenda;
+    private boolean started;
+
+    public CurrentClassResolver(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Replaces the timetable, e.g. one built from a class_schedule snapshot.
+     */
+    public void setTimetable(Timetable timetable) {
+        this.timetable = timetable;
+        agenda = null;
+        if (started) {
+            refresh();
+        }
+    }
+
+    /**
+     * Reports the current state and keeps reporting at every class boundary until {@link #stop()}.
+     */
+    public void start() {
+        started = true;
+        refresh();
+    }
+
+    public void stop() {
+        started = false;
+        mainHandler.removeCallbacks(refresh);
+    }
+
+    private void refresh() {
+        mainHandler.removeCallbacks(refresh);
+        if (timetable == null) {
+            return;
+        }
+        Calendar now = Calendar.getInstance();
+        int day = dayIndex(now);
+        if (agenda == null || agenda.getDay() != day) {
+            agenda = timetable.agenda(day);
+        }
+        int minute = now.get(Calendar.HOUR_OF_DAY) * 60 + now.get(Calendar.MINUTE);
+        listener.onChanged(agenda.current(minute), agenda.next(minute));
+
+        if (!started) {
+            return;
+        }
+        int boundary = agenda.nextBoundary(minute);
+        // After today's last class the next change is tomorrow's agenda
+        int target = boundary >= 0 ? boundary : 24 * 60;
+        long delay = (target - minute) * 60_000L
+                - now.get(Calendar.SECOND) * 1000L - now.get(Calendar.MILLISECOND);
+        Log.d(TAG, "Next refresh in " + delay / 1000 + "s");
+        mainHandler.postDelayed(refresh, Math.max(0, delay));
+    }
+
+    /**
+     * 0 for Monday through 6 for Sunday, as in {@link DayMask}.
+     */
+    static int dayIndex(Calendar calendar) {
+        return (calendar.get(Calendar.DAY_OF_WEEK) + 5) % 7;
+    }
+}
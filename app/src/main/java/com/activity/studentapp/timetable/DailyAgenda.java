@@ -0,0 +1,100 @@
+package com.activity.studentapp.timetable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * One day's classes in start order, answering "what's on now" and "what's
+ * next" with a binary search.
+ *
+ * The agenda also knows every minute at which those answers can change, the
+ * starts and ends of its classes, so a caller can wait for exactly the next
+ * one instead of polling.
+ */
+public final class DailyAgenda {
+    private final int day;
+    private final List<ClassSession> sessions;
+    private final int[] starts;
+    private final int[] boundaries;
+
+    DailyAgenda(int day, List<ClassSession> sessions) {
+        this.day = day;
+        List<ClassSession> onDay = new ArrayList<>();
+        TreeSet<Integer> bounds = new TreeSet<>();
+        // Timetable keeps its sessions in start order, so this list is sorted too
+        for (ClassSession session : sessions) {
+            if (session.meetsOn(day)) {
+                onDay.add(session);
+                bounds.add(session.getStart());
+                bounds.add(session.getEnd());
+            }
+        }
+        this.sessions = Collections.unmodifiableList(onDay);
+        this.starts = new int[onDay.size()];
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = onDay.get(i).getStart();
+        }
+        this.boundaries = new int[bounds.size()];
+        int i = 0;
+        for (int bound : bounds) {
+            boundaries[i++] = bound;
+        }
+    }
+
+    /**
+     * @return 0 for Monday through 6 for Sunday
+     */
+    public int getDay() {
+        return day;
+    }
+
+    public List<ClassSession> getSessions() {
+        return sessions;
+    }
+
+    /**
+     * The class in session at the minute, or null. Of overlapping classes, the one that started last.
+     */
+    public ClassSession current(int minuteOfDay) {
+        // Index of the last class starting at or before the minute
+        for (int i = upperBound(starts, minuteOfDay) - 1; i >= 0; i--) {
+            ClassSession session = sessions.get(i);
+            if (session.getEnd() > minuteOfDay) {
+                return session;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The first class starting after the minute, or null if none is left today.
+     */
+    public ClassSession next(int minuteOfDay) {
+        int index = upperBound(starts, minuteOfDay);
+        return index < sessions.size() ? sessions.get(index) : null;
+    }
+
+    /**
+     * The first minute after the given one at which a class starts or ends, or -1 if there is none today.
+     */
+    public int nextBoundary(int minuteOfDay) {
+        int index = upperBound(boundaries, minuteOfDay);
+        return index < boundaries.length ? boundaries[index] : -1;
+    }
+
+    // Index of the first value greater than the key
+    private static int upperBound(int[] values, int key) {
+        int index = Arrays.binarySearch(values, key);
+        if (index < 0) {
+            return -index - 1;
+        }
+        // Starts may repeat; step past every equal one
+        while (index < values.length && values[index] == key) {
+            index++;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,114 @@
+package com.activity.studentapp.timetable;
+
+import java.util.Locale;
+
+/**
+ * Days of the week as bits, Monday first: bit 0 is Monday, bit 6 Sunday.
+ *
+ * {@link #parse} reads the day notations instructors type into class_schedule
+ * documents: full or short names ("Monday", "Thu"), letter runs ("MWF",
+ * "TTh", "MTWThF"), ranges ("M-F", "Mon-Wed"), hyphenated pairs ("T-Th",
+ * "M-W") and lists of any of these ("Tue/Thu", "Mon, Sat").
+ */
+public final class DayMask {
+    public static final int DAYS = 7;
+    public static final int MONDAY = 1;
+    public static final int SATURDAY = 1 << 5;
+    public static final int SUNDAY = 1 << 6;
+    public static final int WEEKDAYS = 0x1F;
+
+    // Longest spellings first within each day, so the longest match wins
+    private static final String[][] NAMES = {
+            {"monday", "mon", "m"},
+            {"tuesday", "tues", "tue", "tu", "t"},
+            {"wednesday", "wed", "w"},
+            {"thursday", "thurs", "thur", "thu", "th", "r"},
+            {"friday", "fri", "f"},
+            {"saturday", "sat", "sa", "s"},
+            {"sunday", "sun", "su", "u"},
+    };
+
+    // Abbreviations schedules join with a hyphen to mean both days, not the days between
+    private static final int[][] PAIRS = {{0, 2}, {1, 3}};
+    private static final int MAX_ABBREVIATION = 2;
+
+    private DayMask() {
+    }
+
+    public static boolean contains(int mask, int day) {
+        return (mask & (1 << day)) != 0;
+    }
+
+    /**
+     * The days the text names. A missing day means every weekday, as schedules have always defaulted to
+     * "M-F"; text that can't be read returns 0.
+     */
+    public static int parse(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            return WEEKDAYS;
+        }
+        String s = text.trim().toLowerCase(Locale.ROOT);
+        if (s.equals("weekdays") || s.equals("weekday") || s.equals("daily")) {
+            return WEEKDAYS;
+        }
+
+        int mask = 0;
+        int previous = -1;
+        int previousLength = 0;
+        boolean range = false;
+        int i = 0;
+        while (i < s.length()) {
+            char c = s.charAt(i);
+            if (c == '-' || c == '\u2013') {
+                if (previous < 0 || range) {
+                    return 0;
+                }
+                range = true;
+                i++;
+                continue;
+            }
+            if (!Character.isLetter(c)) {
+                // Spaces, commas, slashes, ampersands and dots only separate days
+                i++;
+                continue;
+            }
+            int day = -1;
+            int length = 0;
+            for (int d = 0; d < DAYS; d++) {
+                for (String name : NAMES[d]) {
+                    if (name.length() > length && s.startsWith(name, i)) {
+                        day = d;
+                        length = name.length();
+                    }
+                }
+            }
+            if (day < 0) {
+                return 0;
+            }
+            if (range && !isPair(previous, previousLength, day, length)) {
+                // Inclusive, wrapping past Sunday for ranges like "Sat-Mon"
+                for (int d = previous; d != day; d = (d + 1) % DAYS) {
+                    mask |= 1 << d;
+                }
+            }
+            range = false;
+            mask |= 1 << day;
+            previous = day;
+            previousLength = length;
+            i += length;
+        }
+        return range ? 0 : mask;
+    }
+
+    private static boolean isPair(int first, int firstLength, int second, int secondLength) {
+        if (firstLength > MAX_ABBREVIATION || secondLength > MAX_ABBREVIATION) {
+            return false;
+        }
+        for (int[] pair : PAIRS) {
+            if (pair[0] == first && pair[1] == second) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,115 @@
+package com.activity.studentapp.timetable;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A class time as minutes since midnight, parsed from a timeFrame string
+ * such as "8:00 AM - 9:30 AM", "13:00-14:30" or "8:00 - 9:30 AM".
+ */
+public final class TimeRange {
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    private static final Pattern RANGE = Pattern.compile("^(.+?)\\s*(?:-|\\u2013|to)\\s*(.+)$",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern TIME = Pattern.compile("^(\\d{1,2})(?:[:.](\\d{2}))?\\s*(?:([ap])\\.?\\s*m?\\.?)?$",
+            Pattern.CASE_INSENSITIVE);
+
+    private final int start;
+    private final int end;
+
+    public TimeRange(int start, int end) {
+        if (start < 0 || end > MINUTES_PER_DAY || start >= end) {
+            throw new IllegalArgumentException("Invalid range " + start + "-" + end);
+        }
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Inclusive start, in minutes since midnight.
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * Exclusive end, in minutes since midnight.
+     */
+    public int getEnd() {
+        return end;
+    }
+
+    public boolean contains(int minute) {
+        return minute >= start && minute < end;
+    }
+
+    /**
+     * The range the text describes, or null if it isn't one.
+     */
+    public static TimeRange parse(String text) {
+        if (text == null) {
+            return null;
+        }
+        Matcher range = RANGE.matcher(text.trim());
+        if (!range.matches()) {
+            return null;
+        }
+        Matcher from = TIME.matcher(range.group(1).trim());
+        Matcher to = TIME.matcher(range.group(2).trim());
+        if (!from.matches() || !to.matches()) {
+            return null;
+        }
+        int end = minutes(to, to.group(3));
+        // "8:00 - 9:30 AM": the start shares the end's half of the day unless that puts it after the end
+        String startMeridiem = from.group(3);
+        int start;
+        if (startMeridiem == null && to.group(3) != null) {
+            start = minutes(from, to.group(3));
+            if (start >= end) {
+                start = minutes(from, "a");
+            }
+        } else {
+            start = minutes(from, startMeridiem);
+        }
+        if (start < 0 || end < 0 || start >= end) {
+            return null;
+        }
+        return new TimeRange(start, end);
+    }
+
+    private static int minutes(Matcher time, String meridiem) {
+        int hour = Integer.parseInt(time.group(1));
+        int minute = time.group(2) != null ? Integer.parseInt(time.group(2)) : 0;
+        if (minute > 59) {
+            return -1;
+        }
+        if (meridiem == null) {
+            return hour <= 24 ? Math.min(hour * 60 + minute, MINUTES_PER_DAY) : -1;
+        }
+        if (hour < 1 || hour > 12) {
+            return -1;
+        }
+        hour %= 12;
+        if (Character.toLowerCase(meridiem.charAt(0)) == 'p') {
+            hour += 12;
+        }
+        return hour * 60 + minute;
+    }
+
+    /**
+     * Formats minutes since midnight like "8:05 AM".
+     */
+    public static String format(int minuteOfDay) {
+        int hour = (minuteOfDay / 60) % 24;
+        int minute = minuteOfDay % 60;
+        int displayHour = hour % 12 == 0 ? 12 : hour % 12;
+        return String.format(Locale.US, "%d:%02d %s", displayHour, minute, hour < 12 ? "AM" : "PM");
+    }
+
+    @Override
+    public String toString() {
+        return format(start) + " - " + format(end);
+    }
+}
@@ -0,0 +1,283 @@
+package com.activity.studentapp.timetable;
+
+import com.activity.studentapp.model.Schedule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * A section's week of classes, indexed by day and time.
+ *
+ * Every schedule is parsed once into a {@link ClassSession}; entries whose
+ * day or time can't be read are kept aside in {@link #getUnparsed()}. For
+ * each day the start and end times of its classes split the day into
+ * segments, and the classes in session during each segment are stored with
+ * it, so {@link #at} answers with one binary search. Grid rows come from the
+ * same boundaries across the whole week: a class spanning several rows shows
+ * in each of them, and classes that overlap share a cell.
+ *
+ * Instances are immutable and may be built off the main thread.
+ */
+public final class Timetable {
+    private static final Comparator<ClassSession> BY_TIME = Comparator
+            .comparingInt(ClassSession::getStart)
+            .thenComparingInt(ClassSession::getEnd);
+
+    /**
+     * A grid row: the span between two consecutive boundaries, with the classes in session per day.
+     */
+    public static final class Slot {
+        private final int start;
+        private final int end;
+        private final List<List<ClassSession>> sessions;
+
+        Slot(int start, int end, List<List<ClassSession>> sessions) {
+            this.start = start;
+            this.end = end;
+            this.sessions = sessions;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+
+        /**
+         * @param day 0 for Monday through 6 for Sunday
+         */
+        public List<ClassSession> getSessions(int day) {
+            return sessions.get(day);
+        }
+    }
+
+    /**
+     * Two classes in session at the same time on the given days.
+     */
+    public static final class Overlap {
+        private final ClassSession first;
+        private final ClassSession second;
+        private final int days;
+
+        Overlap(ClassSession first, ClassSession second, int days) {
+            this.first = first;
+            this.second = second;
+            this.days = days;
+        }
+
+        public ClassSession getFirst() {
+            return first;
+        }
+
+        public ClassSession getSecond() {
+            return second;
+        }
+
+        public int getDays() {
+            return days;
+        }
+    }
+
+    // Per day: sorted boundaries, and the classes in session from each boundary to the next
+    private static final class DayIndex {
+        final int[] boundaries;
+        final List<List<ClassSession>> active;
+
+        DayIndex(int[] boundaries, List<List<ClassSession>> active) {
+            this.boundaries = boundaries;
+            this.active = active;
+        }
+
+        List<ClassSession> at(int minute) {
+            int index = Arrays.binarySearch(boundaries, minute);
+            if (index < 0) {
+                // The segment starting at the last boundary before the minute
+                index = -index - 2;
+            }
+            return index >= 0 && index < active.size() ? active.get(index) : Collections.emptyList();
+        }
+    }
+
+    private final List<Schedule> schedules;
+    private final List<ClassSession> sessions;
+    private final List<Schedule> unparsed;
+    private final DayIndex[] days = new DayIndex[DayMask.DAYS];
+    private final List<Slot> slots;
+    private final List<Overlap> overlaps;
+    private final int dayMask;
+
+    private Timetable(List<Schedule> schedules, List<ClassSession> sessions, List<Schedule> unparsed) {
+        this.schedules = Collections.unmodifiableList(new ArrayList<>(schedules));
+        this.sessions = Collections.unmodifiableList(sessions);
+        this.unparsed = Collections.unmodifiableList(unparsed);
+        int mask = 0;
+        for (ClassSession session : sessions) {
+            mask |= session.getDays();
+        }
+        this.dayMask = mask;
+        for (int day = 0; day < DayMask.DAYS; day++) {
+            days[day] = index(sessions, day);
+        }
+        this.slots = Collections.unmodifiableList(buildSlots());
+        this.overlaps = Collections.unmodifiableList(findOverlaps());
+    }
+
+    public static Timetable build(List<Schedule> schedules) {
+        List<ClassSession> sessions = new ArrayList<>(schedules.size());
+        List<Schedule> unparsed = new ArrayList<>();
+        for (Schedule schedule : schedules) {
+            int mask = DayMask.parse(schedule.getDay());
+            TimeRange time = TimeRange.parse(schedule.getTimeFrame());
+            if (mask == 0 || time == null) {
+                unparsed.add(schedule);
+            } else {
+                sessions.add(new ClassSession(schedule, mask, time));
+            }
+        }
+        sessions.sort(BY_TIME);
+        return new Timetable(schedules, sessions, unparsed);
+    }
+
+    /**
+     * Every schedule the timetable was built from, readable or not.
+     */
+    public List<Schedule> getSchedules() {
+        return schedules;
+    }
+
+    /**
+     * Every class, by start and then end time.
+     */
+    public List<ClassSession> getSessions() {
+        return sessions;
+    }
+
+    /**
+     * Schedules whose day or time couldn't be read.
+     */
+    public List<Schedule> getUnparsed() {
+        return unparsed;
+    }
+
+    /**
+     * The days any class meets on, as a {@link DayMask}.
+     */
+    public int getDayMask() {
+        return dayMask;
+    }
+
+    /**
+     * Classes in session on the day at the minute, in O(log n).
+     *
+     * @param day 0 for Monday through 6 for Sunday
+     */
+    public List<ClassSession> at(int day, int minuteOfDay) {
+        return days[day].at(minuteOfDay);
+    }
+
+    /**
+     * The day's classes in start order.
+     *
+     * @param day 0 for Monday through 6 for Sunday
+     */
+    public DailyAgenda agenda(int day) {
+        return new DailyAgenda(day, sessions);
+    }
+
+    /**
+     * Grid rows from the first class of the week to the last; spans without any class are left out.
+     */
+    public List<Slot> getSlots() {
+        return slots;
+    }
+
+    public List<Overlap> getOverlaps() {
+        return overlaps;
+    }
+
+    private static DayIndex index(List<ClassSession> sessions, int day) {
+        TreeSet<Integer> bounds = new TreeSet<>();
+        List<ClassSession> onDay = new ArrayList<>();
+        for (ClassSession session : sessions) {
+            if (session.meetsOn(day)) {
+                onDay.add(session);
+                bounds.add(session.getStart());
+                bounds.add(session.getEnd());
+            }
+        }
+        int[] boundaries = new int[bounds.size()];
+        int i = 0;
+        for (int bound : bounds) {
+            boundaries[i++] = bound;
+        }
+        // Segment k runs from boundaries[k] to boundaries[k + 1]; the last boundary only ends one
+        List<List<ClassSession>> active = new ArrayList<>(Math.max(0, boundaries.length - 1));
+        for (int k = 0; k + 1 < boundaries.length; k++) {
+            List<ClassSession> inSession = new ArrayList<>();
+            for (ClassSession session : onDay) {
+                if (session.getStart() > boundaries[k]) {
+                    break;
+                }
+                if (session.getEnd() > boundaries[k]) {
+                    inSession.add(session);
+                }
+            }
+            active.add(inSession.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(inSession));
+        }
+        return new DayIndex(boundaries, active);
+    }
+
+    private List<Slot> buildSlots() {
+        TreeSet<Integer> bounds = new TreeSet<>();
+        for (DayIndex index : days) {
+            for (int bound : index.boundaries) {
+                bounds.add(bound);
+            }
+        }
+        List<Slot> result = new ArrayList<>();
+        Integer start = bounds.isEmpty() ? null : bounds.first();
+        while (start != null) {
+            Integer end = bounds.higher(start);
+            if (end == null) {
+                break;
+            }
+            List<List<ClassSession>> cells = new ArrayList<>(DayMask.DAYS);
+            boolean any = false;
+            for (DayIndex index : days) {
+                List<ClassSession> cell = index.at(start);
+                any |= !cell.isEmpty();
+                cells.add(cell);
+            }
+            if (any) {
+                result.add(new Slot(start, end, Collections.unmodifiableList(cells)));
+            }
+            start = end;
+        }
+        return result;
+    }
+
+    private List<Overlap> findOverlaps() {
+        List<Overlap> result = new ArrayList<>();
+        // Sessions are sorted by start, so each one can only overlap those after it that start before it ends
+        for (int i = 0; i < sessions.size(); i++) {
+            ClassSession first = sessions.get(i);
+            for (int j = i + 1; j < sessions.size(); j++) {
+                ClassSession second = sessions.get(j);
+                if (second.getStart() >= first.getEnd()) {
+                    break;
+                }
+                int shared = first.getDays() & second.getDays();
+                if (shared != 0) {
+                    result.add(new Overlap(first, second, shared));
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,541 @@
+package com.activity.studentapp.timetable;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+import android.os.Bundle;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.GestureDetector;
+import android.view.KeyEvent;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
+import android.view.SoundEffectConstants;
+import android.view.View;
+import android.view.accessibility.AccessibilityEvent;
+import android.widget.OverScroller;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+import androidx.core.view.ViewCompat;
+import androidx.core.view.accessibility.AccessibilityNodeInfoCompat;
+import androidx.customview.widget.ExploreByTouchHelper;
+
+import com.activity.studentapp.R;
+import com.activity.studentapp.model.Schedule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Draws a {@link Timetable} as a weekly grid on one canvas: a header row of
+ * days, a column of times, and a row per {@link Timetable.Slot}.
+ *
+ * Cell text is laid out into {@link StaticLayout}s when the timetable or the
+ * view's width changes, never while drawing, and every Paint is created once.
+ * Row heights follow the tallest cell in the row. Pinching zooms the whole
+ * grid around the fingers and dragging or flinging scrolls it, with the
+ * header and time column kept in view; both only change the canvas
+ * transform, so nothing is laid out again.
+ *
+ * Monday to Friday are always shown, Saturday and Sunday only when a class
+ * meets on them. Each cell is exposed to accessibility services as a virtual
+ * view that reads out its day, time and classes and can be clicked.
+ */
+public class TimetableView extends View {
+    private static final String[] DAY_NAMES = {
+            "Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
+
+    private static final float MIN_SCALE = 0.5f;
+    private static final float MAX_SCALE = 2.5f;
+    private static final int MAX_LINES = 3;
+    private static final int MIN_LINES = 2;
+
+    public interface OnCellClickListener {
+        /**
+         * @param day 0 for Monday through 6 for Sunday
+         * @param sessions the classes in session in the cell; empty for a free period
+         */
+        void onCellClick(int day, Timetable.Slot slot, List<ClassSession> sessions);
+    }
+
+    private final float timeColumnWidth;
+    private final float minColumnWidth;
+    private final float padding;
+    private final float gridWidth;
+
+    private final TextPaint textPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    private final TextPaint busyTextPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    private final TextPaint headerTextPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint freePaint = new Paint();
+    private final Paint busyPaint = new Paint();
+    private final Paint gridPaint = new Paint();
+
+    private final GestureDetector gestureDetector;
+    private final ScaleGestureDetector scaleDetector;
+    private final OverScroller scroller;
+    private final CellAccessibilityHelper accessibilityHelper;
+
+    private Timetable timetable;
+    private OnCellClickListener onCellClickListener;
+    private int[] days = new int[0];
+    private List<Timetable.Slot> slots = Collections.emptyList();
+
+    // Laid out at scale 1; rebuilt by layoutGrid()
+    private int layoutWidth = -1;
+    private float columnWidth;
+    private float headerHeight;
+    private float[] rowTops = new float[1];
+    private StaticLayout[] headerLayouts = new StaticLayout[0];
+    private StaticLayout cornerLayout;
+    private StaticLayout[] timeLayouts = new StaticLayout[0];
+    // [row][column]; null for a free period
+    private StaticLayout[][] cellLayouts = new StaticLayout[0][];
+
+    private float scale = 1f;
+    private float scrollX;
+    private float scrollY;
+
+    public TimetableView(Context context) {
+        this(context, null);
+    }
+
+    public TimetableView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        timeColumnWidth = dp(96);
+        minColumnWidth = dp(112);
+        padding = dp(8);
+        gridWidth = Math.max(1f, dp(1));
+
+        float textSize = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 14,
+                getResources().getDisplayMetrics());
+        textPaint.setTextSize(textSize);
+        textPaint.setColor(ContextCompat.getColor(context, R.color.black));
+        busyTextPaint.setTextSize(textSize);
+        busyTextPaint.setColor(ContextCompat.getColor(context, R.color.white));
+        headerTextPaint.setTextSize(textSize);
+        headerTextPaint.setColor(ContextCompat.getColor(context, R.color.black));
+        headerTextPaint.setTypeface(Typeface.DEFAULT_BOLD);
+        freePaint.setColor(ContextCompat.getColor(context, R.color.white));
+        busyPaint.setColor(ContextCompat.getColor(context, R.color.green));
+        gridPaint.setColor(ContextCompat.getColor(context, R.color.black));
+        gridPaint.setStrokeWidth(gridWidth);
+
+        scroller = new OverScroller(context);
+        gestureDetector = new GestureDetector(context, new GestureDetector.SimpleOnGestureListener() {
+            @Override
+            public boolean onDown(@NonNull MotionEvent e) {
+                scroller.forceFinished(true);
+                return true;
+            }
+
+            @Override
+            public boolean onScroll(@Nullable MotionEvent e1, @NonNull MotionEvent e2, float dx, float dy) {
+                scrollGridTo(scrollX + dx, scrollY + dy);
+                return true;
+            }
+
+            @Override
+            public boolean onFling(@Nullable MotionEvent e1, @NonNull MotionEvent e2, float vx, float vy) {
+                scroller.fling(Math.round(scrollX), Math.round(scrollY), -Math.round(vx), -Math.round(vy),
+                        0, Math.round(maxScrollX()), 0, Math.round(maxScrollY()));
+                postInvalidateOnAnimation();
+                return true;
+            }
+
+            @Override
+            public boolean onSingleTapUp(@NonNull MotionEvent e) {
+                return performCellClick(e.getX(), e.getY());
+            }
+        });
+        scaleDetector = new ScaleGestureDetector(context, new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+            @Override
+            public boolean onScale(@NonNull ScaleGestureDetector detector) {
+                zoom(scale * detector.getScaleFactor(), detector.getFocusX(), detector.getFocusY());
+                return true;
+            }
+        });
+        accessibilityHelper = new CellAccessibilityHelper();
+        ViewCompat.setAccessibilityDelegate(this, accessibilityHelper);
+    }
+
+    private float dp(float value) {
+        return TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, value, getResources().getDisplayMetrics());
+    }
+
+    public void setTimetable(Timetable timetable) {
+        this.timetable = timetable;
+        int mask = timetable != null ? timetable.getDayMask() : 0;
+        int[] shown = new int[DayMask.DAYS];
+        int count = 0;
+        for (int day = 0; day < DayMask.DAYS; day++) {
+            if (DayMask.contains(DayMask.WEEKDAYS | mask, day)) {
+                shown[count++] = day;
+            }
+        }
+        days = Arrays.copyOf(shown, count);
+        slots = timetable != null ? timetable.getSlots() : Collections.emptyList();
+        layoutWidth = -1;
+        if (getWidth() > 0) {
+            layoutGrid(getWidth());
+        }
+        scrollGridTo(scrollX, scrollY);
+        invalidate();
+        accessibilityHelper.invalidateRoot();
+    }
+
+    public void setOnCellClickListener(OnCellClickListener listener) {
+        this.onCellClickListener = listener;
+        accessibilityHelper.invalidateRoot();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        layoutGrid(w);
+        scrollGridTo(scrollX, scrollY);
+    }
+
+    /**
+     * Lays every cell out at scale 1, stretching the columns to fill the width when they fit.
+     */
+    private void layoutGrid(int width) {
+        if (width == layoutWidth) {
+            return;
+        }
+        layoutWidth = width;
+        int columns = days.length;
+        columnWidth = columns == 0 ? minColumnWidth
+                : Math.max(minColumnWidth, (width - timeColumnWidth) / columns);
+        int textWidth = Math.max(1, Math.round(columnWidth - 2 * padding));
+        int timeTextWidth = Math.max(1, Math.round(timeColumnWidth - 2 * padding));
+        float minRowHeight = MIN_LINES * textPaint.getFontSpacing() + 2 * padding;
+
+        cornerLayout = layout("Time/Date", headerTextPaint, timeTextWidth);
+        headerLayouts = new StaticLayout[columns];
+        headerHeight = cornerLayout.getHeight();
+        for (int c = 0; c < columns; c++) {
+            headerLayouts[c] = layout(DAY_NAMES[days[c]], headerTextPaint, textWidth);
+            headerHeight = Math.max(headerHeight, headerLayouts[c].getHeight());
+        }
+        headerHeight += 2 * padding;
+
+        int rows = slots.size();
+        timeLayouts = new StaticLayout[rows];
+        cellLayouts = new StaticLayout[rows][columns];
+        rowTops = new float[rows + 1];
+        for (int r = 0; r < rows; r++) {
+            Timetable.Slot slot = slots.get(r);
+            timeLayouts[r] = layout(TimeRange.format(slot.getStart()) + " - " + TimeRange.format(slot.getEnd()),
+                    textPaint, timeTextWidth);
+            float height = Math.max(minRowHeight, timeLayouts[r].getHeight() + 2 * padding);
+            for (int c = 0; c < columns; c++) {
+                List<ClassSession> sessions = slot.getSessions(days[c]);
+                if (!sessions.isEmpty()) {
+                    cellLayouts[r][c] = layout(cellText(sessions), busyTextPaint, textWidth);
+                    height = Math.max(height, cellLayouts[r][c].getHeight() + 2 * padding);
+                }
+            }
+            rowTops[r + 1] = rowTops[r] + height;
+        }
+    }
+
+    private static StaticLayout layout(CharSequence text, TextPaint paint, int width) {
+        return StaticLayout.Builder.obtain(text, 0, text.length(), paint, width)
+                .setAlignment(Layout.Alignment.ALIGN_CENTER)
+                .setMaxLines(MAX_LINES)
+                .setEllipsize(TextUtils.TruncateAt.END)
+                .build();
+    }
+
+    private static String cellText(List<ClassSession> sessions) {
+        if (sessions.size() == 1) {
+            Schedule schedule = sessions.get(0).getSchedule();
+            String subjectInfo = schedule.getSubjectName();
+            if (schedule.getInstructorName() != null && !schedule.getInstructorName().isEmpty()) {
+                subjectInfo += "\n" + schedule.getInstructorName();
+            }
+            return subjectInfo;
+        }
+        // Overlapping classes share the cell
+        StringBuilder names = new StringBuilder();
+        for (ClassSession session : sessions) {
+            if (names.length() > 0) {
+                names.append(" / ");
+            }
+            names.append(session.getSchedule().getSubjectName());
+        }
+        return names.toString();
+    }
+
+    private float contentWidth() {
+        return columnWidth * days.length;
+    }
+
+    private float contentHeight() {
+        return rowTops[rowTops.length - 1];
+    }
+
+    private float maxScrollX() {
+        return Math.max(0, contentWidth() * scale - (getWidth() - timeColumnWidth * scale));
+    }
+
+    private float maxScrollY() {
+        return Math.max(0, contentHeight() * scale - (getHeight() - headerHeight * scale));
+    }
+
+    private void scrollGridTo(float x, float y) {
+        scrollX = Math.max(0, Math.min(x, maxScrollX()));
+        scrollY = Math.max(0, Math.min(y, maxScrollY()));
+        invalidate();
+    }
+
+    /**
+     * Changes the scale, keeping the content under the focus point in place.
+     */
+    private void zoom(float newScale, float focusX, float focusY) {
+        newScale = Math.max(MIN_SCALE, Math.min(MAX_SCALE, newScale));
+        float bodyX = focusX - timeColumnWidth * scale;
+        float bodyY = focusY - headerHeight * scale;
+        float ratio = newScale / scale;
+        scale = newScale;
+        scrollGridTo((scrollX + bodyX) * ratio - (focusX - timeColumnWidth * scale),
+                (scrollY + bodyY) * ratio - (focusY - headerHeight * scale));
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        boolean handled = scaleDetector.onTouchEvent(event);
+        if (!scaleDetector.isInProgress()) {
+            handled |= gestureDetector.onTouchEvent(event);
+        }
+        if (event.getActionMasked() == MotionEvent.ACTION_DOWN) {
+            // The grid scrolls both ways, so keep parents from taking the gesture
+            getParent().requestDisallowInterceptTouchEvent(true);
+        }
+        return handled || super.onTouchEvent(event);
+    }
+
+    @Override
+    protected boolean dispatchHoverEvent(MotionEvent event) {
+        return accessibilityHelper.dispatchHoverEvent(event) || super.dispatchHoverEvent(event);
+    }
+
+    @Override
+    public boolean dispatchKeyEvent(KeyEvent event) {
+        return accessibilityHelper.dispatchKeyEvent(event) || super.dispatchKeyEvent(event);
+    }
+
+    @Override
+    protected void onFocusChanged(boolean gainFocus, int direction, @Nullable Rect previouslyFocusedRect) {
+        super.onFocusChanged(gainFocus, direction, previouslyFocusedRect);
+        accessibilityHelper.onFocusChanged(gainFocus, direction, previouslyFocusedRect);
+    }
+
+    @Override
+    public void computeScroll() {
+        if (scroller.computeScrollOffset()) {
+            scrollGridTo(scroller.getCurrX(), scroller.getCurrY());
+            postInvalidateOnAnimation();
+        }
+    }
+
+    /**
+     * Maps a point in the body of the grid to its cell, numbered row by row, or
+     * {@link ExploreByTouchHelper#INVALID_ID} outside the cells.
+     */
+    private int cellAt(float x, float y) {
+        if (x < timeColumnWidth * scale || y < headerHeight * scale) {
+            return ExploreByTouchHelper.INVALID_ID;
+        }
+        float cx = (x - timeColumnWidth * scale + scrollX) / scale;
+        float cy = (y - headerHeight * scale + scrollY) / scale;
+        int column = (int) (cx / columnWidth);
+        if (column < 0 || column >= days.length || cy >= contentHeight()) {
+            return ExploreByTouchHelper.INVALID_ID;
+        }
+        int row = rowAt(cy);
+        if (row < 0 || row >= slots.size()) {
+            return ExploreByTouchHelper.INVALID_ID;
+        }
+        return row * days.length + column;
+    }
+
+    private boolean performCellClick(float x, float y) {
+        int cell = cellAt(x, y);
+        return cell != ExploreByTouchHelper.INVALID_ID && performCellClick(cell);
+    }
+
+    private boolean performCellClick(int cell) {
+        if (onCellClickListener == null) {
+            return false;
+        }
+        int day = days[cell % days.length];
+        Timetable.Slot slot = slots.get(cell / days.length);
+        playSoundEffect(SoundEffectConstants.CLICK);
+        onCellClickListener.onCellClick(day, slot, slot.getSessions(day));
+        accessibilityHelper.sendEventForVirtualView(cell, AccessibilityEvent.TYPE_VIEW_CLICKED);
+        return true;
+    }
+
+    /**
+     * Exposes each cell of the body as a virtual view, so screen readers can
+     * find and click cells the way a tap does.
+     */
+    private final class CellAccessibilityHelper extends ExploreByTouchHelper {
+        private final Rect bounds = new Rect();
+
+        CellAccessibilityHelper() {
+            super(TimetableView.this);
+        }
+
+        @Override
+        protected int getVirtualViewAt(float x, float y) {
+            return cellAt(x, y);
+        }
+
+        @Override
+        protected void getVisibleVirtualViews(List<Integer> virtualViewIds) {
+            int cells = slots.size() * days.length;
+            for (int cell = 0; cell < cells; cell++) {
+                virtualViewIds.add(cell);
+            }
+        }
+
+        @Override
+        protected void onPopulateNodeForVirtualView(int virtualViewId,
+                @NonNull AccessibilityNodeInfoCompat node) {
+            int row = virtualViewId / days.length;
+            int column = virtualViewId % days.length;
+            node.setContentDescription(describeCell(row, column));
+
+            // On-screen position; cells scrolled under the header or time column come out empty
+            float left = timeColumnWidth * scale;
+            float top = headerHeight * scale;
+            float x = left + column * columnWidth * scale - scrollX;
+            float y = top + rowTops[row] * scale - scrollY;
+            bounds.set(Math.round(Math.max(left, x)), Math.round(Math.max(top, y)),
+                    Math.round(Math.max(left, x + columnWidth * scale)),
+                    Math.round(Math.max(top, y + (rowTops[row + 1] - rowTops[row]) * scale)));
+            node.setBoundsInParent(bounds);
+
+            if (onCellClickListener != null) {
+                node.addAction(AccessibilityNodeInfoCompat.ACTION_CLICK);
+                node.setClickable(true);
+            }
+        }
+
+        @Override
+        protected boolean onPerformActionForVirtualView(int virtualViewId, int action,
+                @Nullable Bundle arguments) {
+            return action == AccessibilityNodeInfoCompat.ACTION_CLICK && performCellClick(virtualViewId);
+        }
+    }
+
+    private String describeCell(int row, int column) {
+        Timetable.Slot slot = slots.get(row);
+        List<ClassSession> sessions = slot.getSessions(days[column]);
+        StringBuilder text = new StringBuilder(DAY_NAMES[days[column]])
+                .append(", ").append(TimeRange.format(slot.getStart()))
+                .append(" to ").append(TimeRange.format(slot.getEnd())).append(", ");
+        if (sessions.isEmpty()) {
+            return text.append("free").toString();
+        }
+        List<String> classes = new ArrayList<>(sessions.size());
+        for (ClassSession session : sessions) {
+            Schedule schedule = session.getSchedule();
+            String name = schedule.getSubjectName();
+            if (schedule.getInstructorName() != null && !schedule.getInstructorName().isEmpty()) {
+                name += " with " + schedule.getInstructorName();
+            }
+            classes.add(name);
+        }
+        return text.append(TextUtils.join(" and ", classes)).toString();
+    }
+
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        super.onDraw(canvas);
+        if (timetable == null || days.length == 0) {
+            return;
+        }
+        float left = timeColumnWidth * scale;
+        float top = headerHeight * scale;
+        int width = getWidth();
+        int height = getHeight();
+
+        // Only the rows on screen are drawn
+        int firstRow = Math.max(0, rowAt(scrollY / scale));
+        int lastRow = Math.min(slots.size() - 1, rowAt((scrollY + height - top) / scale));
+
+        // Body, scrolled both ways
+        canvas.save();
+        canvas.clipRect(left, top, width, height);
+        canvas.translate(left - scrollX, top - scrollY);
+        canvas.scale(scale, scale);
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = 0; c < days.length; c++) {
+                StaticLayout layout = cellLayouts[r][c];
+                drawCell(canvas, c * columnWidth, rowTops[r], columnWidth, rowTops[r + 1] - rowTops[r], layout,
+                        layout != null ? busyPaint : freePaint);
+            }
+        }
+        canvas.restore();
+
+        // Header, scrolled sideways only
+        canvas.save();
+        canvas.clipRect(left, 0, width, top);
+        canvas.translate(left - scrollX, 0);
+        canvas.scale(scale, scale);
+        for (int c = 0; c < days.length; c++) {
+            drawCell(canvas, c * columnWidth, 0, columnWidth, headerHeight, headerLayouts[c], freePaint);
+        }
+        canvas.restore();
+
+        // Time column, scrolled vertically only
+        canvas.save();
+        canvas.clipRect(0, top, left, height);
+        canvas.translate(0, top - scrollY);
+        canvas.scale(scale, scale);
+        for (int r = firstRow; r <= lastRow; r++) {
+            drawCell(canvas, 0, rowTops[r], timeColumnWidth, rowTops[r + 1] - rowTops[r], timeLayouts[r], freePaint);
+        }
+        canvas.restore();
+
+        canvas.save();
+        canvas.clipRect(0, 0, left, top);
+        canvas.scale(scale, scale);
+        drawCell(canvas, 0, 0, timeColumnWidth, headerHeight, cornerLayout, freePaint);
+        canvas.restore();
+    }
+
+    private int rowAt(float y) {
+        int row = Arrays.binarySearch(rowTops, y);
+        return row < 0 ? -row - 2 : row;
+    }
+
+    private void drawCell(Canvas canvas, float x, float y, float w, float h, @Nullable StaticLayout text,
+            Paint background) {
+        canvas.drawRect(x, y, x + w, y + h, background);
+        float half = gridWidth / 2;
+        canvas.drawLine(x, y + half, x + w, y + half, gridPaint);
+        canvas.drawLine(x, y + h - half, x + w, y + h - half, gridPaint);
+        canvas.drawLine(x + half, y, x + half, y + h, gridPaint);
+        canvas.drawLine(x + w - half, y, x + w - half, y + h, gridPaint);
+        if (text != null) {
+            canvas.save();
+            canvas.translate(x + padding, y + (h - text.getHeight()) / 2);
+            text.draw(canvas);
+            canvas.restore();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.activity.studentapp.attachment;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.security.DigestInputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for checking content against its SHA-256 hash.
+ */
+public class ContentHashTest {
+
+    // SHA-256 of "abc"
+    private static final String ABC = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+
+    private static DigestInputStream stream(String content) {
+        return new DigestInputStream(new ByteArrayInputStream(content.getBytes()), ContentHash.newDigest());
+    }
+
+    @Test
+    public void verify_acceptsMatchingContent() throws IOException {
+        ContentHash.verify(stream("abc"), ABC);
+    }
+
+    @Test
+    public void verify_hashesWhatIsLeftUnread() throws IOException {
+        DigestInputStream stream = stream("abc");
+        assertEquals('a', stream.read());
+        ContentHash.verify(stream, ABC);
+    }
+
+    @Test(expected = IOException.class)
+    public void verify_rejectsOtherContent() throws IOException {
+        ContentHash.verify(stream("abd"), ABC);
+    }
+}
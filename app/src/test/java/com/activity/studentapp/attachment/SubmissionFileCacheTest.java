@@ -0,0 +1,127 @@
+package com.activity.studentapp.attachment;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the on-disk cache of submitted files.
+ */
+public class SubmissionFileCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static byte[] content(int length, int seed) {
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = (byte) (i * 31 + seed);
+        }
+        return content;
+    }
+
+    private File onlyEntry() {
+        File[] entries = new File(folder.getRoot(), "submission_files").listFiles();
+        assertNotNull(entries);
+        assertEquals(1, entries.length);
+        return entries[0];
+    }
+
+    @Test
+    public void read_returnsWrittenContent() throws IOException {
+        SubmissionFileCache cache = new SubmissionFileCache(folder.getRoot());
+        byte[] content = content(5000, 1);
+
+        cache.write("s1/f1", content);
+
+        assertArrayEquals(content, cache.read("s1/f1", content.length));
+        assertArrayEquals(content, cache.read("s1/f1", -1));
+        assertNull(cache.read("s1/f2", -1));
+        assertNull(cache.read("s2/f1", -1));
+    }
+
+    @Test
+    public void read_dropsEntryWithWrongSize() throws IOException {
+        SubmissionFileCache cache = new SubmissionFileCache(folder.getRoot());
+        cache.write("s1/f1", content(100, 1));
+
+        assertNull(cache.read("s1/f1", 99));
+        assertNull(cache.read("s1/f1", -1));
+    }
+
+    @Test
+    public void read_dropsCorruptEntry() throws IOException {
+        SubmissionFileCache cache = new SubmissionFileCache(folder.getRoot());
+        cache.write("s1/f1", content(1000, 1));
+
+        File entry = onlyEntry();
+        try (RandomAccessFile file = new RandomAccessFile(entry, "rw")) {
+            file.seek(file.length() - 10);
+            int b = file.read();
+            file.seek(file.length() - 10);
+            file.write(~b);
+        }
+
+        assertNull(cache.read("s1/f1", 1000));
+        assertFalse(entry.exists());
+    }
+
+    @Test
+    public void read_dropsTruncatedEntry() throws IOException {
+        SubmissionFileCache cache = new SubmissionFileCache(folder.getRoot());
+        cache.write("s1/f1", content(1000, 1));
+
+        File entry = onlyEntry();
+        try (RandomAccessFile file = new RandomAccessFile(entry, "rw")) {
+            file.setLength(file.length() / 2);
+        }
+
+        assertNull(cache.read("s1/f1", -1));
+        assertFalse(entry.exists());
+    }
+
+    @Test
+    public void write_evictsLeastRecentlyUsedBeyondBudget() throws IOException {
+        SubmissionFileCache cache = new SubmissionFileCache(folder.getRoot(), 2500);
+        cache.write("s1/a", content(1000, 1));
+        cache.write("s1/b", content(1000, 2));
+        File dir = new File(folder.getRoot(), "submission_files");
+        // Make "a" the most recently used, whatever the file system's timestamp resolution
+        for (File entry : dir.listFiles()) {
+            entry.setLastModified(10_000);
+        }
+        cache.read("s1/a", -1);
+
+        cache.write("s1/c", content(1000, 3));
+
+        assertNotNull(cache.read("s1/a", -1));
+        assertNull(cache.read("s1/b", -1));
+        assertArrayEquals(content(1000, 3), cache.read("s1/c", -1));
+    }
+
+    @Test
+    public void write_skipsContentLargerThanBudget() throws IOException {
+        SubmissionFileCache cache = new SubmissionFileCache(folder.getRoot(), 100);
+
+        cache.write("s1/f1", content(101, 1));
+
+        assertNull(cache.read("s1/f1", -1));
+    }
+
+    @Test
+    public void write_replacesExistingEntry() throws IOException {
+        SubmissionFileCache cache = new SubmissionFileCache(folder.getRoot());
+        cache.write("s1/f1", content(10, 1));
+
+        cache.write("s1/f1", content(20, 2));
+
+        assertArrayEquals(content(20, 2), cache.read("s1/f1", 20));
+        onlyEntry();
+    }
+}
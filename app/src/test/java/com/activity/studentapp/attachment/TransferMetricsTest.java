@@ -0,0 +1,76 @@
+package com.activity.studentapp.attachment;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the attachment pipeline metrics.
+ */
+public class TransferMetricsTest {
+
+    private static final long MS = 1_000_000;
+
+    @Test
+    public void histogram_bucketsByPowersOfTwo() {
+        TransferMetrics.Histogram histogram = new TransferMetrics.Histogram();
+
+        histogram.record(0);
+        histogram.record(1);
+        histogram.record(3);
+        histogram.record(4);
+        histogram.record(1_000_000);
+
+        assertEquals(2, histogram.counts[0]);
+        assertEquals(2, histogram.counts[2]);
+        assertEquals(1, histogram.counts[TransferMetrics.Histogram.BUCKETS - 1]);
+        assertEquals(5, histogram.count);
+        assertEquals(1_000_000, histogram.maxMs);
+    }
+
+    @Test
+    public void session_measuresThroughputOverOverlappingTransfers() {
+        TransferMetrics.Session session = new TransferMetrics.Session(TransferMetrics.UPLOAD, "s1");
+
+        session.recordTransfer(1000, 0, 500 * MS);
+        session.recordTransfer(1000, 250 * MS, 1000 * MS);
+
+        assertEquals(2000, session.bytes);
+        assertEquals(2000, session.bytesPerSecond());
+        assertEquals(2, session.latency.count);
+    }
+
+    @Test
+    public void session_keepsPeakBuffer() {
+        TransferMetrics.Session session = new TransferMetrics.Session(TransferMetrics.READ, "s1");
+
+        session.recordBuffer(10);
+        session.recordBuffer(30);
+        session.recordBuffer(20);
+
+        assertEquals(30, session.peakBufferBytes);
+        assertEquals(0, session.bytesPerSecond());
+    }
+
+    @Test
+    public void session_isSharedPerDirectionAndSubmission() {
+        TransferMetrics metrics = new TransferMetrics();
+
+        assertSame(metrics.session(TransferMetrics.UPLOAD, "s1"), metrics.session(TransferMetrics.UPLOAD, "s1"));
+        assertNotSame(metrics.session(TransferMetrics.UPLOAD, "s1"), metrics.session(TransferMetrics.READ, "s1"));
+    }
+
+    @Test
+    public void session_dropsOldestBeyondLimit() {
+        TransferMetrics metrics = new TransferMetrics();
+        for (int i = 0; i <= TransferMetrics.MAX_SESSIONS; i++) {
+            metrics.session(TransferMetrics.UPLOAD, "s" + i);
+        }
+
+        List<TransferMetrics.Session> sessions = metrics.getSessions();
+        assertEquals(TransferMetrics.MAX_SESSIONS, sessions.size());
+        assertEquals("s1", sessions.get(0).submissionId);
+    }
+}
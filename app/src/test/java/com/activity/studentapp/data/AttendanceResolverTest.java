@@ -0,0 +1,62 @@
+package com.activity.studentapp.data;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for answering attendance lookups from a live stream.
+ */
+public class AttendanceResolverTest {
+
+    private final List<Boolean> answers = new ArrayList<>();
+    private AttendanceResolver resolver;
+
+    @Before
+    public void setUp() {
+        // Streamed lookups never query, so no Firestore instance is needed
+        resolver = new AttendanceResolver(null);
+        resolver.attachStream("s1", "math");
+    }
+
+    @Test
+    public void firstSnapshot_answersWaitingLookupsWithoutReportingAChange() {
+        resolver.isPresent("s1", "math", "2026-10-18", answers::add);
+        assertTrue(answers.isEmpty());
+
+        boolean changed = resolver.onPresentDates("s1", "math", new HashSet<>(Arrays.asList("2026-10-18")));
+
+        assertFalse(changed);
+        assertEquals(Collections.singletonList(true), answers);
+    }
+
+    @Test
+    public void newDate_isAnsweredFromTheLastSnapshot() {
+        resolver.onPresentDates("s1", "math", new HashSet<>(Arrays.asList("2026-10-18", "2026-10-19")));
+
+        // E.g. after midnight, with no attendance change to trigger another snapshot
+        resolver.isPresent("s1", "math", "2026-10-19", answers::add);
+        resolver.isPresent("s1", "math", "2026-10-20", answers::add);
+
+        assertEquals(Arrays.asList(true, false), answers);
+    }
+
+    @Test
+    public void laterSnapshot_reportsChangedAnswers() {
+        resolver.isPresent("s1", "math", "2026-10-18", answers::add);
+        resolver.onPresentDates("s1", "math", Collections.emptySet());
+
+        assertFalse(resolver.onPresentDates("s1", "math", new HashSet<>(Arrays.asList("2026-10-17"))));
+        assertTrue(resolver.onPresentDates("s1", "math", new HashSet<>(Arrays.asList("2026-10-18"))));
+
+        resolver.isPresent("s1", "math", "2026-10-18", answers::add);
+        assertEquals(Arrays.asList(false, true), answers);
+    }
+}
@@ -0,0 +1,113 @@
+package com.activity.studentapp.data;
+
+import com.google.firebase.firestore.ListenerRegistration;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the per-screen listener registry.
+ */
+public class ListenerRegistryTest {
+
+    private final List<String> attached = new ArrayList<>();
+    private final List<String> detached = new ArrayList<>();
+
+    private ListenerRegistry.Attach source(String name) {
+        return () -> {
+            attached.add(name);
+            return () -> detached.add(name);
+        };
+    }
+
+    @Test
+    public void add_deduplicatesKeys() {
+        ListenerRegistry registry = new ListenerRegistry("DedupScreen", true);
+
+        registry.add("quizzes?subjectId=math", source("first"));
+        registry.add("quizzes?subjectId=math", source("second"));
+
+        assertEquals(1, registry.size());
+        assertEquals(1, attached.size());
+        assertEquals("first", attached.get(0));
+        assertEquals(Integer.valueOf(1), ListenerRegistry.getLiveCounts().get("DedupScreen"));
+        registry.clear();
+    }
+
+    @Test
+    public void add_givesDuplicatesNoHoldOnTheListener() {
+        ListenerRegistry registry = new ListenerRegistry("HandleScreen", true);
+
+        ListenerRegistration owner = registry.add("exams?subjectId=math", source("first"));
+        registry.add("exams?subjectId=math", source("second")).remove();
+        assertTrue(registry.contains("exams?subjectId=math"));
+        assertTrue(detached.isEmpty());
+
+        owner.remove();
+        registry.add("exams?subjectId=math", source("third"));
+        // The first handle is spent and must not detach the new listener
+        owner.remove();
+        assertTrue(registry.contains("exams?subjectId=math"));
+        assertEquals(1, detached.size());
+        registry.clear();
+    }
+
+    @Test
+    public void remove_detachesAndAllowsReattaching() {
+        ListenerRegistry registry = new ListenerRegistry("RemoveScreen", true);
+        registry.add("exams?subjectId=math", source("first")).remove();
+
+        assertEquals(1, detached.size());
+        assertEquals(0, registry.size());
+        assertNull(ListenerRegistry.getLiveCounts().get("RemoveScreen"));
+
+        registry.add("exams?subjectId=math", source("second"));
+        assertEquals(2, attached.size());
+        registry.clear();
+    }
+
+    @Test
+    public void clear_detachesEverything() {
+        ListenerRegistry registry = new ListenerRegistry("ClearScreen", true);
+        registry.add("a", source("a"));
+        registry.add("b", source("b"));
+
+        registry.clear();
+
+        assertEquals(2, detached.size());
+        assertEquals(0, registry.size());
+        assertNull(ListenerRegistry.getLiveCounts().get("ClearScreen"));
+    }
+
+    @Test
+    public void liveCounts_sumInstancesOfAScreen() {
+        ListenerRegistry first = new ListenerRegistry("SharedScreen", true);
+        ListenerRegistry second = new ListenerRegistry("SharedScreen", true);
+        first.add("a", source("a"));
+        second.add("a", source("a"));
+
+        assertEquals(Integer.valueOf(2), ListenerRegistry.getLiveCounts().get("SharedScreen"));
+        first.clear();
+        assertEquals(Integer.valueOf(1), ListenerRegistry.getLiveCounts().get("SharedScreen"));
+        second.clear();
+    }
+
+    @Test
+    public void add_failsWhenAScreenKeepsGrowing() {
+        ListenerRegistry registry = new ListenerRegistry("LeakyScreen", true);
+        try {
+            for (int i = 0; i <= ListenerRegistry.MAX_PER_SCREEN; i++) {
+                registry.add("attendance?n=" + i, source("n" + i));
+            }
+            fail("Expected the leak assertion");
+        } catch (IllegalStateException expected) {
+            assertTrue(expected.getMessage().startsWith("LeakyScreen holds"));
+        } finally {
+            registry.clear();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.activity.studentapp.data;
+
+import com.activity.studentapp.model.Schedule;
+import com.activity.studentapp.model.Subject;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for joining subjects with their schedules.
+ */
+public class SubjectScheduleJoinTest {
+
+    private final List<Runnable> frames = new ArrayList<>();
+    private final List<List<Subject>> emitted = new ArrayList<>();
+    private SubjectScheduleJoin join;
+
+    @Before
+    public void setUp() {
+        join = new SubjectScheduleJoin(emitted::add, frames::add);
+    }
+
+    private void runFrame() {
+        List<Runnable> pending = new ArrayList<>(frames);
+        frames.clear();
+        for (Runnable frame : pending) {
+            frame.run();
+        }
+    }
+
+    private static Subject subject(String id, String name) {
+        return new Subject(id, id, name, null, null, null, "Rizal");
+    }
+
+    private static Schedule schedule(String subjectId, String instructor, String timeFrame) {
+        return new Schedule("i1", subjectId, "s1", "M-F", timeFrame, instructor, subjectId, "Grade 7 - Rizal", 0);
+    }
+
+    @Test
+    public void join_fillsInstructorAndSchedule() {
+        join.setSubjects(Arrays.asList(subject("math", "Math"), subject("sci", "Science")));
+        join.setSchedules(Collections.singletonList(schedule("math", "Ms. Cruz", "8:00 AM - 9:00 AM")));
+        runFrame();
+
+        assertEquals(1, emitted.size());
+        List<Subject> subjects = emitted.get(0);
+        assertEquals("Ms. Cruz", subjects.get(0).getInstructor());
+        assertEquals("8:00 AM - 9:00 AM", subjects.get(0).getSchedule());
+        assertNull(subjects.get(1).getInstructor());
+        assertEquals("Rizal", subjects.get(1).getRoom());
+    }
+
+    @Test
+    public void join_coalescesChangesWithinAFrame() {
+        join.setSubjects(Collections.singletonList(subject("math", "Math")));
+        join.setSchedules(Collections.singletonList(schedule("math", "Ms. Cruz", "8:00 AM - 9:00 AM")));
+        join.setSchedules(Collections.singletonList(schedule("math", "Mr. Reyes", "8:00 AM - 9:00 AM")));
+
+        assertEquals(1, frames.size());
+        runFrame();
+
+        assertEquals(1, emitted.size());
+        assertEquals("Mr. Reyes", emitted.get(0).get(0).getInstructor());
+    }
+
+    @Test
+    public void join_waitsForSubjects() {
+        join.setSchedules(Collections.singletonList(schedule("math", "Ms. Cruz", "8:00 AM - 9:00 AM")));
+        runFrame();
+        assertTrue(emitted.isEmpty());
+
+        join.setSubjects(Collections.singletonList(subject("math", "Math")));
+        runFrame();
+        assertEquals(1, emitted.size());
+        assertEquals("Ms. Cruz", emitted.get(0).get(0).getInstructor());
+    }
+
+    @Test
+    public void join_skipsUnchangedResults() {
+        join.setSubjects(Collections.singletonList(subject("math", "Math")));
+        runFrame();
+        // Same content from a fresh snapshot, e.g. a metadata-only update
+        join.setSubjects(Collections.singletonList(subject("math", "Math")));
+        join.setSchedules(Collections.singletonList(schedule("other", "Ms. Cruz", "8:00 AM - 9:00 AM")));
+        runFrame();
+
+        assertEquals(1, emitted.size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void join_emitsUnmodifiableList() {
+        join.setSubjects(Collections.singletonList(subject("math", "Math")));
+        runFrame();
+
+        emitted.get(0).add(subject("sci", "Science"));
+    }
+}
@@ -0,0 +1,204 @@
+package com.activity.studentapp.model;
+
+import com.google.firebase.Timestamp;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the Firestore document mappers.
+ */
+public class DocumentMapperTest {
+
+    /**
+     * Map that counts field lookups, standing in for a document's data.
+     */
+    private static class CountingMap extends HashMap<String, Object> {
+        int lookups;
+
+        @Override
+        public Object get(Object key) {
+            lookups++;
+            return super.get(key);
+        }
+    }
+
+    private static CountingMap legacyQuestion(int index) {
+        CountingMap data = new CountingMap();
+        data.put("questionType", "multiple_choice");
+        data.put("text", "Question " + index);
+        data.put("choiceA", "A");
+        data.put("choiceB", "B");
+        data.put("choiceC", "C");
+        data.put("choiceD", "D");
+        data.put("correctAnswer", "B");
+        data.put("points", 2L);
+        return data;
+    }
+
+    @Test
+    public void question_decodesAlternativeFieldNames() {
+        Question question = new QuestionMapper().map("q1", legacyQuestion(1));
+
+        assertEquals("q1", question.getId());
+        assertEquals("multiple_choice", question.getQuestionType());
+        assertEquals("Question 1", question.getQuestionText());
+        assertEquals(Arrays.asList("A", "B", "C", "D"), question.getOptions());
+        assertEquals("B", question.getCorrectAnswer());
+        assertEquals(2, question.getPoints());
+    }
+
+    @Test
+    public void question_fallsBackToOptionsListAndBooleanAnswer() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("type", "true_false");
+        data.put("questionText", "The sky is blue");
+        data.put("options", Arrays.asList("True", "False"));
+        data.put("correctAnswer", true);
+
+        Question question = new QuestionMapper().map("q2", data);
+
+        assertEquals(Arrays.asList("True", "False"), question.getOptions());
+        assertEquals("true", question.getCorrectAnswer());
+        assertEquals(1, question.getPoints());
+        assertTrue(question.isTrueFalse());
+    }
+
+    @Test
+    public void question_readsPrimaryNamesWithOneLookupPerField() {
+        QuestionMapper mapper = new QuestionMapper();
+        CountingMap data = new CountingMap();
+        data.put("type", "multiple_choice");
+        data.put("questionText", "Question");
+        data.put("optionA", "A");
+        data.put("optionB", "B");
+        data.put("optionC", "C");
+        data.put("optionD", "D");
+        data.put("correctAnswer", "B");
+        data.put("points", 2L);
+
+        mapper.map("q0", data);
+
+        // type, text, four choices, correctAnswer and points
+        assertEquals(8, data.lookups);
+    }
+
+    @Test
+    public void fieldAlias_prefersEarlierNamesWhateverWasReadBefore() {
+        FieldAlias alias = new FieldAlias("optionA", "choiceA");
+        Map<String, Object> legacy = new HashMap<>();
+        legacy.put("choiceA", "legacy");
+        Map<String, Object> both = new HashMap<>();
+        both.put("optionA", "current");
+        both.put("choiceA", "legacy");
+
+        assertEquals("legacy", alias.read(legacy));
+        assertEquals("current", alias.read(both));
+        assertEquals("optionA", alias.getResolvedName());
+    }
+
+    @Test
+    public void fieldAlias_stillFindsOtherNamesInMixedLayouts() {
+        FieldAlias alias = new FieldAlias("optionA", "choiceA");
+        Map<String, Object> legacy = new HashMap<>();
+        legacy.put("choiceA", "legacy");
+        Map<String, Object> current = new HashMap<>();
+        current.put("optionA", "current");
+
+        assertEquals("legacy", alias.read(legacy));
+        assertEquals("choiceA", alias.getResolvedName());
+        assertEquals("current", alias.read(current));
+        assertEquals("optionA", alias.getResolvedName());
+        assertNull(alias.read(new HashMap<>()));
+    }
+
+    @Test
+    public void activity_decodesDueDateFromEveryStoredForm() {
+        ActivityMapper mapper = ActivityMapper.forPublishedItems();
+        long millis = 1700000000000L;
+
+        Map<String, Object> timestamp = new HashMap<>();
+        timestamp.put("dueDate", new Timestamp(new Date(millis)));
+        Map<String, Object> scheduledLong = new HashMap<>();
+        scheduledLong.put("scheduledAt", millis);
+        Map<String, Object> scheduledString = new HashMap<>();
+        scheduledString.put("scheduledAt", String.valueOf(millis));
+        Map<String, Object> unparsable = new HashMap<>();
+        unparsable.put("dueDate", "next week");
+
+        assertEquals(millis, mapper.map("a", timestamp).getDueDate());
+        assertEquals(millis, mapper.map("b", scheduledLong).getDueDate());
+        assertEquals(millis, mapper.map("c", scheduledString).getDueDate());
+        assertEquals(0L, mapper.map("d", unparsable).getDueDate());
+    }
+
+    @Test
+    public void activity_publishedItemsFallBackToCreationTime() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("title", "Essay");
+        data.put("createdAt", 1000L);
+        data.put("totalPoints", 50L);
+
+        Activity published = ActivityMapper.forPublishedItems().map("a1", data);
+        assertEquals(1000L, published.getPublishedAt());
+        assertTrue(published.isPublished());
+        assertEquals(50, published.getTotalPoints());
+
+        Activity plain = ActivityMapper.forActivities().map("a1", data);
+        assertEquals(0L, plain.getPublishedAt());
+        assertFalse(plain.isPublished());
+    }
+
+    @Test
+    public void activity_treatsUnexpectedTypesAsAbsent() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("title", 42L);
+        data.put("totalPoints", "ten");
+
+        Activity activity = ActivityMapper.forActivities().map("a2", data);
+
+        assertNull(activity.getTitle());
+        assertEquals(0, activity.getTotalPoints());
+    }
+
+    @Test
+    public void schedule_decodesFields() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("subjectName", "Math");
+        data.put("day", "MWF");
+        data.put("timeFrame", "8:00 AM - 9:00 AM");
+        data.put("createdAt", new Timestamp(new Date(5000L)));
+
+        Schedule schedule = new ScheduleMapper().map("s1", data);
+
+        assertEquals("Math", schedule.getSubjectName());
+        assertEquals("MWF", schedule.getDay());
+        assertEquals("8:00 AM - 9:00 AM", schedule.getTimeFrame());
+        assertEquals(5000L, schedule.getCreatedAt());
+    }
+
+    @Test
+    public void student_decodesFields() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("studentId", "2024-001");
+        data.put("firstName", "Ana");
+        data.put("lastName", "Reyes");
+        data.put("gradeLevel", "Grade 7");
+        data.put("section", "Rizal");
+        data.put("updatedAt", 42L);
+
+        Student student = new StudentMapper().map("doc1", data);
+
+        assertEquals("doc1", student.getId());
+        assertEquals("2024-001", student.getStudentId());
+        assertEquals("Grade 7", student.getGradeLevel());
+        assertEquals("Rizal", student.getSection());
+        assertEquals(42L, student.getUpdatedAt());
+    }
+}
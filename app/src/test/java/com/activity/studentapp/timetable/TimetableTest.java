@@ -0,0 +1,173 @@
+package com.activity.studentapp.timetable;
+
+import com.activity.studentapp.model.Schedule;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for parsing and indexing class schedules.
+ */
+public class TimetableTest {
+
+    private static Schedule schedule(String subject, String day, String timeFrame) {
+        return new Schedule("i1", subject, "s1", day, timeFrame, "Instructor", subject, "Section", 0);
+    }
+
+    private static int days(int... days) {
+        int mask = 0;
+        for (int day : days) {
+            mask |= 1 << day;
+        }
+        return mask;
+    }
+
+    @Test
+    public void dayMask_parsesCommonNotations() {
+        assertEquals(days(0, 2, 4), DayMask.parse("MWF"));
+        assertEquals(days(1, 3), DayMask.parse("T-Th"));
+        assertEquals(days(0, 2), DayMask.parse("M-W"));
+        assertEquals(days(0, 1, 2), DayMask.parse("Mon-Wed"));
+        assertEquals(days(1, 3), DayMask.parse("TTh"));
+        assertEquals(days(1, 3), DayMask.parse("Tue/Thu"));
+        assertEquals(days(0, 1, 2, 3, 4), DayMask.parse("MTWThF"));
+        assertEquals(DayMask.SATURDAY, DayMask.parse("Saturday"));
+        assertEquals(DayMask.WEEKDAYS, DayMask.parse("M-F"));
+        assertEquals(DayMask.WEEKDAYS, DayMask.parse(null));
+        assertEquals(days(5, 6, 0), DayMask.parse("Sat-Mon"));
+    }
+
+    @Test
+    public void dayMask_rejectsUnreadableText() {
+        assertEquals(0, DayMask.parse("TBA"));
+        assertEquals(0, DayMask.parse("M-"));
+    }
+
+    @Test
+    public void timeRange_parsesAndFormats() {
+        TimeRange range = TimeRange.parse("8:00 AM - 9:30 AM");
+        assertEquals(8 * 60, range.getStart());
+        assertEquals(9 * 60 + 30, range.getEnd());
+
+        // The start takes the end's meridiem unless that would put it after the end
+        assertEquals(13 * 60, TimeRange.parse("1:00 - 2:00 PM").getStart());
+        assertEquals(11 * 60, TimeRange.parse("11:00 - 12:30 PM").getStart());
+        assertEquals(12 * 60 + 30, TimeRange.parse("12:30 PM to 1:15 PM").getStart());
+
+        assertNull(TimeRange.parse("9:00 AM"));
+        assertNull(TimeRange.parse("10:00 AM - 9:00 AM"));
+        assertNull(TimeRange.parse(null));
+
+        assertEquals("8:05 AM", TimeRange.format(8 * 60 + 5));
+        assertEquals("12:00 PM", TimeRange.format(12 * 60));
+        assertEquals("12:00 AM", TimeRange.format(0));
+    }
+
+    @Test
+    public void build_keepsUnparsedSchedulesAside() {
+        Schedule unreadable = schedule("Math", "TBA", "8:00 AM - 9:00 AM");
+        Timetable timetable = Timetable.build(Arrays.asList(
+                unreadable,
+                schedule("Science", "MWF", "soon"),
+                schedule("English", "M-F", "8:00 AM - 9:00 AM")));
+
+        assertEquals(1, timetable.getSessions().size());
+        assertEquals(2, timetable.getUnparsed().size());
+        assertSame(unreadable, timetable.getUnparsed().get(0));
+        // The input is kept whole for consumers that need every schedule
+        assertEquals(3, timetable.getSchedules().size());
+    }
+
+    @Test
+    public void at_findsClassesInSession() {
+        Timetable timetable = Timetable.build(Arrays.asList(
+                schedule("Math", "MWF", "8:00 AM - 9:00 AM"),
+                schedule("Science", "TTh", "8:00 AM - 9:30 AM"),
+                schedule("English", "M-F", "10:00 AM - 11:00 AM")));
+
+        assertEquals("Math", timetable.at(0, 8 * 60).get(0).getSchedule().getSubjectName());
+        assertEquals("Math", timetable.at(0, 8 * 60 + 59).get(0).getSchedule().getSubjectName());
+        // End times are exclusive
+        assertTrue(timetable.at(0, 9 * 60).isEmpty());
+        assertEquals("Science", timetable.at(1, 9 * 60 + 15).get(0).getSchedule().getSubjectName());
+        assertTrue(timetable.at(0, 7 * 60).isEmpty());
+        assertEquals("English", timetable.at(4, 10 * 60 + 30).get(0).getSchedule().getSubjectName());
+        assertTrue(timetable.at(5, 10 * 60 + 30).isEmpty());
+        assertTrue(timetable.at(0, 12 * 60).isEmpty());
+    }
+
+    @Test
+    public void slots_splitAtEveryBoundaryAndSkipGaps() {
+        Timetable timetable = Timetable.build(Arrays.asList(
+                schedule("Math", "MWF", "8:00 AM - 9:00 AM"),
+                schedule("Science", "TTh", "8:00 AM - 9:30 AM"),
+                schedule("English", "M-F", "10:00 AM - 11:00 AM")));
+
+        List<Timetable.Slot> slots = timetable.getSlots();
+        assertEquals(3, slots.size());
+        assertEquals(8 * 60, slots.get(0).getStart());
+        assertEquals(9 * 60, slots.get(0).getEnd());
+        assertEquals(9 * 60, slots.get(1).getStart());
+        assertEquals(9 * 60 + 30, slots.get(1).getEnd());
+        // Science spans both of the first two rows on Tuesday
+        assertEquals("Science", slots.get(1).getSessions(1).get(0).getSchedule().getSubjectName());
+        assertTrue(slots.get(1).getSessions(0).isEmpty());
+        assertEquals(10 * 60, slots.get(2).getStart());
+        assertEquals(DayMask.WEEKDAYS, timetable.getDayMask());
+    }
+
+    @Test
+    public void overlaps_reportSharedDays() {
+        Timetable timetable = Timetable.build(Arrays.asList(
+                schedule("Math", "MWF", "8:00 AM - 9:00 AM"),
+                schedule("Science", "M-W", "8:30 AM - 9:30 AM"),
+                schedule("English", "MWF", "9:00 AM - 10:00 AM")));
+
+        List<Timetable.Overlap> overlaps = timetable.getOverlaps();
+        assertEquals(2, overlaps.size());
+        assertEquals("Math", overlaps.get(0).getFirst().getSchedule().getSubjectName());
+        assertEquals("Science", overlaps.get(0).getSecond().getSchedule().getSubjectName());
+        assertEquals(days(0, 2), overlaps.get(0).getDays());
+        assertEquals("English", overlaps.get(1).getSecond().getSchedule().getSubjectName());
+        assertEquals(days(0, 2), overlaps.get(1).getDays());
+    }
+
+    @Test
+    public void agenda_resolvesCurrentAndNextClass() {
+        DailyAgenda monday = Timetable.build(Arrays.asList(
+                schedule("English", "M-F", "10:00 AM - 11:00 AM"),
+                schedule("Math", "MWF", "8:00 AM - 9:00 AM"),
+                schedule("Science", "TTh", "8:00 AM - 9:30 AM"))).agenda(0);
+
+        assertEquals(2, monday.getSessions().size());
+        assertNull(monday.current(7 * 60));
+        assertEquals("Math", monday.next(7 * 60).getSchedule().getSubjectName());
+        assertEquals("Math", monday.current(8 * 60).getSchedule().getSubjectName());
+        assertEquals("English", monday.next(8 * 60).getSchedule().getSubjectName());
+        assertNull(monday.current(9 * 60 + 30));
+        assertEquals("English", monday.current(10 * 60 + 59).getSchedule().getSubjectName());
+        assertNull(monday.next(10 * 60));
+        assertNull(monday.current(11 * 60));
+    }
+
+    @Test
+    public void agenda_nextBoundaryStepsThroughStartsAndEnds() {
+        DailyAgenda monday = Timetable.build(Arrays.asList(
+                schedule("Math", "MWF", "8:00 AM - 9:00 AM"),
+                schedule("Science", "M", "8:30 AM - 9:30 AM"))).agenda(0);
+
+        assertEquals(8 * 60, monday.nextBoundary(0));
+        assertEquals(8 * 60 + 30, monday.nextBoundary(8 * 60));
+        assertEquals(9 * 60, monday.nextBoundary(8 * 60 + 30));
+        assertEquals(9 * 60 + 30, monday.nextBoundary(9 * 60));
+        assertEquals(-1, monday.nextBoundary(9 * 60 + 30));
+        // Overlapping classes: the one that started last is current
+        assertEquals("Science", monday.current(8 * 60 + 45).getSchedule().getSubjectName());
+        assertEquals(-1, Timetable.build(Arrays.asList(
+                schedule("Math", "MWF", "8:00 AM - 9:00 AM"))).agenda(6).nextBoundary(0));
+    }
+}